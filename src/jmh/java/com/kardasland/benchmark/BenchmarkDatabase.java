@@ -0,0 +1,65 @@
+package com.kardasland.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.ServerMock;
+import com.kardasland.CacheConfig;
+import com.kardasland.DatabaseConfig;
+import com.kardasland.DatabaseManager;
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.repository.RepositoryFactory;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A mocked server plus an embedded database, shared by the persistence benchmarks.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+	static final String WORLD_NAME = "bench-world";
+
+	private final ServerMock server;
+	private final DatabaseManager databaseManager;
+	private final RepositoryFactory factory;
+
+	BenchmarkDatabase(String type, boolean cache) {
+		this.server = MockBukkit.mock();
+		MockPlugin plugin = MockBukkit.createMockPlugin("BenchmarkPlugin");
+		server.addSimpleWorld(WORLD_NAME);
+
+		String filePath = type.equals("h2")
+			? "mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"
+			: "target/bench-db-" + UUID.randomUUID() + ".db";
+		DatabaseConfig config = DatabaseConfig.builder()
+			.type(type)
+			.filePath(filePath)
+			.packagesToScan(List.of(PlayerProfile.class.getPackageName()))
+			.cache(CacheConfig.builder().enabled(cache).cacheAllEntities(cache).build())
+			.build();
+		this.databaseManager = new DatabaseManager(plugin);
+		databaseManager.initializeDataSource(config);
+		this.factory = new RepositoryFactory(databaseManager);
+	}
+
+	RepositoryFactory factory() {
+		return factory;
+	}
+
+	World world() {
+		return server.getWorld(WORLD_NAME);
+	}
+
+	PlayerProfile newProfile(int level) {
+		return new PlayerProfile(UUID.randomUUID(), "player-" + level, level, new Location(world(), level, 64, -level));
+	}
+
+	@Override
+	public void close() {
+		factory.close();
+		databaseManager.shutdown();
+		MockBukkit.unmock();
+	}
+}
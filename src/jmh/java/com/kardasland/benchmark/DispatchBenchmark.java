@@ -0,0 +1,94 @@
+package com.kardasland.benchmark;
+
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerProfileRepository;
+import com.kardasland.processor.ProcessorCompiler;
+import com.kardasland.repository.RepositoryFactory;
+import com.kardasland.repository.RepositoryInvocationHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reaching a repository method's plan through the dynamic proxy versus the {@code _Impl} generated by
+ * {@link com.kardasland.processor.RepositoryProcessor}, for a derived query and a CRUD method, and of deriving
+ * query plans when a repository is created. The executor drops every task, so no database is involved and only
+ * dispatch and submission are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+	private final UUID id = UUID.randomUUID();
+	private Path directory;
+	private URLClassLoader classLoader;
+	private PlayerProfileRepository proxy;
+	private PlayerProfileRepository generated;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, ReflectiveOperationException {
+		// The benchmark build only runs Lombok and JMH, so the implementation is generated here.
+		directory = Files.createTempDirectory("dispatch-benchmark");
+		ProcessorCompiler.Result result = ProcessorCompiler.generate(directory, PlayerProfileRepository.class);
+		if (!result.success()) {
+			throw new IllegalStateException(result.diagnostics());
+		}
+		classLoader = result.classLoader(getClass().getClassLoader());
+
+		RepositoryFactory factory = new RepositoryFactory(null, null, task -> {
+		});
+		generated = (PlayerProfileRepository) classLoader.loadClass(PlayerProfileRepository.class.getName() + "_Impl")
+			.getConstructor(RepositoryInvocationHandler.class)
+			.newInstance(new RepositoryInvocationHandler(factory, PlayerProfileRepository.class));
+		proxy = (PlayerProfileRepository) Proxy.newProxyInstance(
+			PlayerProfileRepository.class.getClassLoader(),
+			new Class<?>[]{PlayerProfileRepository.class},
+			new RepositoryInvocationHandler(factory, PlayerProfileRepository.class)
+		);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		classLoader.close();
+		try (var paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public CompletableFuture<PlayerProfile> proxyDerivedQuery() {
+		return proxy.findByUsername("Notch");
+	}
+
+	@Benchmark
+	public CompletableFuture<PlayerProfile> generatedDerivedQuery() {
+		return generated.findByUsername("Notch");
+	}
+
+	@Benchmark
+	public CompletableFuture<PlayerProfile> proxyCrudMethod() {
+		return proxy.findById(id);
+	}
+
+	@Benchmark
+	public CompletableFuture<PlayerProfile> generatedCrudMethod() {
+		return generated.findById(id);
+	}
+
+	@Benchmark
+	public RepositoryInvocationHandler deriveQueryPlans() {
+		return new RepositoryInvocationHandler(null, null, PlayerProfileRepository.class);
+	}
+}
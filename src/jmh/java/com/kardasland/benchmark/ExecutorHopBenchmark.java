@@ -0,0 +1,50 @@
+package com.kardasland.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.kardasland.ExecutorStrategy;
+import com.kardasland.concurrent.RepositoryExecutors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of handing a task to a repository executor and joining its result.
+ * The Bukkit scheduler strategy is left out, since MockBukkit only runs async tasks when told to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutorHopBenchmark {
+
+	@Param({"VIRTUAL_THREADS", "BOUNDED_POOL"})
+	private ExecutorStrategy strategy;
+
+	private Executor executor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		MockBukkit.mock();
+		MockPlugin plugin = MockBukkit.createMockPlugin("BenchmarkPlugin");
+		executor = RepositoryExecutors.create(strategy, plugin, 10);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (executor instanceof ExecutorService executorService) {
+			executorService.shutdownNow();
+		}
+		MockBukkit.unmock();
+	}
+
+	@Benchmark
+	public Object hop() {
+		return CompletableFuture.supplyAsync(() -> Boolean.TRUE, executor).join();
+	}
+}
@@ -0,0 +1,52 @@
+package com.kardasland.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import com.kardasland.converters.LocationConverter;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LocationConverter} round trips, the per-row cost of every entity with a {@link Location}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationConverterBenchmark {
+
+	private final LocationConverter converter = new LocationConverter();
+	private Location location;
+	private String column;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		ServerMock server = MockBukkit.mock();
+		location = new Location(server.addSimpleWorld(BenchmarkDatabase.WORLD_NAME), 1024.5, 64, -2048.25, 90.0f, -12.5f);
+		column = converter.convertToDatabaseColumn(location);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		MockBukkit.unmock();
+	}
+
+	@Benchmark
+	public String toColumn() {
+		return converter.convertToDatabaseColumn(location);
+	}
+
+	@Benchmark
+	public Location toLocation() {
+		return converter.convertToEntityAttribute(column);
+	}
+
+	@Benchmark
+	public Location roundTrip() {
+		return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(location));
+	}
+}
@@ -0,0 +1,62 @@
+package com.kardasland.benchmark;
+
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerProfileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findById} latency, with and without the second-level cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+	private static final int ROWS = 1_000;
+
+	@Param({"sqlite", "h2"})
+	private String database;
+	@Param({"false", "true"})
+	private boolean cache;
+
+	private BenchmarkDatabase db;
+	private PlayerProfileRepository repository;
+	private final List<UUID> ids = new ArrayList<>(ROWS);
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchmarkDatabase(database, cache);
+		repository = db.factory().createRepository(PlayerProfileRepository.class);
+		List<PlayerProfile> profiles = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			PlayerProfile profile = db.newProfile(i);
+			profiles.add(profile);
+			ids.add(profile.getId());
+		}
+		repository.saveAll(profiles).join();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	public PlayerProfile findById() {
+		return repository.findById(ids.get(ThreadLocalRandom.current().nextInt(ROWS))).join();
+	}
+
+	@Benchmark
+	public PlayerProfile findByUsername() {
+		return repository.findByUsername("player-" + ThreadLocalRandom.current().nextInt(ROWS)).join();
+	}
+}
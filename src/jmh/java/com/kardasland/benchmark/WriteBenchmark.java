@@ -0,0 +1,66 @@
+package com.kardasland.benchmark;
+
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerProfileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of one {@code save} per entity against one batched {@code saveAll}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+	private static final int BATCH = 100;
+
+	@Param({"sqlite", "h2"})
+	private String database;
+
+	private BenchmarkDatabase db;
+	private PlayerProfileRepository repository;
+	private List<PlayerProfile> batch;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchmarkDatabase(database, false);
+		repository = db.factory().createRepository(PlayerProfileRepository.class);
+	}
+
+	@Setup(Level.Invocation)
+	public void newBatch() {
+		batch = new ArrayList<>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			batch.add(db.newProfile(i));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void saveEach() {
+		CompletableFuture<?>[] saves = new CompletableFuture<?>[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			saves[i] = repository.save(batch.get(i));
+		}
+		CompletableFuture.allOf(saves).join();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void saveAll() {
+		repository.saveAll(batch).join();
+	}
+}
@@ -0,0 +1,35 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Hibernate second-level cache, kept in-process with Caffeine.
+ * Entities are cached when annotated with {@link jakarta.persistence.Cacheable}, when listed in {@link #entities},
+ * or, with {@link #cacheAllEntities}, always.
+ */
+@Data
+@Builder
+public class CacheConfig {
+	private final boolean enabled;
+	private final boolean cacheAllEntities;
+	/**
+	 * Caches derived query results. Entries are invalidated whenever a queried table is written.
+	 */
+	private final boolean queryCache;
+	@Builder.Default
+	private final Duration defaultTtl = Duration.ofMinutes(10);
+	@Builder.Default
+	private final long defaultMaxSize = 10_000;
+	/**
+	 * Per-entity overrides of {@link #defaultTtl} and {@link #defaultMaxSize}.
+	 */
+	@Builder.Default
+	private final Map<Class<?>, Region> entities = Map.of();
+
+	public record Region(Duration ttl, long maxSize) {
+	}
+}
@@ -3,7 +3,9 @@ package com.kardasland;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -17,5 +19,35 @@ public class DatabaseConfig {
 	private final String filePath;
 	private final boolean showSql;
 	private final List<String> packagesToScan;
+	@Builder.Default
+	private final int jdbcBatchSize = 50;
+	@Builder.Default
+	private final ExecutorStrategy executorStrategy = ExecutorStrategy.VIRTUAL_THREADS;
+	@Builder.Default
+	private final PoolConfig pool = PoolConfig.builder().build();
+	@Builder.Default
+	private final SqliteConfig sqlite = SqliteConfig.builder().build();
+	@Builder.Default
+	private final CacheConfig cache = CacheConfig.builder().build();
+	@Builder.Default
+	private final MetricsConfig metrics = MetricsConfig.builder().build();
+	@Builder.Default
+	private final SchedulerConfig scheduler = SchedulerConfig.builder().build();
+	@Builder.Default
+	private final ReplicationConfig replication = ReplicationConfig.builder().build();
+	@Builder.Default
+	private final SchemaMode schemaMode = SchemaMode.UPDATE;
+	@Builder.Default
+	private final MigrationConfig migrations = MigrationConfig.builder().build();
+	/**
+	 * How often the dirty {@link com.kardasland.annotation.SessionScoped} entities of online players are saved.
+	 */
+	@Builder.Default
+	private final Duration sessionFlushInterval = Duration.ofMinutes(5);
+	/**
+	 * Extra JDBC driver properties. These override the per-database performance defaults.
+	 */
+	@Builder.Default
+	private final Map<String, String> driverProperties = Map.of();
 
 }
@@ -1,8 +1,29 @@
 package com.kardasland;
 
+import com.kardasland.cache.CacheStatistics;
+import com.kardasland.cache.SecondLevelCache;
+import com.kardasland.concurrent.RepositoryExecutors;
+import com.kardasland.concurrent.TickAwareScheduler;
 import com.kardasland.converters.LocationConverter;
+import com.kardasland.datasource.ReplicaDataSource;
+import com.kardasland.datasource.ReplicaLagProbe;
+import com.kardasland.datasource.RoutingDataSource;
+import com.kardasland.datasource.SharedPoolRegistry;
+import com.kardasland.index.EntityIndex;
+import com.kardasland.location.StoredLocation;
+import com.kardasland.location.WorldCache;
+import com.kardasland.metrics.HibernateStatistics;
+import com.kardasland.metrics.MetricsSnapshot;
+import com.kardasland.metrics.PoolStatistics;
+import com.kardasland.metrics.RepositoryMetrics;
+import com.kardasland.migration.DerivedIndexes;
+import com.kardasland.migration.MigrationRunner;
+import com.kardasland.repository.CrudRepository;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import jakarta.persistence.Converter;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.SharedCacheMode;
@@ -12,47 +33,296 @@ import jakarta.persistence.spi.PersistenceUnitInfo;
 import jakarta.persistence.spi.PersistenceUnitTransactionType;
 import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.spi.MetadataImplementor;
+import org.hibernate.engine.config.spi.ConfigurationService;
 import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.Bootstrap;
+import org.hibernate.stat.Statistics;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
 import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
 import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 
+import javax.cache.CacheManager;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.net.URL;
 import java.security.CodeSource;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 public class DatabaseManager {
 
+	private static final int SQLITE_OPEN_READONLY = 0x01;
+
+	@Getter
 	private final JavaPlugin plugin;
 	@Getter
 	private EntityManagerFactory entityManagerFactory;
+	private HikariDataSource dataSource;
+	private boolean sharedPool;
+	private HikariDataSource readDataSource;
+	private final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+	private ReplicaDataSource replicaRouter;
+	@Getter
+	private Executor executor;
+	/**
+	 * Executor for repository writes. Same as {@link #getExecutor()} unless writes are serialized on a single writer thread.
+	 */
+	@Getter
+	private Executor writeExecutor;
+	private CacheManager cacheManager;
+	@Getter
+	private RepositoryMetrics metrics;
+	/**
+	 * Priority scheduler in front of the executors, or {@code null} unless enabled in {@link SchedulerConfig}.
+	 */
+	@Getter
+	private TickAwareScheduler scheduler;
+	@Getter
+	private Duration sessionFlushInterval;
 
 	public DatabaseManager(JavaPlugin plugin) {
 		this.plugin = plugin;
 	}
 
 	public void initializeDataSource(DatabaseConfig config) {
-		HikariDataSource dataSource = getHikariDataSource(config);
+		this.sessionFlushInterval = config.getSessionFlushInterval();
+		// Finding the entities only reads the class path, so it runs while the pools open.
+		long discoveryStart = System.nanoTime();
+		CompletableFuture<ManagedClasses> discovery = CompletableFuture.supplyAsync(() -> discoverManagedClasses(config),
+			runnable -> startThread("discovery", runnable));
+		this.metrics = new RepositoryMetrics(plugin.getLogger(), config.getMetrics());
+		WorldCache.listen(plugin);
+		this.sharedPool = config.getPool().isShared() && isServerDatabase(config);
+		this.dataSource = sharedPool ? SharedPoolRegistry.acquire(plugin, createSharedHikariConfig(config)) : getHikariDataSource(config);
+		DataSource persistenceDataSource = dataSource;
+		int concurrency = dataSource.getMaximumPoolSize();
+		if (usesSqliteSingleWriter(config)) {
+			// The writer pool is created first so the database file exists and is in WAL mode before readers open it.
+			this.readDataSource = getSqliteReadDataSource(config);
+			persistenceDataSource = new RoutingDataSource(dataSource, readDataSource);
+			concurrency = readDataSource.getMaximumPoolSize();
+			this.writeExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name(plugin.getName() + "-jpa-writer").daemon(true).factory());
+		} else if (!config.getReplication().getReplicas().isEmpty() && supportsReplicas(config)) {
+			ReplicationConfig replication = config.getReplication();
+			for (ReplicaConfig replica : replication.getReplicas()) {
+				replicaDataSources.add(getReplicaDataSource(config, replica, replicaDataSources.size() + 1));
+			}
+			this.replicaRouter = new ReplicaDataSource(dataSource, replicaDataSources, ReplicaLagProbe.forType(config.getType()),
+				replication.getMaxLagMillis(), plugin.getLogger());
+			replicaRouter.start(replication.getHealthCheckIntervalMillis(), plugin.getName() + "-jpa-replicas");
+			persistenceDataSource = new RoutingDataSource(dataSource, replicaRouter);
+			for (HikariDataSource replica : replicaDataSources) {
+				concurrency += replica.getMaximumPoolSize();
+			}
+		}
+		this.executor = RepositoryExecutors.create(config.getExecutorStrategy(), plugin, concurrency);
+		if (writeExecutor == null) {
+			this.writeExecutor = executor;
+		}
+		if (config.getScheduler().isEnabled()) {
+			this.scheduler = new TickAwareScheduler(config.getScheduler(), concurrency, plugin.getLogger());
+			scheduler.start(plugin);
+		}
 
 		Properties properties = new Properties();
 		properties.put("hibernate.dialect", getDialect(config.getType()));
-		properties.put("hibernate.hbm2ddl.auto", "update");
+		// The schema is prepared before the EntityManagerFactory is built, as configured by the schema mode.
+		properties.put("hibernate.hbm2ddl.auto", "none");
 		properties.put("hibernate.show_sql", String.valueOf(config.isShowSql()));
 		properties.put("hibernate.format_sql", "true");
+		properties.put("hibernate.jdbc.batch_size", String.valueOf(config.getJdbcBatchSize()));
+		properties.put("hibernate.order_inserts", "true");
+		properties.put("hibernate.order_updates", "true");
+		if (metrics.isEnabled()) {
+			properties.put("hibernate.generate_statistics", "true");
+		}
 
-		Reflections reflections = instantiateReflections(config);
-
-		Set<Class<?>> entityClasses = reflections.getTypesAnnotatedWith(Entity.class);
+		ManagedClasses managedClasses;
+		try {
+			managedClasses = discovery.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException cause ? cause : e;
+		}
+		long discoveryMillis = elapsedMillis(discoveryStart);
+		Set<Class<?>> entityClasses = managedClasses.entities();
 		plugin.getLogger().info("Found entities: " + entityClasses.stream().map(Class::getSimpleName).collect(Collectors.joining(", ")));
 
-		this.entityManagerFactory = new HibernatePersistenceProvider()
-			.createContainerEntityManagerFactory(
-				createPersistenceUnitInfo(plugin.getName(), entityClasses, dataSource),
-				properties
-			);
+		if (config.getCache().isEnabled()) {
+			this.cacheManager = SecondLevelCache.configure(plugin.getName(), config.getCache(), entityClasses, properties, plugin.getClass().getClassLoader());
+		}
+
+		EntityManagerFactoryBuilderImpl builder = (EntityManagerFactoryBuilderImpl) Bootstrap.getEntityManagerFactoryBuilder(
+			createPersistenceUnitInfo(plugin.getName(), managedClasses, persistenceDataSource, SecondLevelCache.sharedCacheMode(config.getCache())),
+			properties
+		);
+		MetadataImplementor metadata = builder.metadata();
+		// Building the session factory walks the same tables and columns, and the metadata is not thread-safe.
+		long schemaStart = System.nanoTime();
+		prepareSchema(config, metadata, managedClasses);
+		long schemaMillis = elapsedMillis(schemaStart);
+		long buildStart = System.nanoTime();
+		this.entityManagerFactory = builder.build();
+		long buildMillis = elapsedMillis(buildStart);
+
+		plugin.getLogger().info(String.format("Startup: entity discovery %d ms (%s, while opening the pool), schema %s %d ms, EntityManagerFactory %d ms",
+			discoveryMillis, managedClasses.source(), config.getSchemaMode().name().toLowerCase(Locale.ROOT), schemaMillis, buildMillis));
+	}
+
+	/**
+	 * Stops the repository executor, then closes the EntityManagerFactory and the underlying connection pool.
+	 */
+	public void shutdown() {
+		if (scheduler != null) {
+			scheduler.close();
+		}
+		if (writeExecutor != executor) {
+			shutdownExecutor(writeExecutor);
+		}
+		shutdownExecutor(executor);
+		if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
+			entityManagerFactory.close();
+		}
+		if (cacheManager != null && !cacheManager.isClosed()) {
+			cacheManager.close();
+		}
+		if (replicaRouter != null) {
+			replicaRouter.close();
+		}
+		for (HikariDataSource replica : replicaDataSources) {
+			if (!replica.isClosed()) {
+				replica.close();
+			}
+		}
+		if (readDataSource != null && !readDataSource.isClosed()) {
+			readDataSource.close();
+		}
+		if (dataSource != null && !dataSource.isClosed()) {
+			if (sharedPool) {
+				SharedPoolRegistry.release(plugin, dataSource);
+			} else {
+				dataSource.close();
+			}
+		}
+	}
+
+	/**
+	 * Second-level and query cache hit and miss counts. All zero unless the cache is enabled in {@link DatabaseConfig}.
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return CacheStatistics.from(requireEntityManagerFactory().unwrap(SessionFactory.class).getStatistics());
+	}
+
+	/**
+	 * Repository latencies, pool usage and Hibernate statistics collected since startup.
+	 */
+	public MetricsSnapshot getMetricsSnapshot() {
+		Statistics statistics = requireEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		return new MetricsSnapshot(metrics.getMethodStatistics(), getPoolStatistics(), HibernateStatistics.from(statistics), CacheStatistics.from(statistics));
+	}
+
+	private EntityManagerFactory requireEntityManagerFactory() {
+		if (entityManagerFactory == null) {
+			throw new IllegalStateException("The database is still initializing");
+		}
+		return entityManagerFactory;
+	}
+
+	private PoolStatistics getPoolStatistics() {
+		int active = 0, idle = 0, total = 0, waiting = 0;
+		List<HikariDataSource> pools = new ArrayList<>(List.of(dataSource));
+		if (readDataSource != null) {
+			pools.add(readDataSource);
+		}
+		pools.addAll(replicaDataSources);
+		for (HikariDataSource pool : pools) {
+			HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+			if (bean != null) {
+				active += bean.getActiveConnections();
+				idle += bean.getIdleConnections();
+				total += bean.getTotalConnections();
+				waiting += bean.getThreadsAwaitingConnection();
+			}
+		}
+		return new PoolStatistics(active, idle, total, waiting, metrics.getConnectionAcquireLatency());
+	}
+
+	private void shutdownExecutor(Executor executor) {
+		if (executor instanceof ExecutorService executorService) {
+			executorService.shutdown();
+			try {
+				if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+					plugin.getLogger().warning("Repository tasks did not finish within 10 seconds, shutting down anyway.");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Reads the build-time index written by {@link com.kardasland.processor.EntityIndexProcessor},
+	 * falling back to a classpath scan when the plugin was compiled without it. Configured packages the index
+	 * has no class of, such as those of a shaded library built without the processor, are scanned as well.
+	 */
+	private ManagedClasses discoverManagedClasses(DatabaseConfig config) {
+		ClassLoader pluginCl = plugin.getClass().getClassLoader();
+		EntityIndex index;
+		try {
+			index = EntityIndex.load(pluginCl);
+		} catch (IOException e) {
+			plugin.getLogger().log(Level.WARNING, "Could not read " + EntityIndex.RESOURCE + ", scanning the classpath instead", e);
+			index = null;
+		}
+		if (index == null) {
+			Reflections reflections = instantiateReflections(config);
+			return new ManagedClasses(reflections.getTypesAnnotatedWith(Entity.class), reflections.getTypesAnnotatedWith(Converter.class),
+				new LinkedHashSet<>(reflections.getSubTypesOf(CrudRepository.class)), "classpath scan");
+		}
+		ManagedClasses indexed = new ManagedClasses(loadIndexed(index.getEntities(), pluginCl), loadIndexed(index.getConverters(), pluginCl),
+			loadIndexed(index.getRepositories(), pluginCl), "index");
+		List<String> uncovered = new ArrayList<>();
+		if (config.getPackagesToScan() != null) {
+			for (String pkg : config.getPackagesToScan()) {
+				if (!index.covers(pkg)) {
+					uncovered.add(pkg);
+				}
+			}
+		}
+		if (uncovered.isEmpty()) {
+			return indexed;
+		}
+		Reflections reflections = scanPackages(uncovered);
+		indexed.entities().addAll(reflections.getTypesAnnotatedWith(Entity.class));
+		indexed.converters().addAll(reflections.getTypesAnnotatedWith(Converter.class));
+		indexed.repositories().addAll(reflections.getSubTypesOf(CrudRepository.class));
+		return new ManagedClasses(indexed.entities(), indexed.converters(), indexed.repositories(), "index and scan of " + String.join(", ", uncovered));
+	}
+
+	private Set<Class<?>> loadIndexed(Set<String> classNames, ClassLoader classLoader) {
+		Set<Class<?>> classes = new LinkedHashSet<>();
+		for (String className : classNames) {
+			try {
+				classes.add(Class.forName(className, false, classLoader));
+			} catch (ClassNotFoundException e) {
+				plugin.getLogger().warning("Indexed class " + className + " is missing, the index may be stale.");
+			}
+		}
+		return classes;
 	}
 
 	private Reflections instantiateReflections(DatabaseConfig config) {
@@ -72,24 +342,113 @@ public class DatabaseManager {
 		ConfigurationBuilder cfg = new ConfigurationBuilder()
 			.addClassLoaders(loaders.toArray(ClassLoader[]::new))
 			.setUrls(urls)
-			.setScanners(Scanners.TypesAnnotated);
+			.setScanners(Scanners.TypesAnnotated, Scanners.SubTypes);
 		return new Reflections(cfg);
 	}
 
+	/**
+	 * Scans only the given packages, in whichever jars on the plugin's class path contain them.
+	 */
+	private Reflections scanPackages(List<String> packages) {
+		ClassLoader[] loaders = {plugin.getClass().getClassLoader(), Thread.currentThread().getContextClassLoader()};
+		Set<URL> urls = new LinkedHashSet<>();
+		for (String pkg : packages) {
+			urls.addAll(ClasspathHelper.forPackage(pkg, loaders));
+		}
+		ConfigurationBuilder cfg = new ConfigurationBuilder()
+			.addClassLoaders(loaders)
+			.setUrls(urls)
+			.filterInputsBy(new FilterBuilder().includePackage(packages.toArray(String[]::new)))
+			.setScanners(Scanners.TypesAnnotated, Scanners.SubTypes);
+		return new Reflections(cfg);
+	}
+
+	/**
+	 * Brings the schema in line with the entities as the configured {@link SchemaMode} describes.
+	 */
+	private void prepareSchema(DatabaseConfig config, MetadataImplementor metadata, ManagedClasses managedClasses) {
+		switch (config.getSchemaMode()) {
+			case UPDATE -> runSchemaTool(metadata, "update");
+			case MIGRATE -> {
+				MigrationRunner.forPlugin(plugin, dataSource, config.getMigrations()).migrate();
+				if (config.getMigrations().isDerivedIndexes()) {
+					DerivedIndexes.create(dataSource, metadata, managedClasses.repositories(), plugin.getLogger());
+				}
+			}
+			case VALIDATE -> {
+				MigrationRunner.forPlugin(plugin, dataSource, config.getMigrations()).validate();
+				runSchemaTool(metadata, "validate");
+			}
+			case NONE -> {
+			}
+		}
+	}
+
+	/**
+	 * Runs a Hibernate schema action, the same one {@code hibernate.hbm2ddl.auto} would run during the build.
+	 */
+	private void runSchemaTool(MetadataImplementor metadata, String action) {
+		StandardServiceRegistry serviceRegistry = metadata.getMetadataBuildingOptions().getServiceRegistry();
+		Map<String, Object> settings = new HashMap<>(serviceRegistry.requireService(ConfigurationService.class).getSettings());
+		settings.put("hibernate.hbm2ddl.auto", action);
+		SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings, ignored -> { });
+	}
+
+	/**
+	 * Runs startup work on a thread of its own that resolves classes through the plugin's class loader.
+	 */
+	private void startThread(String name, Runnable runnable) {
+		Thread thread = Thread.ofPlatform().name(plugin.getName() + "-jpa-" + name).daemon(true).unstarted(runnable);
+		thread.setContextClassLoader(plugin.getClass().getClassLoader());
+		thread.start();
+	}
+
+	private static long elapsedMillis(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
 	private HikariDataSource getHikariDataSource(DatabaseConfig config) {
-		HikariConfig hikariConfig = new HikariConfig();
+		HikariConfig hikariConfig = createHikariConfig(config);
 		hikariConfig.setPoolName(plugin.getName() + "-Hikari");
-		switch (config.getType().toLowerCase()) {
+		applyMetricsTracker(hikariConfig);
+		return new HikariDataSource(hikariConfig);
+	}
+
+	/**
+	 * Settings for a pool other plugins may lease, so it carries no plugin name or metrics of this plugin.
+	 */
+	private HikariConfig createSharedHikariConfig(DatabaseConfig config) {
+		HikariConfig hikariConfig = createHikariConfig(config);
+		hikariConfig.setPoolName("SpigotJPA-shared-" + config.getType().toLowerCase() + "-" + config.getName());
+		return hikariConfig;
+	}
+
+	private boolean isServerDatabase(DatabaseConfig config) {
+		String type = config.getType().toLowerCase();
+		if (type.equals("mysql") || type.equals("postgresql")) {
+			return true;
+		}
+		plugin.getLogger().warning("Shared pools are only supported for MySQL and PostgreSQL, using a private pool for " + type);
+		return false;
+	}
+
+	private HikariConfig createHikariConfig(DatabaseConfig config) {
+		HikariConfig hikariConfig = new HikariConfig();
+		String type = config.getType().toLowerCase();
+		switch (type) {
 			case "sqlite":
 				hikariConfig.setJdbcUrl("jdbc:sqlite:" + config.getFilePath());
 				break;
+			case "h2":
+				hikariConfig.setJdbcUrl("jdbc:h2:" + config.getFilePath());
+				break;
 			case "mysql":
 			case "postgresql":
 				hikariConfig.setJdbcUrl(
-					"jdbc:" + config.getType() + "://" +
+					"jdbc:" + type + "://" +
 						config.getHost() + ":" +
 						config.getPort() + "/" +
-						config.getName() + "?autoReconnect=true&useSSL=false"
+						config.getName()
 				);
 				hikariConfig.setUsername(config.getUser());
 				hikariConfig.setPassword(config.getPassword());
@@ -97,19 +456,145 @@ public class DatabaseManager {
 			default:
 				throw new IllegalArgumentException("Unsupported database type in DatabaseConfig: " + config.getType());
 		}
+		applyPoolConfig(hikariConfig, type, config.getPool());
+		if (usesSqliteSingleWriter(config)) {
+			hikariConfig.setMaximumPoolSize(1);
+			hikariConfig.setMinimumIdle(1);
+		}
+
+		Map<String, String> driverProperties = new LinkedHashMap<>(getDefaultDriverProperties(type, config));
+		driverProperties.putAll(config.getDriverProperties());
+		driverProperties.forEach(hikariConfig::addDataSourceProperty);
+		return hikariConfig;
+	}
+
+	/**
+	 * A read-only pool to one replica, otherwise configured like the primary pool.
+	 */
+	private HikariDataSource getReplicaDataSource(DatabaseConfig config, ReplicaConfig replica, int number) {
+		HikariConfig hikariConfig = createHikariConfig(config);
+		hikariConfig.setPoolName(plugin.getName() + "-Hikari-replica-" + number);
+		hikariConfig.setJdbcUrl("jdbc:" + config.getType().toLowerCase() + "://" + replica.getHost() + ":" + replica.getPort() + "/" + config.getName());
+		hikariConfig.setUsername(Objects.requireNonNullElse(replica.getUser(), config.getUser()));
+		hikariConfig.setPassword(Objects.requireNonNullElse(replica.getPassword(), config.getPassword()));
+		hikariConfig.setReadOnly(true);
+		// A replica that is down at startup must not stop the plugin; the health check keeps it out of rotation.
+		hikariConfig.setInitializationFailTimeout(-1);
+		applyMetricsTracker(hikariConfig);
 		return new HikariDataSource(hikariConfig);
 	}
 
+	private boolean supportsReplicas(DatabaseConfig config) {
+		String type = config.getType().toLowerCase();
+		if (type.equals("mysql") || type.equals("postgresql")) {
+			return true;
+		}
+		plugin.getLogger().warning("Read replicas are only supported for MySQL and PostgreSQL, ignoring them for " + type);
+		return false;
+	}
+
+	private boolean usesSqliteSingleWriter(DatabaseConfig config) {
+		return config.getType().equalsIgnoreCase("sqlite") && config.getSqlite().isSingleWriter();
+	}
+
+	/**
+	 * Read-only connections to the same SQLite file. Under WAL they never block, and are never blocked by, the writer.
+	 */
+	private HikariDataSource getSqliteReadDataSource(DatabaseConfig config) {
+		HikariConfig hikariConfig = new HikariConfig();
+		hikariConfig.setPoolName(plugin.getName() + "-Hikari-reader");
+		hikariConfig.setJdbcUrl("jdbc:sqlite:" + config.getFilePath());
+		applyPoolConfig(hikariConfig, "sqlite", config.getPool());
+		applyMetricsTracker(hikariConfig);
+
+		Map<String, String> driverProperties = new LinkedHashMap<>(getDefaultDriverProperties("sqlite", config));
+		// journal_mode is a write; the writer connection already switched the file to WAL.
+		driverProperties.remove("journal_mode");
+		driverProperties.put("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+		driverProperties.putAll(config.getDriverProperties());
+		driverProperties.forEach(hikariConfig::addDataSourceProperty);
+		return new HikariDataSource(hikariConfig);
+	}
+
+	private void applyPoolConfig(HikariConfig hikariConfig, String type, PoolConfig pool) {
+		// SQLite serializes writers on a single file, so a large pool only adds lock contention.
+		int defaultPoolSize = type.equals("sqlite") ? 4 : 10;
+		int maximumPoolSize = Objects.requireNonNullElse(pool.getMaximumPoolSize(), defaultPoolSize);
+		hikariConfig.setMaximumPoolSize(maximumPoolSize);
+		// A fixed-size pool avoids connection churn under bursty load.
+		hikariConfig.setMinimumIdle(Objects.requireNonNullElse(pool.getMinimumIdle(), maximumPoolSize));
+		hikariConfig.setConnectionTimeout(Objects.requireNonNullElse(pool.getConnectionTimeoutMillis(), 5_000L));
+		hikariConfig.setIdleTimeout(Objects.requireNonNullElse(pool.getIdleTimeoutMillis(), 600_000L));
+		// Stays below MySQL's default wait_timeout so the server never closes a pooled connection first.
+		hikariConfig.setMaxLifetime(Objects.requireNonNullElse(pool.getMaxLifetimeMillis(), 1_800_000L));
+		hikariConfig.setLeakDetectionThreshold(Objects.requireNonNullElse(pool.getLeakDetectionThresholdMillis(), 0L));
+	}
+
+	private void applyMetricsTracker(HikariConfig hikariConfig) {
+		if (!metrics.isEnabled()) {
+			return;
+		}
+		hikariConfig.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+			@Override
+			public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+				metrics.recordConnectionAcquired(elapsedAcquiredNanos);
+			}
+		});
+	}
+
+	private Map<String, String> getDefaultDriverProperties(String type, DatabaseConfig config) {
+		return switch (type) {
+			case "sqlite" -> getSqlitePragmas(config.getSqlite());
+			case "mysql" -> Map.ofEntries(
+				Map.entry("autoReconnect", "true"),
+				Map.entry("useSSL", "false"),
+				Map.entry("cachePrepStmts", "true"),
+				Map.entry("prepStmtCacheSize", "250"),
+				Map.entry("prepStmtCacheSqlLimit", "2048"),
+				Map.entry("useServerPrepStmts", "true"),
+				// Lets JDBC batches become multi-row INSERT statements.
+				Map.entry("rewriteBatchedStatements", "true"),
+				Map.entry("useLocalSessionState", "true"),
+				Map.entry("cacheResultSetMetadata", "true"),
+				Map.entry("cacheServerConfiguration", "true"),
+				Map.entry("elideSetAutoCommits", "true"),
+				Map.entry("maintainTimeStats", "false"),
+				// Makes setFetchSize stream rows through a server-side cursor instead of buffering the whole result.
+				Map.entry("useCursorFetch", "true")
+			);
+			case "postgresql" -> Map.of(
+				"reWriteBatchedInserts", "true",
+				"prepareThreshold", "3",
+				"preparedStatementCacheQueries", "256"
+			);
+			default -> Map.of();
+		};
+	}
+
+	private Map<String, String> getSqlitePragmas(SqliteConfig sqlite) {
+		Map<String, String> pragmas = new LinkedHashMap<>();
+		if (sqlite.isWalMode()) {
+			pragmas.put("journal_mode", "WAL");
+		}
+		pragmas.put("synchronous", sqlite.getSynchronous());
+		pragmas.put("temp_store", sqlite.getTempStore());
+		pragmas.put("mmap_size", String.valueOf(sqlite.getMmapSize()));
+		pragmas.put("cache_size", String.valueOf(sqlite.getCacheSize()));
+		pragmas.put("busy_timeout", String.valueOf(sqlite.getBusyTimeoutMillis()));
+		return pragmas;
+	}
+
 	private String getDialect(String dbType) {
 		return switch (dbType.toLowerCase()) {
 			case "mysql" -> "org.hibernate.dialect.MySQL8Dialect";
 			case "postgresql" -> "org.hibernate.dialect.PostgreSQLDialect";
 			case "sqlite" -> "org.hibernate.community.dialect.SQLiteDialect";
+			case "h2" -> "org.hibernate.dialect.H2Dialect";
 			default -> throw new IllegalArgumentException("Unsupported database type: " + dbType);
 		};
 	}
 
-	private PersistenceUnitInfo createPersistenceUnitInfo(String persistenceUnitName, Set<Class<?>> entityClasses, DataSource dataSource) {
+	private PersistenceUnitInfo createPersistenceUnitInfo(String persistenceUnitName, ManagedClasses managedClasses, DataSource dataSource, SharedCacheMode sharedCacheMode) {
 		return new PersistenceUnitInfo() {
 			@Override
 			public String getPersistenceUnitName() { return persistenceUnitName; }
@@ -138,18 +623,20 @@ public class DatabaseManager {
 
 			@Override
 			public List<String> getManagedClassNames() {
-				List<String> classNames = new ArrayList<>();
+				Set<String> classNames = new LinkedHashSet<>();
 				// Manually add our custom converter so Hibernate finds it
 				classNames.add(LocationConverter.class.getName());
-				entityClasses.forEach(c -> classNames.add(c.getName()));
-				return classNames;
+				classNames.add(StoredLocation.class.getName());
+				managedClasses.converters().forEach(c -> classNames.add(c.getName()));
+				managedClasses.entities().forEach(c -> classNames.add(c.getName()));
+				return new ArrayList<>(classNames);
 			}
 
 			@Override
 			public boolean excludeUnlistedClasses() { return false; }
 
 			@Override
-			public SharedCacheMode getSharedCacheMode() { return SharedCacheMode.UNSPECIFIED; }
+			public SharedCacheMode getSharedCacheMode() { return sharedCacheMode; }
 
 			@Override
 			public ValidationMode getValidationMode() { return ValidationMode.AUTO; }
@@ -181,4 +668,7 @@ public class DatabaseManager {
 
 		};
 	}
+
+	private record ManagedClasses(Set<Class<?>> entities, Set<Class<?>> converters, Set<Class<?>> repositories, String source) {
+	}
 }
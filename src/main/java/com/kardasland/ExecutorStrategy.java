@@ -0,0 +1,19 @@
+package com.kardasland;
+
+/**
+ * Where repository futures run.
+ */
+public enum ExecutorStrategy {
+	/**
+	 * One virtual thread per repository call. Concurrency is bounded by the connection pool, not by threads.
+	 */
+	VIRTUAL_THREADS,
+	/**
+	 * A fixed pool of platform threads sized to the connection pool.
+	 */
+	BOUNDED_POOL,
+	/**
+	 * The shared Bukkit async scheduler, as used before executors were configurable.
+	 */
+	BUKKIT_SCHEDULER
+}
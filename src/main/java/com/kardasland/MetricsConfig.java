@@ -0,0 +1,25 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Repository call metrics, pool and Hibernate statistics, and the slow-query log.
+ * Off unless {@link #enabled} is set, since recording adds a few clock reads and map updates to every repository call.
+ */
+@Data
+@Builder
+public class MetricsConfig {
+	private final boolean enabled;
+	/**
+	 * Calls whose execution takes at least this long are logged as a warning. {@code null} disables the log.
+	 */
+	@Builder.Default
+	private final Duration slowQueryThreshold = Duration.ofMillis(100);
+	/**
+	 * Registers {@code /jpa stats}, guarded by the {@code spigotjpa.stats} permission.
+	 */
+	private final boolean statsCommand;
+}
@@ -0,0 +1,34 @@
+package com.kardasland;
+
+import com.kardasland.migration.JavaMigration;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Versioned migrations, used when {@link DatabaseConfig#getSchemaMode()} is {@link SchemaMode#MIGRATE} or {@link SchemaMode#VALIDATE}.
+ * SQL migrations are files named {@code V<version>__<description>.sql}, e.g. {@code V1_2__add_claims.sql},
+ * in {@link #location} of the plugin jar.
+ */
+@Data
+@Builder
+public class MigrationConfig {
+	@Builder.Default
+	private final String location = "db/migration";
+	/**
+	 * May be shared by every plugin on the database; each plugin's rows are kept apart by its name.
+	 */
+	@Builder.Default
+	private final String historyTable = "spigot_jpa_schema_history";
+	/**
+	 * Migrations written in Java, applied in version order together with the SQL ones.
+	 */
+	@Builder.Default
+	private final List<JavaMigration> javaMigrations = List.of();
+	/**
+	 * Creates the indexes declared with {@link com.kardasland.annotation.Indexed} on repository methods.
+	 */
+	@Builder.Default
+	private final boolean derivedIndexes = true;
+}
@@ -0,0 +1,28 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * HikariCP pool tuning. Every setting left {@code null} falls back to a default chosen for the database type.
+ */
+@Data
+@Builder
+public class PoolConfig {
+	private final Integer maximumPoolSize;
+	private final Integer minimumIdle;
+	private final Long connectionTimeoutMillis;
+	private final Long idleTimeoutMillis;
+	private final Long maxLifetimeMillis;
+	/**
+	 * Logs a warning with a stack trace when a connection is held longer than this. {@code 0} disables it.
+	 */
+	private final Long leakDetectionThresholdMillis;
+	/**
+	 * Shares one pool with every other plugin using the same MySQL or PostgreSQL URL and user, see
+	 * {@link com.kardasland.datasource.SharedPoolRegistry}. The first plugin's settings size the pool.
+	 * Connection acquire latency is not recorded for shared pools.
+	 */
+	@Builder.Default
+	private final boolean shared = false;
+}
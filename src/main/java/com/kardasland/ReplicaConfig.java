@@ -0,0 +1,17 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A read replica of the primary MySQL or PostgreSQL database, using the primary's database name.
+ * {@code user} and {@code password} fall back to the primary's when left {@code null}.
+ */
+@Data
+@Builder
+public class ReplicaConfig {
+	private final String host;
+	private final String port;
+	private final String user;
+	private final String password;
+}
@@ -0,0 +1,25 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Read replicas for MySQL and PostgreSQL. Each replica gets its own pool sized by {@link PoolConfig}, and
+ * read-only repository calls are spread over the healthy ones. Writes and transactions always use the primary,
+ * as do reads while no replica is healthy. On MySQL the lag check needs the {@code REPLICATION CLIENT} privilege.
+ */
+@Data
+@Builder
+public class ReplicationConfig {
+	@Builder.Default
+	private final List<ReplicaConfig> replicas = List.of();
+	/**
+	 * Replication lag above which a replica stops serving reads until it catches up.
+	 */
+	@Builder.Default
+	private final long maxLagMillis = 5_000;
+	@Builder.Default
+	private final long healthCheckIntervalMillis = 5_000;
+}
@@ -0,0 +1,34 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tick-aware scheduling of repository work. When enabled, calls are queued by
+ * {@link com.kardasland.concurrent.RepositoryPriority} and background work is throttled while the server lags.
+ */
+@Data
+@Builder
+public class SchedulerConfig {
+	private final boolean enabled;
+	/**
+	 * Average tick time, in milliseconds, above which the server counts as lagging.
+	 */
+	@Builder.Default
+	private final double maxTickMillis = 45.0;
+	/**
+	 * One-minute TPS below which the server counts as lagging.
+	 */
+	@Builder.Default
+	private final double minTps = 19.0;
+	/**
+	 * Background tasks running at once while the server is healthy, leaving the rest of the pool to interactive work.
+	 */
+	@Builder.Default
+	private final int backgroundConcurrency = 2;
+	/**
+	 * Background tasks started per tick while the server is lagging.
+	 */
+	@Builder.Default
+	private final int laggingBackgroundPerTick = 1;
+}
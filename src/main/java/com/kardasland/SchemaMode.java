@@ -0,0 +1,24 @@
+package com.kardasland;
+
+/**
+ * How the database schema is brought in line with the entities on startup.
+ */
+public enum SchemaMode {
+	/**
+	 * Hibernate's {@code hbm2ddl.auto=update}: reads the database metadata and adds missing tables and columns on every start.
+	 */
+	UPDATE,
+	/**
+	 * Applies pending versioned migrations from the plugin jar and creates {@link com.kardasland.annotation.Indexed} indexes.
+	 * Only the migration history table is read on a normal start.
+	 */
+	MIGRATE,
+	/**
+	 * Fails startup if migrations are pending or modified, or if the tables do not match the entities.
+	 */
+	VALIDATE,
+	/**
+	 * Leaves the schema alone.
+	 */
+	NONE
+}
@@ -1,15 +1,29 @@
 package com.kardasland;
 
 import com.kardasland.annotation.InjectRepository;
+import com.kardasland.cache.CacheStatistics;
+import com.kardasland.command.JpaStatsCommand;
+import com.kardasland.metrics.MetricsSnapshot;
 import com.kardasland.repository.RepositoryFactory;
+import com.kardasland.repository.Transaction;
+import com.kardasland.session.PlayerSessionCache;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 public class SpigotJPA {
 
+	private static final Map<String, Instance> INSTANCES = new ConcurrentHashMap<>();
+
 	/**
 	 * Initializes SpigotJPA with a default SQLite database.
 	 * The database file will be created at /plugins/<pluginname>/database.db
@@ -30,29 +44,192 @@ public class SpigotJPA {
 	 * @param dbConfig The database configuration object.
 	 */
 	public static void initialize(JavaPlugin plugin, DatabaseConfig dbConfig) {
-		if (!plugin.getDataFolder().exists()) {
-			if (!plugin.getDataFolder().mkdirs()) {
-				plugin.getLogger().log(Level.SEVERE, "Failed to create data folder: " + plugin.getDataFolder().getAbsolutePath());
-				throw new RuntimeException("Could not create data folder for plugin: " + plugin.getName());
-			}
-		}
+		createDataFolder(plugin);
 
 		DatabaseManager dbManager = new DatabaseManager(plugin);
 		dbManager.initializeDataSource(dbConfig);
 
-		RepositoryFactory repoFactory = new RepositoryFactory(dbManager.getEntityManagerFactory(), plugin);
+		RepositoryFactory repoFactory = new RepositoryFactory(dbManager);
+
+		injectRepositories(plugin, repoFactory::createRepository);
 
-		injectRepositories(plugin, repoFactory);
+		INSTANCES.put(plugin.getName(), new Instance(dbManager, CompletableFuture.completedFuture(repoFactory), registerStatsCommand(plugin, dbConfig, dbManager)));
 
 		plugin.getLogger().info("SpigotJPA has been initialized successfully.");
 	}
 
-	private static void injectRepositories(Object target, RepositoryFactory factory) {
+	/**
+	 * Initializes SpigotJPA on a background thread, so entity discovery, connection setup and the schema update
+	 * do not block {@code onEnable}. {@link InjectRepository} fields are filled right away; calls made on them before
+	 * the database is ready are queued and started once it is.
+	 * @param plugin Your plugin instance.
+	 * @param dbConfig The database configuration object.
+	 * @return Completes once the database and every injected repository are ready, or exceptionally if either failed.
+	 */
+	public static CompletableFuture<Void> initializeAsync(JavaPlugin plugin, DatabaseConfig dbConfig) {
+		createDataFolder(plugin);
+
+		DatabaseManager dbManager = new DatabaseManager(plugin);
+		CompletableFuture<RepositoryFactory> repoFactory = new CompletableFuture<>();
+		Map<Class<?>, CompletableFuture<Object>> repositories = new LinkedHashMap<>();
+		injectRepositories(plugin, type -> RepositoryFactory.createDeferred(type, repositories.computeIfAbsent(type, ignored -> new CompletableFuture<>())));
+		INSTANCES.put(plugin.getName(), new Instance(dbManager, repoFactory, registerStatsCommand(plugin, dbConfig, dbManager)));
+
+		Thread thread = Thread.ofPlatform().name(plugin.getName() + "-jpa-init").unstarted(() -> {
+			RepositoryFactory factory = null;
+			try {
+				dbManager.initializeDataSource(dbConfig);
+				factory = new RepositoryFactory(dbManager);
+				// Created before the database is reported ready, so a repository that cannot be created fails initialization.
+				Map<Class<?>, Object> created = new LinkedHashMap<>();
+				for (Class<?> type : repositories.keySet()) {
+					created.put(type, factory.createRepository(type));
+				}
+				created.forEach((type, repository) -> repositories.get(type).complete(repository));
+				repoFactory.complete(factory);
+				plugin.getLogger().info("SpigotJPA has been initialized successfully.");
+			} catch (Throwable e) {
+				plugin.getLogger().log(Level.SEVERE, "SpigotJPA failed to initialize", e);
+				if (factory != null) {
+					factory.close();
+				}
+				dbManager.shutdown();
+				repositories.values().forEach(repository -> repository.completeExceptionally(e));
+				repoFactory.completeExceptionally(e);
+			}
+		});
+		// Hibernate and the JDBC drivers load classes through the context class loader.
+		thread.setContextClassLoader(plugin.getClass().getClassLoader());
+		thread.start();
+		return repoFactory.thenApply(factory -> null);
+	}
+
+	/**
+	 * Completes once the given plugin's database is ready to serve repository calls.
+	 * @param plugin Your plugin instance.
+	 */
+	public static CompletableFuture<Void> whenReady(JavaPlugin plugin) {
+		Instance instance = INSTANCES.get(plugin.getName());
+		if (instance == null) {
+			return CompletableFuture.failedFuture(new IllegalStateException("SpigotJPA is not initialized for plugin: " + plugin.getName()));
+		}
+		return instance.repositoryFactory().thenApply(factory -> null);
+	}
+
+	/**
+	 * Flushes pending repository writes and closes the database for the given plugin.
+	 * Call this from your plugin's {@code onDisable}. Waits for an asynchronous initialization that is still running.
+	 * @param plugin Your plugin instance.
+	 */
+	public static void shutdown(JavaPlugin plugin) {
+		Instance instance = INSTANCES.remove(plugin.getName());
+		if (instance == null) {
+			return;
+		}
+		if (instance.statsCommand() != null) {
+			instance.statsCommand().unregister();
+		}
+		RepositoryFactory factory;
+		try {
+			factory = instance.repositoryFactory().join();
+		} catch (CompletionException | CancellationException e) {
+			// Initialization failed and has already closed what it opened.
+			return;
+		}
+		factory.close();
+		instance.databaseManager().shutdown();
+	}
+
+	/**
+	 * Runs {@code work} as one database transaction. Repository calls made inside it share one connection,
+	 * complete immediately and are committed together, or not at all if {@code work} throws.
+	 * Deadlocks and {@code SQLITE_BUSY} are retried up to {@link RepositoryFactory#DEFAULT_TRANSACTION_RETRIES} times.
+	 * <pre>{@code
+	 * SpigotJPA.transaction(plugin, tx -> {
+	 *     PlayerWallet buyer = wallets.findById(buyerId).join();
+	 *     PlayerWallet seller = wallets.findById(sellerId).join();
+	 *     buyer.setBalance(buyer.getBalance() - price);
+	 *     seller.setBalance(seller.getBalance() + price);
+	 *     ledger.save(new LedgerEntry(buyerId, sellerId, price));
+	 *     return null;
+	 * });
+	 * }</pre>
+	 * @param plugin Your plugin instance.
+	 * @param work The unit of work; it may run more than once.
+	 * @return Completes with the work's result after the commit.
+	 */
+	public static <R> CompletableFuture<R> transaction(JavaPlugin plugin, Function<Transaction, R> work) {
+		return transaction(plugin, RepositoryFactory.DEFAULT_TRANSACTION_RETRIES, work);
+	}
+
+	/**
+	 * Runs {@code work} as one database transaction, retrying it at most {@code maxRetries} times.
+	 * @see #transaction(JavaPlugin, Function)
+	 */
+	public static <R> CompletableFuture<R> transaction(JavaPlugin plugin, int maxRetries, Function<Transaction, R> work) {
+		Instance instance = INSTANCES.get(plugin.getName());
+		if (instance == null) {
+			return CompletableFuture.failedFuture(new IllegalStateException("SpigotJPA is not initialized for plugin: " + plugin.getName()));
+		}
+		return instance.repositoryFactory().thenCompose(factory -> factory.transaction(maxRetries, work));
+	}
+
+	/**
+	 * Second-level and query cache hit and miss counts for the given plugin's database.
+	 * @param plugin Your plugin instance.
+	 */
+	public static CacheStatistics getCacheStatistics(JavaPlugin plugin) {
+		return requireInstance(plugin).databaseManager().getCacheStatistics();
+	}
+
+	/**
+	 * Repository latencies, connection pool usage and Hibernate statistics for the given plugin's database.
+	 * @param plugin Your plugin instance.
+	 */
+	public static MetricsSnapshot getMetrics(JavaPlugin plugin) {
+		return requireInstance(plugin).databaseManager().getMetricsSnapshot();
+	}
+
+	/**
+	 * The player session cache holding {@link com.kardasland.annotation.SessionScoped} entities of online players.
+	 * @param plugin Your plugin instance.
+	 */
+	public static PlayerSessionCache getSessionCache(JavaPlugin plugin) {
+		return requireInstance(plugin).readyFactory().getSessionCache();
+	}
+
+	private static Instance requireInstance(JavaPlugin plugin) {
+		Instance instance = INSTANCES.get(plugin.getName());
+		if (instance == null) {
+			throw new IllegalStateException("SpigotJPA is not initialized for plugin: " + plugin.getName());
+		}
+		return instance;
+	}
+
+	private static void createDataFolder(JavaPlugin plugin) {
+		if (!plugin.getDataFolder().exists()) {
+			if (!plugin.getDataFolder().mkdirs()) {
+				plugin.getLogger().log(Level.SEVERE, "Failed to create data folder: " + plugin.getDataFolder().getAbsolutePath());
+				throw new RuntimeException("Could not create data folder for plugin: " + plugin.getName());
+			}
+		}
+	}
+
+	private static JpaStatsCommand registerStatsCommand(JavaPlugin plugin, DatabaseConfig dbConfig, DatabaseManager dbManager) {
+		if (!dbConfig.getMetrics().isEnabled() || !dbConfig.getMetrics().isStatsCommand()) {
+			return null;
+		}
+		JpaStatsCommand statsCommand = new JpaStatsCommand(plugin, dbManager::getMetricsSnapshot);
+		statsCommand.register();
+		return statsCommand;
+	}
+
+	private static void injectRepositories(Object target, Function<Class<?>, Object> factory) {
 		for (Field field : target.getClass().getDeclaredFields()) {
 			if (field.isAnnotationPresent(InjectRepository.class)) {
 				try {
 					field.setAccessible(true);
-					Object repoInstance = factory.createRepository(field.getType());
+					Object repoInstance = factory.apply(field.getType());
 					field.set(target, repoInstance);
 				} catch (Exception e) {
 					JavaPlugin.getProvidingPlugin(target.getClass()).getLogger()
@@ -61,4 +238,15 @@ public class SpigotJPA {
 			}
 		}
 	}
+
+	private record Instance(DatabaseManager databaseManager, CompletableFuture<RepositoryFactory> repositoryFactory, JpaStatsCommand statsCommand) {
+
+		RepositoryFactory readyFactory() {
+			RepositoryFactory factory = repositoryFactory.getNow(null);
+			if (factory == null) {
+				throw new IllegalStateException("SpigotJPA is still initializing");
+			}
+			return factory;
+		}
+	}
 }
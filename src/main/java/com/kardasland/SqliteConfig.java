@@ -0,0 +1,34 @@
+package com.kardasland;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * SQLite performance profile. The defaults enable WAL journaling with relaxed syncing,
+ * route every write through one dedicated connection and thread, and serve reads from
+ * a separate pool of read-only connections sized by {@link PoolConfig}.
+ */
+@Data
+@Builder
+public class SqliteConfig {
+	@Builder.Default
+	private final boolean walMode = true;
+	@Builder.Default
+	private final String synchronous = "NORMAL";
+	@Builder.Default
+	private final String tempStore = "MEMORY";
+	@Builder.Default
+	private final long mmapSize = 256L * 1024 * 1024;
+	/**
+	 * Page cache size. Negative values are in KiB, as in {@code PRAGMA cache_size}.
+	 */
+	@Builder.Default
+	private final int cacheSize = -64_000;
+	@Builder.Default
+	private final int busyTimeoutMillis = 5_000;
+	/**
+	 * Serializes writes on a single connection and thread, so concurrent saves never hit {@code SQLITE_BUSY}.
+	 */
+	@Builder.Default
+	private final boolean singleWriter = true;
+}
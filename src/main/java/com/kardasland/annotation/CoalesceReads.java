@@ -0,0 +1,22 @@
+package com.kardasland.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Shares in-flight reads of a repository: a {@code findById} or derived query called with the same arguments
+ * while an identical call is still running joins that call instead of running the query again.
+ * Callers therefore receive the same entity instances. Any write through the repository stops calls made after
+ * it starts, and again after it completes, from joining reads that started before.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CoalesceReads {
+	/**
+	 * Collects the distinct ids passed to {@code findById} for this long and loads them with one {@code IN} query.
+	 * {@code 0} disables batching; one server tick is 50 ms.
+	 */
+	long batchWindowMillis() default 0;
+}
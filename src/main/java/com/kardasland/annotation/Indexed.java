@@ -0,0 +1,21 @@
+package com.kardasland.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Creates a database index serving a derived query method when the schema mode is
+ * {@link com.kardasland.SchemaMode#MIGRATE}. Columns are ordered equality conditions first, then sort keys,
+ * then range conditions, so {@code findByOwnerAndLevelGreaterThanOrderByName} gets {@code (owner, name, level)}.
+ * A method with {@code Or} gets one index per branch.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Indexed {
+	/**
+	 * Index name; derived from the table and columns when empty.
+	 */
+	String name() default "";
+}
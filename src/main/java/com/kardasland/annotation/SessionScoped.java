@@ -0,0 +1,16 @@
+package com.kardasland.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity whose {@link java.util.UUID} id is a player's unique id.
+ * Such entities are preloaded into the {@link com.kardasland.session.PlayerSessionCache} during pre-login,
+ * served from memory while the player is online, and flushed when they quit.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SessionScoped {
+}
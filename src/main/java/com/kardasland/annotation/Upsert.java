@@ -0,0 +1,19 @@
+package com.kardasland.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes {@code save} and {@code saveAll} write each entity with a single upsert statement instead of
+ * {@code merge}, which first selects the row by id. The dialect picks the statement, such as
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL or {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL,
+ * and all mapped columns are written. Entities without an id are inserted.
+ * Writes skip the persistence context, so cascades and lifecycle callbacks do not run; use it for flat entities.
+ * Combined with {@link WriteBehind}, each flushed batch is upserted the same way.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Upsert {
+}
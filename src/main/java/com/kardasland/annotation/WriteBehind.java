@@ -0,0 +1,24 @@
+package com.kardasland.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a repository into write-behind mode. {@code save} and {@code delete} calls are queued,
+ * coalesced per entity id (last write wins) and committed together in a single batched transaction
+ * once {@link #maxBatchSize()} writes are pending or {@link #flushIntervalMillis()} has elapsed.
+ * The futures returned to callers complete when their batch commits.
+ * <p>
+ * Reads are not served from the queue: {@code findById}, derived queries and paging go to the database,
+ * so they do not see a queued write until its batch has committed. Wait on the write's future before
+ * reading back what it wrote. Writes made after the repository factory is closed fail with a
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface WriteBehind {
+	int maxBatchSize() default 100;
+	long flushIntervalMillis() default 1000;
+}
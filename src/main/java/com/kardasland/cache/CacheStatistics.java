@@ -0,0 +1,39 @@
+package com.kardasland.cache;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of second-level and query cache activity.
+ */
+public record CacheStatistics(long hits, long misses, long puts, long queryHits, long queryMisses, Map<String, RegionStatistics> regions) {
+
+	public double hitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	public record RegionStatistics(long hits, long misses, long puts, long size) {
+	}
+
+	public static CacheStatistics from(Statistics statistics) {
+		Map<String, RegionStatistics> regions = new LinkedHashMap<>();
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+			if (region != null) {
+				regions.put(regionName, new RegionStatistics(region.getHitCount(), region.getMissCount(), region.getPutCount(), region.getElementCountInMemory()));
+			}
+		}
+		return new CacheStatistics(
+			statistics.getSecondLevelCacheHitCount(),
+			statistics.getSecondLevelCacheMissCount(),
+			statistics.getSecondLevelCachePutCount(),
+			statistics.getQueryCacheHitCount(),
+			statistics.getQueryCacheMissCount(),
+			regions
+		);
+	}
+}
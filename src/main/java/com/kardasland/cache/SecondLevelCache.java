@@ -0,0 +1,82 @@
+package com.kardasland.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.kardasland.CacheConfig;
+import jakarta.persistence.SharedCacheMode;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Wires Hibernate's JCache region factory to a Caffeine cache manager whose regions are created up front,
+ * so every entity region gets its TTL and size bound instead of an unbounded default.
+ */
+public final class SecondLevelCache {
+
+	private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+	private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+	private SecondLevelCache() {
+	}
+
+	public static SharedCacheMode sharedCacheMode(CacheConfig config) {
+		if (!config.isEnabled()) {
+			return SharedCacheMode.UNSPECIFIED;
+		}
+		return config.isCacheAllEntities() ? SharedCacheMode.ALL : SharedCacheMode.ENABLE_SELECTIVE;
+	}
+
+	/**
+	 * Adds the Hibernate cache settings to {@code properties} and creates the backing cache manager.
+	 * @return The cache manager, which the caller closes after the EntityManagerFactory.
+	 */
+	public static CacheManager configure(String name, CacheConfig config, Set<Class<?>> entityClasses, Properties properties, ClassLoader classLoader) {
+		CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName(), classLoader)
+			.getCacheManager(URI.create("spigot-jpa:" + name), classLoader);
+
+		for (Class<?> entityClass : entityClasses) {
+			CacheConfig.Region region = config.getEntities().get(entityClass);
+			Duration ttl = region != null ? region.ttl() : config.getDefaultTtl();
+			long maxSize = region != null ? region.maxSize() : config.getDefaultMaxSize();
+			createRegion(cacheManager, entityClass.getName(), ttl, maxSize);
+		}
+		for (Class<?> entityClass : config.getEntities().keySet()) {
+			// Listed entities are cached even without @Cacheable.
+			properties.put("hibernate.classcache." + entityClass.getName(), "read-write");
+		}
+		if (config.isQueryCache()) {
+			createRegion(cacheManager, QUERY_RESULTS_REGION, config.getDefaultTtl(), config.getDefaultMaxSize());
+			// Timestamps decide whether cached query results are stale, so they must never be evicted.
+			createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, null, 0);
+		}
+
+		properties.put("hibernate.cache.use_second_level_cache", "true");
+		properties.put("hibernate.cache.use_query_cache", String.valueOf(config.isQueryCache()));
+		properties.put("hibernate.cache.region.factory_class", "jcache");
+		properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+		properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+		properties.put("hibernate.generate_statistics", "true");
+		return cacheManager;
+	}
+
+	private static void createRegion(CacheManager cacheManager, String regionName, Duration ttl, long maxSize) {
+		if (cacheManager.getCache(regionName) != null) {
+			return;
+		}
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		if (ttl != null) {
+			configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+		}
+		if (maxSize > 0) {
+			configuration.setMaximumSize(OptionalLong.of(maxSize));
+		}
+		configuration.setStatisticsEnabled(true);
+		cacheManager.createCache(regionName, configuration);
+	}
+}
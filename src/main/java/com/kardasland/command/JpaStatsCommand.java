@@ -0,0 +1,99 @@
+package com.kardasland.command;
+
+import com.kardasland.metrics.LatencySnapshot;
+import com.kardasland.metrics.MethodStatistics;
+import com.kardasland.metrics.MetricsSnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandMap;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * {@code /jpa stats}: repository latencies, pool usage and Hibernate counters for one plugin's database.
+ * Registered straight into the server's command map, so plugins do not need to declare it in plugin.yml.
+ */
+public class JpaStatsCommand extends Command {
+
+	public static final String PERMISSION = "spigotjpa.stats";
+	private static final int MAX_METHODS = 10;
+
+	private final JavaPlugin plugin;
+	private final Supplier<MetricsSnapshot> metrics;
+
+	public JpaStatsCommand(JavaPlugin plugin, Supplier<MetricsSnapshot> metrics) {
+		super("jpa", "Shows SpigotJPA database statistics", "/jpa stats", List.of());
+		this.plugin = plugin;
+		this.metrics = metrics;
+		setPermission(PERMISSION);
+	}
+
+	/**
+	 * Registers the command under the plugin's name as fallback prefix, so several plugins can each expose their own.
+	 */
+	public void register() {
+		Bukkit.getCommandMap().register(plugin.getName().toLowerCase(Locale.ROOT), this);
+	}
+
+	public void unregister() {
+		CommandMap commandMap = Bukkit.getCommandMap();
+		unregister(commandMap);
+		commandMap.getKnownCommands().values().removeIf(command -> command == this);
+	}
+
+	@Override
+	public boolean execute(CommandSender sender, String label, String[] args) {
+		if (!testPermission(sender)) {
+			return true;
+		}
+		if (args.length != 1 || !args[0].equalsIgnoreCase("stats")) {
+			sender.sendMessage(ChatColor.RED + "Usage: " + getUsage());
+			return true;
+		}
+
+		MetricsSnapshot snapshot;
+		try {
+			snapshot = metrics.get();
+		} catch (IllegalStateException e) {
+			sender.sendMessage(ChatColor.RED + e.getMessage() + ".");
+			return true;
+		}
+		sender.sendMessage(ChatColor.GOLD + "SpigotJPA statistics for " + plugin.getName());
+		sender.sendMessage(String.format("%sPool: %d active, %d idle, %d waiting, acquire p99 %s",
+			ChatColor.YELLOW, snapshot.pool().active(), snapshot.pool().idle(), snapshot.pool().waiting(), format(snapshot.pool().acquire().p99())));
+		sender.sendMessage(String.format("%sHibernate: %d transactions, %d statements, %d queries (max %d ms)",
+			ChatColor.YELLOW, snapshot.hibernate().transactions(), snapshot.hibernate().statements(), snapshot.hibernate().queries(), snapshot.hibernate().queryMaxTimeMillis()));
+		sender.sendMessage(String.format("%sCache: %.1f%% hit ratio, %d hits, %d misses",
+			ChatColor.YELLOW, snapshot.cache().hitRatio() * 100, snapshot.cache().hits(), snapshot.cache().misses()));
+
+		List<MethodStatistics> methods = snapshot.methods();
+		if (methods.isEmpty()) {
+			sender.sendMessage(ChatColor.GRAY + "No repository calls recorded yet.");
+			return true;
+		}
+		for (MethodStatistics method : methods.subList(0, Math.min(MAX_METHODS, methods.size()))) {
+			LatencySnapshot execution = method.execution();
+			sender.sendMessage(String.format("%s%s %s%dx, p50 %s, p99 %s, max %s, queued avg %s%s",
+				ChatColor.AQUA, method.method(), ChatColor.WHITE, method.calls(),
+				format(execution.p50()), format(execution.p99()), format(execution.max()), format(method.queued().mean()),
+				method.failures() > 0 ? ChatColor.RED + ", " + method.failures() + " failed" : ""));
+		}
+		return true;
+	}
+
+	@Override
+	public List<String> tabComplete(CommandSender sender, String alias, String[] args) {
+		return args.length == 1 && "stats".startsWith(args[0].toLowerCase(Locale.ROOT)) ? List.of("stats") : List.of();
+	}
+
+	private static String format(Duration duration) {
+		long micros = duration.toNanos() / 1_000;
+		return micros < 1_000 ? micros + "µs" : String.format("%.1fms", micros / 1_000.0);
+	}
+}
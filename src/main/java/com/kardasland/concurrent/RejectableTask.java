@@ -0,0 +1,12 @@
+package com.kardasland.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A task that is told when it will never run, so whoever waits on its result is not left waiting.
+ * {@link TickAwareScheduler} rejects queued tasks this way when their executor refuses them.
+ */
+public interface RejectableTask extends Runnable {
+
+	void reject(RejectedExecutionException cause);
+}
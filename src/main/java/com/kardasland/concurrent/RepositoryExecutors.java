@@ -0,0 +1,85 @@
+package com.kardasland.concurrent;
+
+import com.kardasland.ExecutorStrategy;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+public final class RepositoryExecutors {
+
+	private RepositoryExecutors() {
+	}
+
+	/**
+	 * Creates the executor repository calls run on.
+	 * Executors that own threads are returned as {@link java.util.concurrent.ExecutorService} and must be shut down by the caller.
+	 * @param strategy The configured strategy.
+	 * @param plugin The owning plugin, used for thread names and the Bukkit scheduler.
+	 * @param poolSize The connection pool size, used to bound {@link ExecutorStrategy#BOUNDED_POOL}.
+	 */
+	public static Executor create(ExecutorStrategy strategy, JavaPlugin plugin, int poolSize) {
+		String threadPrefix = plugin.getName() + "-jpa-";
+		return switch (strategy) {
+			case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+			case BOUNDED_POOL -> Executors.newFixedThreadPool(Math.max(1, poolSize), Thread.ofPlatform().name(threadPrefix, 0).daemon(true).factory());
+			case BUKKIT_SCHEDULER -> bukkitAsync(plugin);
+		};
+	}
+
+	/**
+	 * Runs tasks on the Bukkit async scheduler.
+	 */
+	public static Executor bukkitAsync(JavaPlugin plugin) {
+		return runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable);
+	}
+
+	/**
+	 * Like {@link CompletableFuture#supplyAsync(Supplier, Executor)}, but the future fails instead of the call when
+	 * {@code executor} rejects the task, and also when a {@link TickAwareScheduler} lane rejects it after queuing it.
+	 */
+	public static <R> CompletableFuture<R> supplyAsync(Supplier<R> supplier, Executor executor) {
+		CompletableFuture<R> future = new CompletableFuture<>();
+		RejectableTask task = new RejectableTask() {
+			@Override
+			public void run() {
+				try {
+					future.complete(supplier.get());
+				} catch (Throwable e) {
+					future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+				}
+			}
+
+			@Override
+			public void reject(RejectedExecutionException cause) {
+				future.completeExceptionally(new CompletionException(cause));
+			}
+		};
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			task.reject(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Runs tasks on the server main thread, directly if already on it.
+	 * Use it to complete repository callbacks that touch the Bukkit API:
+	 * {@code repository.findById(id).thenAcceptAsync(profile -> ..., RepositoryExecutors.mainThread(plugin))}.
+	 */
+	public static Executor mainThread(JavaPlugin plugin) {
+		return runnable -> {
+			if (Bukkit.isPrimaryThread()) {
+				runnable.run();
+			} else {
+				Bukkit.getScheduler().runTask(plugin, runnable);
+			}
+		};
+	}
+}
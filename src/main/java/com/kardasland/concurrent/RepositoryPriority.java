@@ -0,0 +1,50 @@
+package com.kardasland.concurrent;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority classes of the {@link TickAwareScheduler}. Queued work is started in declaration order.
+ */
+public enum RepositoryPriority {
+	/**
+	 * Reads a player or command is waiting on.
+	 */
+	INTERACTIVE,
+	/**
+	 * Single-entity saves and deletes, such as a player's data on quit.
+	 */
+	PLAYER,
+	/**
+	 * Bulk work: {@code saveAll}, {@code deleteAll}, {@code streamAll}, write-behind and session flushes.
+	 * Throttled while the server is lagging.
+	 */
+	BACKGROUND;
+
+	private static final ThreadLocal<RepositoryPriority> OVERRIDE = new ThreadLocal<>();
+
+	/**
+	 * Runs {@code work} with every repository call it makes on this thread scheduled at this priority,
+	 * e.g. {@code RepositoryPriority.BACKGROUND.call(() -> repository.save(profile))} for an autosave loop.
+	 */
+	public <R> R call(Supplier<R> work) {
+		RepositoryPriority previous = OVERRIDE.get();
+		OVERRIDE.set(this);
+		try {
+			return work.get();
+		} finally {
+			if (previous == null) {
+				OVERRIDE.remove();
+			} else {
+				OVERRIDE.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * The priority set by an enclosing {@link #call(Supplier)}, or {@code fallback}.
+	 */
+	public static RepositoryPriority current(RepositoryPriority fallback) {
+		RepositoryPriority override = OVERRIDE.get();
+		return override != null ? override : fallback;
+	}
+}
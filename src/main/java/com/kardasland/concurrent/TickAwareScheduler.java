@@ -0,0 +1,227 @@
+package com.kardasland.concurrent;
+
+import com.kardasland.SchedulerConfig;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queues repository work by {@link RepositoryPriority} in front of the repository executors.
+ * At most {@code permits} tasks run at once, normally the connection pool size, so waiting happens here in priority
+ * order rather than in the pool's first-come queue. Background work is limited to
+ * {@link SchedulerConfig#getBackgroundConcurrency()} tasks, and while the server is lagging to
+ * {@link SchedulerConfig#getLaggingBackgroundPerTick()} new tasks per tick, measured with Paper's tick time and TPS.
+ */
+public final class TickAwareScheduler {
+
+	private final SchedulerConfig config;
+	private final Logger logger;
+	/**
+	 * Whether the server has Paper's tick time and TPS API. Without it lag is never detected and nothing is throttled.
+	 */
+	private final boolean tickApi;
+	private final Object lock = new Object();
+	private final ArrayDeque<Task>[] queues;
+	private int availablePermits;
+	private int backgroundRunning;
+	private int backgroundTokens;
+	private volatile boolean lagging;
+	private volatile boolean throttling = true;
+	private volatile boolean closed;
+	private BukkitTask tickTask;
+
+	@SuppressWarnings("unchecked")
+	public TickAwareScheduler(SchedulerConfig config, int permits, Logger logger) {
+		this.config = config;
+		this.logger = logger;
+		this.availablePermits = Math.max(1, permits);
+		this.tickApi = hasTickApi();
+		this.queues = new ArrayDeque[RepositoryPriority.values().length];
+		for (int i = 0; i < queues.length; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Starts sampling the server's tick time on the main thread once per tick, if the server can report it.
+	 */
+	public void start(JavaPlugin plugin) {
+		if (!tickApi) {
+			logger.info("The server does not report tick times, so background repository work is not throttled");
+			return;
+		}
+		tickTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sampleServer, 1L, 1L);
+	}
+
+	/**
+	 * An executor that queues tasks at {@code priority} and starts them on {@code delegate}.
+	 * It throws {@link RejectedExecutionException} once the scheduler is closed or {@code delegate} is shut down.
+	 * A queued task that {@code delegate} rejects later is passed to {@link RejectableTask#reject} if it is one.
+	 */
+	public Executor lane(RepositoryPriority priority, Executor delegate) {
+		return task -> {
+			if (closed) {
+				throw new RejectedExecutionException("The repository scheduler is closed");
+			}
+			if (delegate instanceof ExecutorService service && service.isShutdown()) {
+				throw new RejectedExecutionException("The repository executor is shut down");
+			}
+			submit(priority, delegate, task);
+		};
+	}
+
+	public boolean isLagging() {
+		return lagging;
+	}
+
+	/**
+	 * Number of tasks waiting for a permit.
+	 */
+	public int getQueuedTasks() {
+		synchronized (lock) {
+			int queued = 0;
+			for (ArrayDeque<Task> queue : queues) {
+				queued += queue.size();
+			}
+			return queued;
+		}
+	}
+
+	/**
+	 * Stops throttling and starts everything still queued, so pending writes reach the executors before they shut down.
+	 * New tasks are still accepted, such as the flushes that follow during shutdown.
+	 */
+	public void stopThrottling() {
+		throttling = false;
+		if (tickTask != null) {
+			tickTask.cancel();
+		}
+		drain();
+	}
+
+	/**
+	 * Stops throttling and rejects new tasks. Tasks already queued still start as permits free up.
+	 */
+	public void close() {
+		stopThrottling();
+		closed = true;
+	}
+
+	private void sampleServer() {
+		boolean nowLagging;
+		try {
+			nowLagging = Bukkit.getAverageTickTime() > config.getMaxTickMillis() || Bukkit.getTPS()[0] < config.getMinTps();
+		} catch (UnsupportedOperationException e) {
+			// Declared but not implemented by this server: stop asking.
+			tickTask.cancel();
+			tickTask = null;
+			nowLagging = false;
+		}
+		onTick(nowLagging);
+	}
+
+	private static boolean hasTickApi() {
+		try {
+			Server.class.getMethod("getAverageTickTime");
+			Server.class.getMethod("getTPS");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Records the server's state for the tick that just ran and hands out that tick's background allowance.
+	 */
+	void onTick(boolean nowLagging) {
+		lagging = nowLagging;
+		synchronized (lock) {
+			backgroundTokens = config.getLaggingBackgroundPerTick();
+		}
+		drain();
+	}
+
+	private void submit(RepositoryPriority priority, Executor delegate, Runnable runnable) {
+		synchronized (lock) {
+			queues[priority.ordinal()].add(new Task(priority, delegate, runnable));
+		}
+		drain();
+	}
+
+	private void drain() {
+		List<Task> ready = new ArrayList<>();
+		synchronized (lock) {
+			Task task;
+			while (availablePermits > 0 && (task = poll()) != null) {
+				availablePermits--;
+				if (task.priority() == RepositoryPriority.BACKGROUND) {
+					backgroundRunning++;
+				}
+				ready.add(task);
+			}
+		}
+		for (Task task : ready) {
+			try {
+				task.delegate().execute(() -> {
+					try {
+						task.runnable().run();
+					} finally {
+						release(task);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				release(task);
+				if (task.runnable() instanceof RejectableTask rejectable) {
+					rejectable.reject(e);
+				} else {
+					logger.log(Level.WARNING, "Repository executor rejected a " + task.priority() + " task", e);
+				}
+			}
+		}
+	}
+
+	private Task poll() {
+		for (RepositoryPriority priority : RepositoryPriority.values()) {
+			ArrayDeque<Task> queue = queues[priority.ordinal()];
+			if (queue.isEmpty()) {
+				continue;
+			}
+			if (priority == RepositoryPriority.BACKGROUND && throttling) {
+				if (backgroundRunning >= Math.max(1, config.getBackgroundConcurrency())) {
+					return null;
+				}
+				if (lagging) {
+					if (backgroundTokens <= 0) {
+						return null;
+					}
+					backgroundTokens--;
+				}
+			}
+			return queue.poll();
+		}
+		return null;
+	}
+
+	private void release(Task task) {
+		synchronized (lock) {
+			availablePermits++;
+			if (task.priority() == RepositoryPriority.BACKGROUND) {
+				backgroundRunning--;
+			}
+		}
+		drain();
+	}
+
+	private record Task(RepositoryPriority priority, Executor delegate, Runnable runnable) {
+	}
+}
@@ -1,14 +1,26 @@
 package com.kardasland.converters;
 
-import org.bukkit.Bukkit;
+import com.kardasland.location.WorldCache;
 import org.bukkit.Location;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 
+/**
+ * Stores a {@link Location} as {@code world;x;y;z;yaw;pitch}.
+ * For new entities prefer {@link com.kardasland.location.StoredLocation}, which keeps the parts in numeric columns.
+ */
 @Converter(autoApply = true)
 public class LocationConverter implements AttributeConverter<Location, String> {
 
-	private static final String SEPARATOR = ";";
+	private static final char SEPARATOR = ';';
+	// Largest mantissa and power of ten that are both exact, so one division gives a correctly rounded result.
+	private static final long MAX_DOUBLE_MANTISSA = 1L << 53;
+	private static final long MAX_FLOAT_MANTISSA = 1L << 24;
+	private static final double[] DOUBLE_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
 
 	@Override
 	public String convertToDatabaseColumn(Location location) {
@@ -19,30 +31,127 @@ public class LocationConverter implements AttributeConverter<Location, String> {
 			throw new IllegalArgumentException("Location must have a valid world.");
 		}
 		// Format: worldName;x;y;z;yaw;pitch
-		return location.getWorld().getName() + SEPARATOR +
-			location.getX() + SEPARATOR +
-			location.getY() + SEPARATOR +
-			location.getZ() + SEPARATOR +
-			location.getYaw() + SEPARATOR +
-			location.getPitch();
+		return new StringBuilder(64)
+			.append(location.getWorld().getName()).append(SEPARATOR)
+			.append(location.getX()).append(SEPARATOR)
+			.append(location.getY()).append(SEPARATOR)
+			.append(location.getZ()).append(SEPARATOR)
+			.append(location.getYaw()).append(SEPARATOR)
+			.append(location.getPitch())
+			.toString();
 	}
 
+	/**
+	 * Parses the column in a single pass without splitting it. Plain decimals, which is what
+	 * {@link Double#toString} writes for block coordinates, are parsed in place; anything else
+	 * (exponents, very long mantissas) falls back to the JDK parser.
+	 */
 	@Override
 	public Location convertToEntityAttribute(String dbData) {
 		if (dbData == null || dbData.isEmpty()) {
 			return null;
 		}
-		String[] parts = dbData.split(SEPARATOR);
-		if (parts.length != 6) {
-			throw new IllegalArgumentException("Invalid location format in database: " + dbData);
-		}
-		return new Location(
-			Bukkit.getWorld(parts[0]),
-			Double.parseDouble(parts[1]),
-			Double.parseDouble(parts[2]),
-			Double.parseDouble(parts[3]),
-			Float.parseFloat(parts[4]),
-			Float.parseFloat(parts[5])
-		);
+		int worldEnd = separator(dbData, 0);
+		int xEnd = separator(dbData, worldEnd + 1);
+		int yEnd = separator(dbData, xEnd + 1);
+		int zEnd = separator(dbData, yEnd + 1);
+		int yawEnd = separator(dbData, zEnd + 1);
+		if (dbData.indexOf(SEPARATOR, yawEnd + 1) != -1) {
+			throw invalidFormat(dbData);
+		}
+
+		try {
+			return new Location(
+				WorldCache.byName(dbData, 0, worldEnd),
+				parseDouble(dbData, worldEnd + 1, xEnd),
+				parseDouble(dbData, xEnd + 1, yEnd),
+				parseDouble(dbData, yEnd + 1, zEnd),
+				parseFloat(dbData, zEnd + 1, yawEnd),
+				parseFloat(dbData, yawEnd + 1, dbData.length())
+			);
+		} catch (NumberFormatException e) {
+			throw invalidFormat(dbData);
+		}
+	}
+
+	static double parseDouble(String source, int start, int end) {
+		long decimal = scanDecimal(source, start, end, MAX_DOUBLE_MANTISSA, DOUBLE_POWERS_OF_TEN.length - 1);
+		if (decimal < 0) {
+			return Double.parseDouble(source.substring(start, end));
+		}
+		double value = (double) mantissa(decimal) / DOUBLE_POWERS_OF_TEN[scale(decimal)];
+		return isNegative(decimal) ? -value : value;
+	}
+
+	static float parseFloat(String source, int start, int end) {
+		long decimal = scanDecimal(source, start, end, MAX_FLOAT_MANTISSA, FLOAT_POWERS_OF_TEN.length - 1);
+		if (decimal < 0) {
+			return Float.parseFloat(source.substring(start, end));
+		}
+		float value = (float) mantissa(decimal) / FLOAT_POWERS_OF_TEN[scale(decimal)];
+		return isNegative(decimal) ? -value : value;
+	}
+
+	/**
+	 * Reads {@code [-]digits[.digits]} from {@code source[start, end)}.
+	 * @return The mantissa, the number of fraction digits and the sign packed as {@code mantissa << 6 | scale << 1 | sign},
+	 * or {@code -1} if the text is not a plain decimal small enough to convert exactly.
+	 */
+	private static long scanDecimal(String source, int start, int end, long maxMantissa, int maxScale) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+			negative = source.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int scale = 0;
+		boolean fraction = false;
+		boolean digits = false;
+		for (; i < end; i++) {
+			char c = source.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = true;
+				mantissa = mantissa * 10 + (c - '0');
+				if (fraction) {
+					scale++;
+				}
+				if (mantissa > maxMantissa || scale > maxScale) {
+					return -1;
+				}
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				return -1;
+			}
+		}
+		if (!digits) {
+			return -1;
+		}
+		return mantissa << 6 | (long) scale << 1 | (negative ? 1 : 0);
+	}
+
+	private static long mantissa(long decimal) {
+		return decimal >>> 6;
+	}
+
+	private static int scale(long decimal) {
+		return (int) (decimal >>> 1) & 0x1F;
+	}
+
+	private static boolean isNegative(long decimal) {
+		return (decimal & 1) != 0;
+	}
+
+	private static int separator(String dbData, int from) {
+		int index = dbData.indexOf(SEPARATOR, from);
+		if (index == -1) {
+			throw invalidFormat(dbData);
+		}
+		return index;
+	}
+
+	private static IllegalArgumentException invalidFormat(String dbData) {
+		return new IllegalArgumentException("Invalid location format in database: " + dbData);
 	}
 }
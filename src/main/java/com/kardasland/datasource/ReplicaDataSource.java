@@ -0,0 +1,174 @@
+package com.kardasland.datasource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads connections over the healthy replicas in turn, for use as the reader of a {@link RoutingDataSource}.
+ * A replica is healthy while it answers the periodic health check and its lag stays below the limit; one that
+ * fails to hand out a connection is taken out right away. With no healthy replica, connections come from the primary.
+ * The pools themselves are owned by the caller.
+ */
+public class ReplicaDataSource implements DataSource, AutoCloseable {
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final ReplicaLagProbe lagProbe;
+	private final long maxLagMillis;
+	private final Logger logger;
+	private final AtomicInteger next = new AtomicInteger();
+	private ScheduledExecutorService healthChecks;
+
+	/**
+	 * @param replicas Pools to the replicas, named in log messages by their position starting at 1.
+	 */
+	public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, ReplicaLagProbe lagProbe, long maxLagMillis, Logger logger) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.lagProbe = lagProbe;
+		this.maxLagMillis = maxLagMillis;
+		this.logger = logger;
+	}
+
+	/**
+	 * Checks every replica right away and then every {@code intervalMillis}, on a daemon thread so that an unreachable
+	 * replica does not hold up the caller for its connection timeout. Until a replica passes its first check, reads go to the primary.
+	 */
+	public void start(long intervalMillis, String threadName) {
+		healthChecks = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(threadName).daemon(true).factory());
+		healthChecks.scheduleWithFixedDelay(this::checkHealth, 0, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs one health check of every replica.
+	 */
+	public void checkHealth() {
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get(i);
+			String problem;
+			try (Connection connection = replica.dataSource.getConnection()) {
+				long lag = lagProbe.lagMillis(connection);
+				problem = lag == ReplicaLagProbe.STOPPED ? "replication has stopped"
+					: lag > maxLagMillis ? "replication lag is " + lag + " ms" : null;
+			} catch (SQLException | RuntimeException e) {
+				problem = "health check failed: " + e.getMessage();
+			}
+			replica.update(i + 1, problem);
+		}
+	}
+
+	public int getHealthyReplicaCount() {
+		int healthy = 0;
+		for (Replica replica : replicas) {
+			if (replica.healthy) {
+				healthy++;
+			}
+		}
+		return healthy;
+	}
+
+	/**
+	 * Stops the health checks.
+	 */
+	@Override
+	public void close() {
+		if (healthChecks != null) {
+			healthChecks.shutdownNow();
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+		for (int i = 0; i < replicas.size(); i++) {
+			int index = (start + i) % replicas.size();
+			Replica replica = replicas.get(index);
+			if (!replica.healthy) {
+				continue;
+			}
+			try {
+				return replica.dataSource.getConnection();
+			} catch (SQLException e) {
+				replica.update(index + 1, "no connection: " + e.getMessage());
+			}
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return primary.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		primary.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		primary.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return primary.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return primary.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || primary.isWrapperFor(iface);
+	}
+
+	private final class Replica {
+		private final DataSource dataSource;
+		private volatile boolean healthy;
+		private boolean checked;
+
+		private Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		/**
+		 * @param problem Why the replica cannot serve reads, or {@code null} if it can.
+		 */
+		private synchronized void update(int number, String problem) {
+			boolean nowHealthy = problem == null;
+			if (nowHealthy && !healthy) {
+				logger.info("Read replica " + number + " is serving reads");
+			} else if (!nowHealthy && (healthy || !checked)) {
+				logger.log(Level.WARNING, "Read replica " + number + " is not serving reads, " + problem);
+			}
+			healthy = nowHealthy;
+			checked = true;
+		}
+	}
+}
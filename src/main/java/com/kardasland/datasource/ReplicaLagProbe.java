@@ -0,0 +1,72 @@
+package com.kardasland.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures how far a replica is behind its primary, on a connection to that replica.
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+	/**
+	 * Returned when the replica reports that replication has stopped.
+	 */
+	long STOPPED = Long.MAX_VALUE;
+
+	/**
+	 * @return The lag in milliseconds, {@code 0} for a server that is not replicating, or {@link #STOPPED}.
+	 */
+	long lagMillis(Connection connection) throws SQLException;
+
+	/**
+	 * Only checks that the replica answers.
+	 */
+	ReplicaLagProbe NONE = connection -> 0;
+
+	/**
+	 * Reads {@code Seconds_Behind_Source} from {@code SHOW REPLICA STATUS}, or {@code Seconds_Behind_Master}
+	 * from {@code SHOW SLAVE STATUS} on servers older than MySQL 8.0.22.
+	 */
+	ReplicaLagProbe MYSQL = connection -> {
+		try {
+			return mysqlLag(connection, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+		} catch (SQLException e) {
+			return mysqlLag(connection, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+		}
+	};
+
+	/**
+	 * Time since the last replayed transaction, or {@code 0} once everything received has been replayed,
+	 * so an idle primary does not make its standbys look behind.
+	 */
+	ReplicaLagProbe POSTGRESQL = connection -> {
+		try (Statement statement = connection.createStatement();
+			 ResultSet rows = statement.executeQuery("SELECT CASE WHEN NOT pg_is_in_recovery()"
+				 + " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+				 + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END")) {
+			rows.next();
+			return (long) rows.getDouble(1);
+		}
+	};
+
+	private static long mysqlLag(Connection connection, String sql, String column) throws SQLException {
+		try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+			if (!rows.next()) {
+				return 0;
+			}
+			long seconds = rows.getLong(column);
+			return rows.wasNull() ? STOPPED : seconds * 1000;
+		}
+	}
+
+	static ReplicaLagProbe forType(String type) {
+		return switch (type.toLowerCase()) {
+			case "mysql" -> MYSQL;
+			case "postgresql" -> POSTGRESQL;
+			default -> NONE;
+		};
+	}
+}
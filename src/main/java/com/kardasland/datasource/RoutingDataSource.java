@@ -0,0 +1,99 @@
+package com.kardasland.datasource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Hands out connections from a read pool while the current thread runs inside {@link #readOnly(Supplier)},
+ * and from the primary (write) pool otherwise. Hibernate acquires connections lazily on the thread that runs
+ * the work, so marking a repository read is enough to route its statements.
+ */
+public class RoutingDataSource implements DataSource {
+
+	private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private final DataSource primary;
+	private final DataSource reader;
+
+	public RoutingDataSource(DataSource primary, DataSource reader) {
+		this.primary = primary;
+		this.reader = reader;
+	}
+
+	/**
+	 * Runs work that only reads, allowing its connection to come from the read pool.
+	 * Nested calls keep the outer routing decision.
+	 */
+	public static <T> T readOnly(Supplier<T> work) {
+		if (READ_ONLY.get()) {
+			return work.get();
+		}
+		READ_ONLY.set(Boolean.TRUE);
+		try {
+			return work.get();
+		} finally {
+			READ_ONLY.set(Boolean.FALSE);
+		}
+	}
+
+	public static boolean isReadOnly() {
+		return READ_ONLY.get();
+	}
+
+	private DataSource current() {
+		return READ_ONLY.get() ? reader : primary;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return current().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return current().getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return primary.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		primary.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		primary.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return primary.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return primary.getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || primary.isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,125 @@
+package com.kardasland.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Connection pools shared by every plugin on the server that connects to the same JDBC URL as the same user,
+ * registered with Bukkit's {@link ServicesManager}. The first plugin creates a pool with its own settings, later
+ * plugins lease that pool, and the last one to release it closes it.
+ * Only plugins that load this class from the same class loader see one another, e.g. when the bridge is a
+ * dependency plugin or shaded without relocation into a plugin the others depend on.
+ */
+public final class SharedPoolRegistry {
+
+	private final Map<String, SharedPool> pools = new HashMap<>();
+	private Plugin owner;
+
+	private SharedPoolRegistry(Plugin owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * Leases the pool for the URL and user of {@code config}, creating it from {@code config} if there is none yet.
+	 */
+	public static HikariDataSource acquire(JavaPlugin plugin, HikariConfig config) {
+		synchronized (SharedPoolRegistry.class) {
+			SharedPoolRegistry registry = registry(plugin);
+			String key = key(config);
+			SharedPool pool = registry.pools.get(key);
+			if (pool == null || pool.dataSource().isClosed()) {
+				pool = new SharedPool(new HikariDataSource(config), new LinkedHashSet<>());
+				registry.pools.put(key, pool);
+			}
+			pool.lessees().add(plugin);
+			plugin.getLogger().info("Using shared connection pool " + pool.dataSource().getPoolName() + " (" + pool.lessees().size() + " plugin(s))");
+			return pool.dataSource();
+		}
+	}
+
+	/**
+	 * Returns a lease taken with {@link #acquire}, closing the pool once no plugin uses it.
+	 */
+	public static void release(JavaPlugin plugin, HikariDataSource dataSource) {
+		synchronized (SharedPoolRegistry.class) {
+			SharedPoolRegistry registry = Bukkit.getServicesManager().load(SharedPoolRegistry.class);
+			SharedPool pool = registry != null ? registry.find(dataSource) : null;
+			if (pool == null) {
+				// Not registered here, e.g. the registry went away with its owner: nobody else can lease it.
+				dataSource.close();
+				return;
+			}
+			pool.lessees().remove(plugin);
+			if (pool.lessees().isEmpty()) {
+				registry.pools.values().remove(pool);
+				dataSource.close();
+			}
+			if (registry.owner == plugin && registry.pools.values().stream().noneMatch(other -> other.lessees().contains(plugin))) {
+				registry.handOver();
+			}
+		}
+	}
+
+	/**
+	 * Number of plugins leasing the pool, or {@code 0} if it is not a shared pool.
+	 */
+	public static int getLeaseCount(HikariDataSource dataSource) {
+		synchronized (SharedPoolRegistry.class) {
+			SharedPoolRegistry registry = Bukkit.getServicesManager().load(SharedPoolRegistry.class);
+			SharedPool pool = registry != null ? registry.find(dataSource) : null;
+			return pool != null ? pool.lessees().size() : 0;
+		}
+	}
+
+	private static SharedPoolRegistry registry(JavaPlugin plugin) {
+		ServicesManager services = Bukkit.getServicesManager();
+		SharedPoolRegistry registry = services.load(SharedPoolRegistry.class);
+		if (registry == null) {
+			registry = new SharedPoolRegistry(plugin);
+			services.register(SharedPoolRegistry.class, registry, plugin, ServicePriority.Normal);
+		}
+		return registry;
+	}
+
+	/**
+	 * Bukkit drops a plugin's services when it is disabled, so the registry moves to a plugin that still leases a pool.
+	 */
+	private void handOver() {
+		ServicesManager services = Bukkit.getServicesManager();
+		services.unregister(SharedPoolRegistry.class, this);
+		owner = pools.values().stream()
+			.flatMap(pool -> pool.lessees().stream())
+			.findFirst()
+			.orElse(null);
+		if (owner != null) {
+			services.register(SharedPoolRegistry.class, this, owner, ServicePriority.Normal);
+		}
+	}
+
+	private SharedPool find(HikariDataSource dataSource) {
+		for (SharedPool pool : pools.values()) {
+			if (pool.dataSource() == dataSource) {
+				return pool;
+			}
+		}
+		return null;
+	}
+
+	private static String key(HikariConfig config) {
+		return config.getJdbcUrl() + '\n' + Objects.toString(config.getUsername(), "");
+	}
+
+	private record SharedPool(HikariDataSource dataSource, Set<Plugin> lessees) {
+	}
+}
@@ -0,0 +1,99 @@
+package com.kardasland.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Build-time index of entities, converters and repositories, written by
+ * {@link com.kardasland.processor.EntityIndexProcessor} to {@value #RESOURCE}.
+ * Each line is a kind followed by a fully qualified class name, e.g. {@code entity com.example.PlayerProfile}.
+ */
+public final class EntityIndex {
+
+	public static final String RESOURCE = "META-INF/spigot-jpa/index.list";
+	public static final String ENTITY = "entity";
+	public static final String CONVERTER = "converter";
+	public static final String REPOSITORY = "repository";
+
+	private final Set<String> entities = new LinkedHashSet<>();
+	private final Set<String> converters = new LinkedHashSet<>();
+	private final Set<String> repositories = new LinkedHashSet<>();
+
+	/**
+	 * Merges every index visible to the class loader.
+	 * @return The index, or {@code null} if no jar on the class loader carries one.
+	 */
+	public static EntityIndex load(ClassLoader classLoader) throws IOException {
+		Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+		if (!resources.hasMoreElements()) {
+			return null;
+		}
+		EntityIndex index = new EntityIndex();
+		while (resources.hasMoreElements()) {
+			try (Reader reader = new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8)) {
+				index.read(reader);
+			}
+		}
+		return index;
+	}
+
+	public void read(Reader reader) throws IOException {
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		while ((line = lines.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			int separator = line.indexOf(' ');
+			if (separator == -1) {
+				throw new IOException("Malformed " + RESOURCE + " line: " + line);
+			}
+			add(line.substring(0, separator), line.substring(separator + 1).trim());
+		}
+	}
+
+	public void add(String kind, String className) {
+		switch (kind) {
+			case ENTITY -> entities.add(className);
+			case CONVERTER -> converters.add(className);
+			case REPOSITORY -> repositories.add(className);
+			default -> throw new IllegalArgumentException("Unknown index kind: " + kind);
+		}
+	}
+
+	/**
+	 * Whether the index lists a class in {@code packageName} or one of its subpackages.
+	 */
+	public boolean covers(String packageName) {
+		String prefix = packageName + ".";
+		for (Set<String> classNames : List.of(entities, converters, repositories)) {
+			for (String className : classNames) {
+				if (className.startsWith(prefix)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public Set<String> getEntities() {
+		return entities;
+	}
+
+	public Set<String> getConverters() {
+		return converters;
+	}
+
+	public Set<String> getRepositories() {
+		return repositories;
+	}
+}
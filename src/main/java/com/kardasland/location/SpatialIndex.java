@@ -0,0 +1,151 @@
+package com.kardasland.location;
+
+import com.kardasland.repository.CrudRepository;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory chunk grid over entities with a {@link StoredLocation}, for radius and chunk lookups that must not
+ * wait for the database, e.g. on the main thread. The index does not follow the repository by itself;
+ * call {@link #put} and {@link #remove} alongside saves and deletes.
+ * @param <T> The entity type.
+ * @param <ID> The entity id type.
+ */
+public class SpatialIndex<T, ID> {
+
+	private final Function<T, ID> idGetter;
+	private final Function<T, StoredLocation> locationGetter;
+	private final Map<UUID, Map<Long, Map<ID, T>>> chunksByWorld = new HashMap<>();
+	private final Map<ID, StoredLocation> locations = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public SpatialIndex(Function<T, ID> idGetter, Function<T, StoredLocation> locationGetter) {
+		this.idGetter = idGetter;
+		this.locationGetter = locationGetter;
+	}
+
+	/**
+	 * Builds an index over every row of a repository, streaming it in chunks.
+	 */
+	public static <T, ID> CompletableFuture<SpatialIndex<T, ID>> load(CrudRepository<T, ID> repository, Function<T, ID> idGetter, Function<T, StoredLocation> locationGetter) {
+		SpatialIndex<T, ID> index = new SpatialIndex<>(idGetter, locationGetter);
+		return repository.streamAll(1_000, chunk -> chunk.forEach(index::put)).thenApply(ignored -> index);
+	}
+
+	/**
+	 * Adds the entity, or moves it if its location changed. Entities without a location are removed.
+	 */
+	public void put(T entity) {
+		ID id = idGetter.apply(entity);
+		StoredLocation location = locationGetter.apply(entity);
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+			if (location != null) {
+				locations.put(id, location);
+				chunksByWorld.computeIfAbsent(location.getWorldId(), ignored -> new HashMap<>())
+					.computeIfAbsent(location.getChunkKey(), ignored -> new HashMap<>())
+					.put(id, entity);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(ID id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Entities within {@code radius} blocks of {@code center}, in no particular order.
+	 */
+	public List<T> within(Location center, double radius) {
+		if (center.getWorld() == null) {
+			throw new IllegalArgumentException("Center location must have a valid world.");
+		}
+		int minChunkX = (int) Math.floor(center.getX() - radius) >> 4;
+		int maxChunkX = (int) Math.floor(center.getX() + radius) >> 4;
+		int minChunkZ = (int) Math.floor(center.getZ() - radius) >> 4;
+		int maxChunkZ = (int) Math.floor(center.getZ() + radius) >> 4;
+		double radiusSquared = radius * radius;
+		List<T> found = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			Map<Long, Map<ID, T>> chunks = chunksByWorld.get(center.getWorld().getUID());
+			if (chunks == null) {
+				return found;
+			}
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					Map<ID, T> entities = chunks.get(StoredLocation.chunkKey(chunkX, chunkZ));
+					if (entities == null) {
+						continue;
+					}
+					for (Map.Entry<ID, T> entry : entities.entrySet()) {
+						StoredLocation location = locations.get(entry.getKey());
+						double dx = location.getX() - center.getX();
+						double dy = location.getY() - center.getY();
+						double dz = location.getZ() - center.getZ();
+						if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+							found.add(entry.getValue());
+						}
+					}
+				}
+			}
+			return found;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<T> inChunk(World world, int chunkX, int chunkZ) {
+		lock.readLock().lock();
+		try {
+			Map<Long, Map<ID, T>> chunks = chunksByWorld.get(world.getUID());
+			Map<ID, T> entities = chunks != null ? chunks.get(StoredLocation.chunkKey(chunkX, chunkZ)) : null;
+			return entities != null ? new ArrayList<>(entities.values()) : new ArrayList<>();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return locations.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void removeLocked(ID id) {
+		StoredLocation previous = locations.remove(id);
+		if (previous == null) {
+			return;
+		}
+		Map<Long, Map<ID, T>> chunks = chunksByWorld.get(previous.getWorldId());
+		Map<ID, T> entities = chunks.get(previous.getChunkKey());
+		entities.remove(id);
+		if (entities.isEmpty()) {
+			chunks.remove(previous.getChunkKey());
+			if (chunks.isEmpty()) {
+				chunksByWorld.remove(previous.getWorldId());
+			}
+		}
+	}
+}
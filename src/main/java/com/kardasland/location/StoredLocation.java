@@ -0,0 +1,69 @@
+package com.kardasland.location;
+
+import jakarta.persistence.Embeddable;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+/**
+ * A {@link Location} stored as numeric columns and a world id, an alternative to the single string column written by
+ * {@link com.kardasland.converters.LocationConverter}. Nothing has to be parsed when a row is read,
+ * the world survives renames, and coordinates can be compared in queries.
+ * Embed it with {@code @Embedded}; use {@code @AttributeOverride}s when an entity has more than one.
+ */
+@Embeddable
+@Getter
+@EqualsAndHashCode
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class StoredLocation {
+	private UUID worldId;
+	private double x;
+	private double y;
+	private double z;
+	private float yaw;
+	private float pitch;
+	/**
+	 * The containing chunk, as {@link #chunkKey(int, int)}, so chunk lookups are a single indexed equality.
+	 */
+	private long chunkKey;
+
+	public StoredLocation(UUID worldId, double x, double y, double z, float yaw, float pitch) {
+		this.worldId = worldId;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.yaw = yaw;
+		this.pitch = pitch;
+		this.chunkKey = chunkKey((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+	}
+
+	public static StoredLocation of(Location location) {
+		if (location == null) {
+			return null;
+		}
+		if (location.getWorld() == null) {
+			throw new IllegalArgumentException("Location must have a valid world.");
+		}
+		return new StoredLocation(location.getWorld().getUID(), location.getX(), location.getY(), location.getZ(), location.getYaw(), location.getPitch());
+	}
+
+	/**
+	 * @return The location, with a {@code null} world if that world is not loaded.
+	 */
+	public Location toLocation() {
+		return new Location(WorldCache.byId(worldId), x, y, z, yaw, pitch);
+	}
+
+	/**
+	 * Packs chunk coordinates the same way as Paper's {@code Chunk#getChunkKey()}.
+	 */
+	public static long chunkKey(int chunkX, int chunkZ) {
+		return (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+	}
+}
@@ -0,0 +1,112 @@
+package com.kardasland.location;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Remembers world handles so converting a row does not look the world up on the server every time.
+ * Servers run a handful of worlds, so a linear scan beats hashing, and it lets names be matched
+ * in place inside a larger string without cutting them out first.
+ */
+public final class WorldCache {
+
+	private static volatile Entry[] entries = new Entry[0];
+	// Worlds belong to one server instance; a new one (e.g. in tests) starts with an empty cache.
+	private static volatile WeakReference<Server> server = new WeakReference<>(null);
+
+	private WorldCache() {
+	}
+
+	/**
+	 * Drops worlds from the cache as soon as they are unloaded. Without it an unloaded world is only
+	 * forgotten once it is garbage collected.
+	 */
+	public static void listen(JavaPlugin plugin) {
+		Bukkit.getPluginManager().registerEvents(new Listener() {
+			@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+			public void onWorldUnload(WorldUnloadEvent event) {
+				invalidate(event.getWorld().getUID());
+			}
+		}, plugin);
+	}
+
+	/**
+	 * Looks up the world named by {@code source[start, end)}.
+	 */
+	public static World byName(String source, int start, int end) {
+		int length = end - start;
+		for (Entry entry : currentEntries()) {
+			if (entry.name().length() == length && source.regionMatches(true, start, entry.name(), 0, length)) {
+				World world = entry.world().get();
+				if (world != null) {
+					return world;
+				}
+			}
+		}
+		return remember(Bukkit.getWorld(source.substring(start, end)));
+	}
+
+	public static World byId(UUID id) {
+		for (Entry entry : currentEntries()) {
+			if (entry.id().equals(id)) {
+				World world = entry.world().get();
+				if (world != null) {
+					return world;
+				}
+			}
+		}
+		return remember(Bukkit.getWorld(id));
+	}
+
+	private static Entry[] currentEntries() {
+		if (server.get() != Bukkit.getServer()) {
+			synchronized (WorldCache.class) {
+				if (server.get() != Bukkit.getServer()) {
+					entries = new Entry[0];
+					server = new WeakReference<>(Bukkit.getServer());
+				}
+			}
+		}
+		return entries;
+	}
+
+	static synchronized void invalidate(UUID id) {
+		List<Entry> kept = new ArrayList<>(entries.length);
+		for (Entry entry : entries) {
+			if (!entry.id().equals(id) && entry.world().get() != null) {
+				kept.add(entry);
+			}
+		}
+		entries = kept.toArray(Entry[]::new);
+	}
+
+	private static synchronized World remember(World world) {
+		// Missing worlds are not cached, so a world loaded later is still found.
+		if (world == null) {
+			return null;
+		}
+		List<Entry> updated = new ArrayList<>(entries.length + 1);
+		for (Entry entry : entries) {
+			if (!entry.id().equals(world.getUID()) && entry.world().get() != null) {
+				updated.add(entry);
+			}
+		}
+		updated.add(new Entry(world.getName(), world.getUID(), new WeakReference<>(world)));
+		entries = updated.toArray(Entry[]::new);
+		return world;
+	}
+
+	private record Entry(String name, UUID id, WeakReference<World> world) {
+	}
+}
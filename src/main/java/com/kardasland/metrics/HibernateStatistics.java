@@ -0,0 +1,35 @@
+package com.kardasland.metrics;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Session factory counters. All zero unless {@code hibernate.generate_statistics} is on, which metrics enable.
+ */
+public record HibernateStatistics(
+	long sessions,
+	long transactions,
+	long statements,
+	long queries,
+	long queryMaxTimeMillis,
+	String slowestQuery,
+	long entityLoads,
+	long entityInserts,
+	long entityUpdates,
+	long entityDeletes
+) {
+
+	public static HibernateStatistics from(Statistics statistics) {
+		return new HibernateStatistics(
+			statistics.getSessionOpenCount(),
+			statistics.getTransactionCount(),
+			statistics.getPrepareStatementCount(),
+			statistics.getQueryExecutionCount(),
+			statistics.getQueryExecutionMaxTime(),
+			statistics.getQueryExecutionMaxTimeQueryString(),
+			statistics.getEntityLoadCount(),
+			statistics.getEntityInsertCount(),
+			statistics.getEntityUpdateCount(),
+			statistics.getEntityDeleteCount()
+		);
+	}
+}
@@ -0,0 +1,68 @@
+package com.kardasland.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Percentiles are reported as the upper bound of their bucket, so they are accurate to within a factor of two.
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 32;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos) / 1_000;
+		buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public LatencySnapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		long mean = total == 0 ? 0 : totalNanos.sum() / total;
+		return new LatencySnapshot(
+			total,
+			Duration.ofNanos(mean),
+			percentile(counts, total, 0.50),
+			percentile(counts, total, 0.95),
+			percentile(counts, total, 0.99),
+			Duration.ofNanos(maxNanos.get())
+		);
+	}
+
+	void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	private static Duration percentile(long[] counts, long total, double quantile) {
+		if (total == 0) {
+			return Duration.ZERO;
+		}
+		long rank = (long) Math.ceil(total * quantile);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				// Bucket i holds values below 2^i microseconds.
+				return Duration.ofNanos((1L << i) * 1_000);
+			}
+		}
+		return Duration.ofNanos((1L << (counts.length - 1)) * 1_000);
+	}
+}
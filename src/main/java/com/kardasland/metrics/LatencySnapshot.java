@@ -0,0 +1,9 @@
+package com.kardasland.metrics;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of a {@link LatencyHistogram}.
+ */
+public record LatencySnapshot(long count, Duration mean, Duration p50, Duration p95, Duration p99, Duration max) {
+}
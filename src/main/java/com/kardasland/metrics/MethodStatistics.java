@@ -0,0 +1,9 @@
+package com.kardasland.metrics;
+
+/**
+ * Calls of one repository method.
+ * @param queued Time between the call and the start of execution on the repository executor.
+ * @param execution Time spent executing, mostly JDBC and Hibernate.
+ */
+public record MethodStatistics(String method, long calls, long failures, LatencySnapshot queued, LatencySnapshot execution) {
+}
@@ -0,0 +1,12 @@
+package com.kardasland.metrics;
+
+import com.kardasland.cache.CacheStatistics;
+
+import java.util.List;
+
+/**
+ * Everything {@code /jpa stats} shows, as returned by {@link com.kardasland.SpigotJPA#getMetrics}.
+ * @param methods Repository methods, slowest total execution time first.
+ */
+public record MetricsSnapshot(List<MethodStatistics> methods, PoolStatistics pool, HibernateStatistics hibernate, CacheStatistics cache) {
+}
@@ -0,0 +1,9 @@
+package com.kardasland.metrics;
+
+/**
+ * Connection pool usage, summed over the writer and reader pools.
+ * @param waiting Threads currently blocked waiting for a connection.
+ * @param acquire Time taken to borrow a connection from the pool.
+ */
+public record PoolStatistics(int active, int idle, int total, int waiting, LatencySnapshot acquire) {
+}
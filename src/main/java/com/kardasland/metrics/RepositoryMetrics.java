@@ -0,0 +1,103 @@
+package com.kardasland.metrics;
+
+import com.kardasland.MetricsConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Collects per-method call counts and latencies for repositories and connection acquire times for the pool,
+ * and logs calls slower than {@link MetricsConfig#getSlowQueryThreshold()}.
+ */
+public final class RepositoryMetrics {
+
+	private static final RepositoryMetrics DISABLED = new RepositoryMetrics(null, MetricsConfig.builder().enabled(false).build());
+
+	private final Logger logger;
+	private final boolean enabled;
+	private final long slowQueryNanos;
+	private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+	private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+
+	public RepositoryMetrics(Logger logger, MetricsConfig config) {
+		this.logger = logger;
+		this.enabled = config.isEnabled();
+		Duration threshold = config.getSlowQueryThreshold();
+		this.slowQueryNanos = threshold != null ? threshold.toNanos() : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Metrics that record nothing, for repositories created without a {@link com.kardasland.DatabaseManager}.
+	 */
+	public static RepositoryMetrics disabled() {
+		return DISABLED;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param method The repository method, as {@code Repository.method}.
+	 * @param queuedNanos Time between the call and the start of execution.
+	 * @param executionNanos Time spent executing.
+	 * @param parameterCount Number of bound query parameters, reported in the slow-query log.
+	 */
+	public void record(String method, long queuedNanos, long executionNanos, int parameterCount, boolean failed) {
+		if (!enabled) {
+			return;
+		}
+		MethodMetrics metrics = methods.computeIfAbsent(method, ignored -> new MethodMetrics());
+		metrics.calls.increment();
+		if (failed) {
+			metrics.failures.increment();
+		}
+		metrics.queued.record(queuedNanos);
+		metrics.execution.record(executionNanos);
+		if (executionNanos >= slowQueryNanos) {
+			logger.warning(String.format("Slow query %s took %d ms (queued %d ms, %d bound parameter(s))",
+				method, TimeUnit.NANOSECONDS.toMillis(executionNanos), TimeUnit.NANOSECONDS.toMillis(queuedNanos), parameterCount));
+		}
+	}
+
+	public void recordConnectionAcquired(long nanos) {
+		if (enabled) {
+			connectionAcquire.record(nanos);
+		}
+	}
+
+	public List<MethodStatistics> getMethodStatistics() {
+		List<MethodStatistics> statistics = new ArrayList<>(methods.size());
+		methods.forEach((method, metrics) -> statistics.add(new MethodStatistics(
+			method, metrics.calls.sum(), metrics.failures.sum(), metrics.queued.snapshot(), metrics.execution.snapshot()
+		)));
+		statistics.sort(Comparator.comparingLong((MethodStatistics s) -> s.execution().mean().toNanos() * s.execution().count()).reversed());
+		return statistics;
+	}
+
+	public LatencySnapshot getConnectionAcquireLatency() {
+		return connectionAcquire.snapshot();
+	}
+
+	/**
+	 * Clears every method and pool histogram, e.g. to measure a single test window.
+	 */
+	public void reset() {
+		methods.clear();
+		connectionAcquire.reset();
+	}
+
+	private static final class MethodMetrics {
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LatencyHistogram queued = new LatencyHistogram();
+		private final LatencyHistogram execution = new LatencyHistogram();
+	}
+}
@@ -0,0 +1,229 @@
+package com.kardasland.migration;
+
+import com.kardasland.annotation.Indexed;
+import com.kardasland.repository.CrudRepository;
+import com.kardasland.repository.Sort;
+import com.kardasland.repository.query.Part;
+import com.kardasland.repository.query.PartTree;
+import org.hibernate.boot.spi.MetadataImplementor;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Creates the indexes declared with {@link Indexed} on repository query methods.
+ * An index is skipped when an existing one, including the primary key, already starts with the same columns,
+ * so only that table's index metadata is read.
+ */
+public final class DerivedIndexes {
+
+	private static final int MAX_NAME_LENGTH = 60;
+
+	private DerivedIndexes() {
+	}
+
+	record IndexDefinition(String name, String table, List<String> columns) {
+	}
+
+	/**
+	 * @return The number of indexes created.
+	 */
+	public static int create(DataSource dataSource, MetadataImplementor metadata, Collection<Class<?>> repositories, Logger logger) {
+		List<IndexDefinition> definitions = new ArrayList<>();
+		for (Class<?> repository : repositories) {
+			definitions.addAll(derive(metadata, repository));
+		}
+		if (definitions.isEmpty()) {
+			return 0;
+		}
+		int created = 0;
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			Map<String, List<List<String>>> existingByTable = new LinkedHashMap<>();
+			for (IndexDefinition definition : definitions) {
+				List<List<String>> existing = existingByTable.get(definition.table());
+				if (existing == null) {
+					existing = readIndexes(connection.getMetaData(), definition.table());
+					existingByTable.put(definition.table(), existing);
+				}
+				if (isCovered(existing, definition.columns())) {
+					continue;
+				}
+				statement.execute("CREATE INDEX " + definition.name() + " ON " + definition.table() + " (" + String.join(", ", definition.columns()) + ")");
+				existing.add(definition.columns());
+				logger.info("Created index " + definition.name() + " on " + definition.table() + " " + definition.columns());
+				created++;
+			}
+		} catch (SQLException e) {
+			throw new MigrationException("Could not create derived indexes: " + e.getMessage(), e);
+		}
+		return created;
+	}
+
+	static List<IndexDefinition> derive(MetadataImplementor metadata, Class<?> repository) {
+		Class<?> entityType = entityType(repository);
+		PersistentClass entity = entityType != null ? metadata.getEntityBinding(entityType.getName()) : null;
+		List<IndexDefinition> definitions = new ArrayList<>();
+		for (Method method : repository.getMethods()) {
+			Indexed indexed = method.getAnnotation(Indexed.class);
+			if (indexed == null) {
+				continue;
+			}
+			if (entity == null) {
+				throw new MigrationException(repository.getSimpleName() + "." + method.getName() + " is @Indexed, but its entity is not mapped");
+			}
+			PartTree tree = PartTree.parse(method.getName(), path -> hasProperty(entity, path));
+			List<List<Part>> branches = tree.getPredicate().isEmpty() ? List.of(List.of()) : tree.getPredicate();
+			for (int i = 0; i < branches.size(); i++) {
+				List<String> columns = columns(entity, branches.get(i), tree.getSort());
+				if (columns.isEmpty()) {
+					continue;
+				}
+				String table = entity.getTable().getName();
+				String name = indexed.name().isEmpty() ? indexName(table, columns) : indexed.name() + (branches.size() > 1 ? "_" + i : "");
+				definitions.add(new IndexDefinition(name, table, columns));
+			}
+		}
+		return definitions;
+	}
+
+	/**
+	 * Equality columns first, then sort keys, then range columns: the order in which one index can serve all three.
+	 */
+	private static List<String> columns(PersistentClass entity, List<Part> conjunction, Sort sort) {
+		Set<String> equality = new LinkedHashSet<>();
+		Set<String> range = new LinkedHashSet<>();
+		for (Part part : conjunction) {
+			switch (part.type()) {
+				case WITHIN -> {
+					equality.addAll(columnsOf(entity, part.property() + ".worldId"));
+					range.addAll(columnsOf(entity, part.property() + ".x"));
+				}
+				case IN_CHUNK -> {
+					equality.addAll(columnsOf(entity, part.property() + ".worldId"));
+					equality.addAll(columnsOf(entity, part.property() + ".chunkKey"));
+				}
+				case SIMPLE_PROPERTY, EQUALS, IN, TRUE, FALSE, IS_NULL -> equality.addAll(columnsOf(entity, part.property()));
+				case BETWEEN, LESS_THAN, LESS_THAN_EQUAL, GREATER_THAN, GREATER_THAN_EQUAL, STARTING_WITH -> range.addAll(columnsOf(entity, part.property()));
+				// Negations and infix matches cannot use an index seek.
+				default -> {
+				}
+			}
+		}
+		Set<String> columns = new LinkedHashSet<>(equality);
+		for (Sort.Order order : sort.orders()) {
+			columns.addAll(columnsOf(entity, order.property()));
+		}
+		columns.addAll(range);
+		return List.copyOf(columns);
+	}
+
+	private static List<String> columnsOf(PersistentClass entity, String path) {
+		try {
+			return entity.getRecursiveProperty(path).getColumns().stream().map(Column::getName).toList();
+		} catch (RuntimeException e) {
+			throw new MigrationException("Cannot index " + entity.getEntityName() + "." + path + ": no such mapped property", e);
+		}
+	}
+
+	private static boolean hasProperty(PersistentClass entity, String path) {
+		try {
+			entity.getRecursiveProperty(path);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static Class<?> entityType(Class<?> repository) {
+		for (Type type : repository.getGenericInterfaces()) {
+			if (type instanceof ParameterizedType parameterized && parameterized.getRawType() == CrudRepository.class) {
+				return parameterized.getActualTypeArguments()[0] instanceof Class<?> entity ? entity : null;
+			}
+			if (type instanceof Class<?> parent && CrudRepository.class.isAssignableFrom(parent)) {
+				Class<?> entity = entityType(parent);
+				if (entity != null) {
+					return entity;
+				}
+			}
+		}
+		return null;
+	}
+
+	static String indexName(String table, List<String> columns) {
+		String name = ("idx_" + table + "_" + String.join("_", columns)).toLowerCase(Locale.ROOT);
+		if (name.length() <= MAX_NAME_LENGTH) {
+			return name;
+		}
+		String hash = Integer.toHexString(name.hashCode());
+		return name.substring(0, MAX_NAME_LENGTH - hash.length() - 1) + "_" + hash;
+	}
+
+	private static boolean isCovered(List<List<String>> existing, List<String> columns) {
+		for (List<String> index : existing) {
+			if (index.size() < columns.size()) {
+				continue;
+			}
+			boolean prefix = true;
+			for (int i = 0; i < columns.size() && prefix; i++) {
+				prefix = index.get(i).equalsIgnoreCase(columns.get(i));
+			}
+			if (prefix) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Column lists of the table's indexes and primary key. Databases fold unquoted names differently, so the table
+	 * is looked up as written, in upper case and in lower case.
+	 */
+	private static List<List<String>> readIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+		List<List<String>> indexes = new ArrayList<>();
+		for (String candidate : new LinkedHashSet<>(List.of(table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT)))) {
+			Map<String, Map<Integer, String>> columnsByIndex = new LinkedHashMap<>();
+			try (ResultSet rows = metaData.getIndexInfo(null, null, candidate, false, false)) {
+				while (rows.next()) {
+					String name = rows.getString("INDEX_NAME");
+					String column = rows.getString("COLUMN_NAME");
+					if (name != null && column != null) {
+						columnsByIndex.computeIfAbsent(name, ignored -> new TreeMap<>()).put((int) rows.getShort("ORDINAL_POSITION"), column);
+					}
+				}
+			}
+			Map<Integer, String> primaryKey = new TreeMap<>();
+			try (ResultSet rows = metaData.getPrimaryKeys(null, null, candidate)) {
+				while (rows.next()) {
+					primaryKey.put((int) rows.getShort("KEY_SEQ"), rows.getString("COLUMN_NAME"));
+				}
+			}
+			columnsByIndex.values().forEach(columns -> indexes.add(new ArrayList<>(columns.values())));
+			if (!primaryKey.isEmpty()) {
+				indexes.add(new ArrayList<>(primaryKey.values()));
+			}
+			if (!indexes.isEmpty()) {
+				break;
+			}
+		}
+		return indexes;
+	}
+}
@@ -0,0 +1,29 @@
+package com.kardasland.migration;
+
+import java.sql.Connection;
+
+/**
+ * A migration written in Java, for changes SQL alone cannot express such as rewriting stored values.
+ * Registered through {@link com.kardasland.MigrationConfig#getJavaMigrations()}.
+ */
+public interface JavaMigration {
+
+	/**
+	 * Version in the same format as SQL migration file names, e.g. {@code "3"} or {@code "3.1"}.
+	 */
+	String version();
+
+	String description();
+
+	/**
+	 * Runs inside the migration's transaction; do not commit or close the connection.
+	 */
+	void migrate(Connection connection) throws Exception;
+
+	/**
+	 * Recorded in the history table and compared on later starts. Change it when the migration's behaviour changes.
+	 */
+	default long checksum() {
+		return 0;
+	}
+}
@@ -0,0 +1,39 @@
+package com.kardasland.migration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * A migration found in the plugin jar or configuration: either a SQL script or a {@link JavaMigration}.
+ */
+record Migration(MigrationVersion version, String description, String script, JavaMigration java, long checksum) {
+
+	static final Pattern SQL_FILE = Pattern.compile("V(\\d+(?:[._]\\d+)*)__(.+)\\.sql");
+
+	static Migration sql(String fileName, String script) {
+		Matcher matcher = SQL_FILE.matcher(fileName);
+		if (!matcher.matches()) {
+			throw new MigrationException("Migration file name must look like V1__description.sql: " + fileName);
+		}
+		// Normalized so the checksum does not depend on how the file was checked out.
+		String normalized = script.replace("\r\n", "\n");
+		CRC32 crc = new CRC32();
+		crc.update(normalized.getBytes(StandardCharsets.UTF_8));
+		return new Migration(MigrationVersion.parse(matcher.group(1)), matcher.group(2).replace('_', ' '), normalized, null, crc.getValue());
+	}
+
+	static Migration java(JavaMigration migration) {
+		return new Migration(MigrationVersion.parse(migration.version()), migration.description(), null, migration, migration.checksum());
+	}
+
+	String type() {
+		return java != null ? "JAVA" : "SQL";
+	}
+
+	@Override
+	public String toString() {
+		return "V" + version + " (" + description + ")";
+	}
+}
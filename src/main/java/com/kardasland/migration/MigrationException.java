@@ -0,0 +1,15 @@
+package com.kardasland.migration;
+
+/**
+ * Thrown when a migration fails, or when the applied history no longer matches the migrations in the plugin.
+ */
+public class MigrationException extends RuntimeException {
+
+	public MigrationException(String message) {
+		super(message);
+	}
+
+	public MigrationException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,254 @@
+package com.kardasland.migration;
+
+import com.kardasland.MigrationConfig;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Applies versioned migrations in order and records each one, with its checksum, in a history table.
+ * Rows are keyed by owner and version, so plugins sharing a database and history table keep separate histories.
+ * Each migration runs in its own transaction. MySQL commits DDL implicitly, so a failed migration there may
+ * leave part of its changes behind and has to be repaired by hand before the next start.
+ */
+public final class MigrationRunner {
+
+	private final DataSource dataSource;
+	private final String historyTable;
+	private final String owner;
+	private final List<Migration> migrations;
+	private final Logger logger;
+
+	/**
+	 * @param owner Whose migrations these are, normally the plugin name.
+	 */
+	MigrationRunner(DataSource dataSource, String historyTable, String owner, List<Migration> migrations, Logger logger) {
+		this.dataSource = dataSource;
+		this.historyTable = historyTable;
+		this.owner = owner;
+		this.migrations = migrations.stream().sorted(Comparator.comparing(Migration::version)).toList();
+		this.logger = logger;
+		for (int i = 1; i < this.migrations.size(); i++) {
+			if (this.migrations.get(i).version().equals(this.migrations.get(i - 1).version())) {
+				throw new MigrationException("Found two migrations with version " + this.migrations.get(i).version());
+			}
+		}
+	}
+
+	/**
+	 * Collects the SQL migrations in the plugin jar and the configured Java migrations.
+	 */
+	public static MigrationRunner forPlugin(JavaPlugin plugin, DataSource dataSource, MigrationConfig config) {
+		List<Migration> migrations = new ArrayList<>();
+		loadSqlMigrations(plugin, config.getLocation(), migrations);
+		config.getJavaMigrations().forEach(migration -> migrations.add(Migration.java(migration)));
+		return new MigrationRunner(dataSource, config.getHistoryTable(), plugin.getName(), migrations, plugin.getLogger());
+	}
+
+	/**
+	 * Applies every migration newer than the history.
+	 * @return The number of migrations applied.
+	 * @throws MigrationException If an applied migration was modified, a new migration is older than the latest
+	 * applied one, or a migration fails.
+	 */
+	public int migrate() {
+		try (Connection connection = dataSource.getConnection()) {
+			createHistoryTable(connection);
+			Map<MigrationVersion, Long> applied = readHistory(connection);
+			checkApplied(applied);
+			MigrationVersion latest = applied.keySet().stream().max(Comparator.naturalOrder()).orElse(null);
+			int count = 0;
+			for (Migration migration : migrations) {
+				if (applied.containsKey(migration.version())) {
+					continue;
+				}
+				if (latest != null && migration.version().compareTo(latest) < 0) {
+					throw new MigrationException("Migration " + migration + " is older than the latest applied version " + latest);
+				}
+				apply(connection, migration);
+				count++;
+			}
+			return count;
+		} catch (SQLException e) {
+			throw new MigrationException("Could not read the migration history: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Checks that every migration has been applied unchanged, without applying anything.
+	 */
+	public void validate() {
+		try (Connection connection = dataSource.getConnection()) {
+			createHistoryTable(connection);
+			Map<MigrationVersion, Long> applied = readHistory(connection);
+			checkApplied(applied);
+			List<Migration> pending = migrations.stream().filter(migration -> !applied.containsKey(migration.version())).toList();
+			if (!pending.isEmpty()) {
+				throw new MigrationException(pending.size() + " migration(s) pending, starting with " + pending.getFirst());
+			}
+		} catch (SQLException e) {
+			throw new MigrationException("Could not read the migration history: " + e.getMessage(), e);
+		}
+	}
+
+	private void checkApplied(Map<MigrationVersion, Long> applied) {
+		Map<MigrationVersion, Migration> byVersion = new HashMap<>();
+		migrations.forEach(migration -> byVersion.put(migration.version(), migration));
+		for (Map.Entry<MigrationVersion, Long> entry : applied.entrySet()) {
+			Migration migration = byVersion.get(entry.getKey());
+			if (migration == null) {
+				logger.warning("Applied migration V" + entry.getKey() + " is no longer part of the plugin.");
+			} else if (migration.checksum() != entry.getValue()) {
+				throw new MigrationException("Migration " + migration + " was changed after it was applied (checksum "
+					+ entry.getValue() + ", now " + migration.checksum() + ")");
+			}
+		}
+	}
+
+	private void apply(Connection connection, Migration migration) {
+		long start = System.nanoTime();
+		boolean autoCommit;
+		try {
+			autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			throw new MigrationException("Could not start migration " + migration, e);
+		}
+		try {
+			if (migration.java() != null) {
+				migration.java().migrate(connection);
+			} else {
+				try (Statement statement = connection.createStatement()) {
+					for (String sql : SqlScript.split(migration.script())) {
+						statement.execute(sql);
+					}
+				}
+			}
+			long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + historyTable
+				+ " (owner, version, description, migration_type, checksum, installed_on, execution_time) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+				insert.setString(1, owner);
+				insert.setString(2, migration.version().toString());
+				insert.setString(3, truncate(migration.description(), 200));
+				insert.setString(4, migration.type());
+				insert.setLong(5, migration.checksum());
+				insert.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+				insert.setLong(7, millis);
+				insert.executeUpdate();
+			}
+			connection.commit();
+			logger.info("Applied migration " + migration + " in " + millis + " ms");
+		} catch (Exception e) {
+			try {
+				connection.rollback();
+			} catch (SQLException rollbackFailure) {
+				e.addSuppressed(rollbackFailure);
+			}
+			throw new MigrationException("Migration " + migration + " failed: " + e.getMessage(), e);
+		} finally {
+			try {
+				connection.setAutoCommit(autoCommit);
+			} catch (SQLException ignored) {
+				// The connection is returned to the pool, which resets it.
+			}
+		}
+	}
+
+	private void createHistoryTable(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS " + historyTable + " ("
+				+ "owner VARCHAR(100) NOT NULL, "
+				+ "version VARCHAR(50) NOT NULL, "
+				+ "description VARCHAR(200) NOT NULL, "
+				+ "migration_type VARCHAR(10) NOT NULL, "
+				+ "checksum BIGINT NOT NULL, "
+				+ "installed_on TIMESTAMP NOT NULL, "
+				+ "execution_time BIGINT NOT NULL, "
+				+ "PRIMARY KEY (owner, version))");
+		}
+	}
+
+	private Map<MigrationVersion, Long> readHistory(Connection connection) throws SQLException {
+		Map<MigrationVersion, Long> applied = new HashMap<>();
+		try (PreparedStatement select = connection.prepareStatement("SELECT version, checksum FROM " + historyTable + " WHERE owner = ?")) {
+			select.setString(1, owner);
+			try (ResultSet rows = select.executeQuery()) {
+				while (rows.next()) {
+					applied.put(MigrationVersion.parse(rows.getString(1)), rows.getLong(2));
+				}
+			}
+		}
+		return applied;
+	}
+
+	private static void loadSqlMigrations(JavaPlugin plugin, String location, List<Migration> migrations) {
+		CodeSource codeSource = plugin.getClass().getProtectionDomain().getCodeSource();
+		if (codeSource == null || codeSource.getLocation() == null) {
+			return;
+		}
+		String prefix = location.endsWith("/") ? location : location + "/";
+		try {
+			Path source = Path.of(codeSource.getLocation().toURI());
+			if (Files.isDirectory(source)) {
+				Path directory = source.resolve(prefix);
+				if (!Files.isDirectory(directory)) {
+					return;
+				}
+				try (Stream<Path> files = Files.list(directory)) {
+					for (Path file : files.toList()) {
+						if (Migration.SQL_FILE.matcher(file.getFileName().toString()).matches()) {
+							migrations.add(Migration.sql(file.getFileName().toString(), Files.readString(file, StandardCharsets.UTF_8)));
+						}
+					}
+				}
+				return;
+			}
+			try (JarFile jar = new JarFile(source.toFile())) {
+				Enumeration<JarEntry> entries = jar.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					String name = entry.getName();
+					if (!name.startsWith(prefix) || name.indexOf('/', prefix.length()) != -1) {
+						continue;
+					}
+					String fileName = name.substring(prefix.length());
+					if (Migration.SQL_FILE.matcher(fileName).matches()) {
+						try (InputStream in = jar.getInputStream(entry)) {
+							migrations.add(Migration.sql(fileName, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+						}
+					}
+				}
+			}
+		} catch (IOException | URISyntaxException e) {
+			throw new MigrationException("Could not read migrations from " + codeSource.getLocation(), e);
+		}
+	}
+
+	private static String truncate(String value, int length) {
+		return value.length() <= length ? value : value.substring(0, length);
+	}
+}
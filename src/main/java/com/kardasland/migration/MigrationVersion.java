@@ -0,0 +1,58 @@
+package com.kardasland.migration;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * A dotted migration version. {@code 1_2} and {@code 1.2} are the same version, and {@code 1.10} sorts after {@code 1.9}.
+ */
+record MigrationVersion(long[] parts) implements Comparable<MigrationVersion> {
+
+	private static final Pattern FORMAT = Pattern.compile("\\d+([._]\\d+)*");
+
+	static MigrationVersion parse(String version) {
+		if (!FORMAT.matcher(version).matches()) {
+			throw new MigrationException("Invalid migration version: " + version);
+		}
+		return new MigrationVersion(Arrays.stream(version.split("[._]")).mapToLong(Long::parseLong).toArray());
+	}
+
+	@Override
+	public int compareTo(MigrationVersion other) {
+		for (int i = 0; i < Math.max(parts.length, other.parts.length); i++) {
+			long mine = i < parts.length ? parts[i] : 0;
+			long theirs = i < other.parts.length ? other.parts[i] : 0;
+			if (mine != theirs) {
+				return Long.compare(mine, theirs);
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof MigrationVersion version && compareTo(version) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		// Trailing zeros do not change the version.
+		int length = parts.length;
+		while (length > 1 && parts[length - 1] == 0) {
+			length--;
+		}
+		return Arrays.hashCode(Arrays.copyOf(parts, length));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder version = new StringBuilder();
+		for (long part : parts) {
+			if (!version.isEmpty()) {
+				version.append('.');
+			}
+			version.append(part);
+		}
+		return version.toString();
+	}
+}
@@ -0,0 +1,69 @@
+package com.kardasland.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a migration script into statements on {@code ;}, ignoring semicolons in comments, string literals and quoted identifiers.
+ */
+final class SqlScript {
+
+	private SqlScript() {
+	}
+
+	static List<String> split(String script) {
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		int length = script.length();
+		for (int i = 0; i < length; i++) {
+			char c = script.charAt(i);
+			char next = i + 1 < length ? script.charAt(i + 1) : 0;
+			if (c == '-' && next == '-') {
+				int end = script.indexOf('\n', i);
+				i = end == -1 ? length : end;
+				current.append('\n');
+			} else if (c == '/' && next == '*') {
+				int end = script.indexOf("*/", i + 2);
+				i = end == -1 ? length : end + 1;
+				current.append(' ');
+			} else if (c == '\'' || c == '"' || c == '`') {
+				int end = closingQuote(script, i);
+				current.append(script, i, end + 1);
+				i = end;
+			} else if (c == ';') {
+				add(statements, current);
+			} else {
+				current.append(c);
+			}
+		}
+		add(statements, current);
+		return statements;
+	}
+
+	/**
+	 * Index of the quote closing the one at {@code start}; doubled quotes are escapes.
+	 */
+	private static int closingQuote(String script, int start) {
+		char quote = script.charAt(start);
+		int i = start + 1;
+		while (i < script.length()) {
+			if (script.charAt(i) == quote) {
+				if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+					i += 2;
+					continue;
+				}
+				return i;
+			}
+			i++;
+		}
+		throw new MigrationException("Unterminated " + quote + " in migration script");
+	}
+
+	private static void add(List<String> statements, StringBuilder current) {
+		String statement = current.toString().strip();
+		if (!statement.isEmpty()) {
+			statements.add(statement);
+		}
+		current.setLength(0);
+	}
+}
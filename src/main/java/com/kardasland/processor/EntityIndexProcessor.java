@@ -0,0 +1,125 @@
+package com.kardasland.processor;
+
+import com.kardasland.index.EntityIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes {@value EntityIndex#RESOURCE} so {@link com.kardasland.DatabaseManager} can find entities, converters and
+ * repositories without scanning the classpath. Picked up automatically when spigot-jpa-bridge is on the annotation
+ * processor path of a plugin build.
+ */
+@SupportedAnnotationTypes("*")
+public class EntityIndexProcessor extends AbstractProcessor {
+
+	private static final String ENTITY_ANNOTATION = "jakarta.persistence.Entity";
+	private static final String CONVERTER_ANNOTATION = "jakarta.persistence.Converter";
+	private static final String CRUD_REPOSITORY = "com.kardasland.repository.CrudRepository";
+
+	// Sorted by class name so the generated file is reproducible.
+	private final Map<String, String> indexed = new TreeMap<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(java.util.Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			writeIndex();
+			return false;
+		}
+		TypeElement crudRepository = processingEnv.getElementUtils().getTypeElement(CRUD_REPOSITORY);
+		TypeMirror crudRepositoryType = crudRepository != null
+			? processingEnv.getTypeUtils().erasure(crudRepository.asType())
+			: null;
+		for (Element element : roundEnv.getRootElements()) {
+			if (element instanceof TypeElement type) {
+				index(type, crudRepositoryType);
+			}
+		}
+		return false;
+	}
+
+	private void index(TypeElement type, TypeMirror crudRepositoryType) {
+		String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+		if (hasAnnotation(type, ENTITY_ANNOTATION)) {
+			indexed.put(name, EntityIndex.ENTITY);
+		} else if (hasAnnotation(type, CONVERTER_ANNOTATION)) {
+			indexed.put(name, EntityIndex.CONVERTER);
+		} else if (type.getKind() == ElementKind.INTERFACE && crudRepositoryType != null
+			&& !type.getQualifiedName().contentEquals(CRUD_REPOSITORY)
+			&& processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type.asType()), crudRepositoryType)) {
+			indexed.put(name, EntityIndex.REPOSITORY);
+		}
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed instanceof TypeElement nested) {
+				index(nested, crudRepositoryType);
+			}
+		}
+	}
+
+	private boolean hasAnnotation(TypeElement type, String annotationName) {
+		return type.getAnnotationMirrors().stream()
+			.anyMatch(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName));
+	}
+
+	private void writeIndex() {
+		mergePreviousIndex();
+		try {
+			FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", EntityIndex.RESOURCE);
+			try (Writer writer = resource.openWriter()) {
+				writer.write("# Generated by " + getClass().getName() + "\n");
+				for (Map.Entry<String, String> entry : indexed.entrySet()) {
+					writer.write(entry.getValue() + " " + entry.getKey() + "\n");
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + EntityIndex.RESOURCE + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Incremental builds only process changed sources, so entries from the previous index are kept
+	 * as long as their classes still exist.
+	 */
+	private void mergePreviousIndex() {
+		EntityIndex previous = new EntityIndex();
+		try {
+			FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", EntityIndex.RESOURCE);
+			try (Reader reader = new java.io.InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8)) {
+				previous.read(reader);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			return;
+		}
+		keepExisting(previous.getEntities(), EntityIndex.ENTITY);
+		keepExisting(previous.getConverters(), EntityIndex.CONVERTER);
+		keepExisting(previous.getRepositories(), EntityIndex.REPOSITORY);
+	}
+
+	private void keepExisting(java.util.Set<String> classNames, String kind) {
+		for (String className : classNames) {
+			if (!indexed.containsKey(className) && processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+				indexed.put(className, kind);
+			}
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.kardasland.processor;
+
+import com.kardasland.repository.query.PartTree;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes a {@code <Repository>_Impl} class for every {@code CrudRepository} sub-interface, which
+ * {@link com.kardasland.repository.RepositoryFactory} instantiates instead of a dynamic proxy.
+ * Derived query method names are parsed here as well, so a malformed name fails the build instead of plugin startup.
+ * Repositories the processor cannot implement, such as ones with generic methods, are left to the proxy.
+ */
+@SupportedAnnotationTypes("*")
+public class RepositoryProcessor extends AbstractProcessor {
+
+	private static final String CRUD_REPOSITORY = "com.kardasland.repository.CrudRepository";
+	private static final String GENERATED_REPOSITORY = "com.kardasland.repository.GeneratedRepository";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement crudRepository = processingEnv.getElementUtils().getTypeElement(CRUD_REPOSITORY);
+		if (crudRepository == null || roundEnv.processingOver()) {
+			return false;
+		}
+		for (Element element : roundEnv.getRootElements()) {
+			if (element instanceof TypeElement type) {
+				visit(type, crudRepository);
+			}
+		}
+		return false;
+	}
+
+	private void visit(TypeElement type, TypeElement crudRepository) {
+		Types types = processingEnv.getTypeUtils();
+		if (type.getKind() == ElementKind.INTERFACE && !type.equals(crudRepository)
+			&& types.isAssignable(types.erasure(type.asType()), types.erasure(crudRepository.asType()))) {
+			generate(type, crudRepository);
+		}
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed instanceof TypeElement nested) {
+				visit(nested, crudRepository);
+			}
+		}
+	}
+
+	private void generate(TypeElement repository, TypeElement crudRepository) {
+		if (!repository.getTypeParameters().isEmpty() || !isAccessible(repository)) {
+			return;
+		}
+		DeclaredType crudType = findSupertype((DeclaredType) repository.asType(), crudRepository);
+		if (crudType == null || crudType.getTypeArguments().stream().anyMatch(argument -> argument.getKind() != TypeKind.DECLARED)) {
+			return;
+		}
+
+		List<ExecutableElement> methods = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		boolean valid = true;
+		for (Element member : processingEnv.getElementUtils().getAllMembers(repository)) {
+			if (!(member instanceof ExecutableElement method) || !method.getModifiers().contains(Modifier.ABSTRACT)
+				|| method.getEnclosingElement().equals(crudRepository)) {
+				continue;
+			}
+			try {
+				PartTree.parse(method.getSimpleName().toString());
+			} catch (IllegalArgumentException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot derive a query from " + method.getSimpleName() + ": " + e.getMessage(), method);
+				valid = false;
+				continue;
+			}
+			if (!method.getTypeParameters().isEmpty()) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Generic method " + method.getSimpleName() + " is served by the repository proxy", method);
+				return;
+			}
+			if (signatures.add(signature(repository, method))) {
+				methods.add(method);
+			}
+		}
+		if (!valid) {
+			return;
+		}
+
+		String packageName = processingEnv.getElementUtils().getPackageOf(repository).getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(repository).toString();
+		String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + "_Impl";
+		String source = render(repository, crudType, packageName, simpleName, methods);
+		if (source == null) {
+			return;
+		}
+		try {
+			String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+			try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, repository).openWriter()) {
+				writer.write(source);
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + simpleName + ": " + e.getMessage(), repository);
+		}
+	}
+
+	/**
+	 * @return The source, or {@code null} if a type cannot be written back as source, such as one carrying type annotations.
+	 */
+	private String render(TypeElement repository, DeclaredType crudType, String packageName, String simpleName, List<ExecutableElement> methods) {
+		Types types = processingEnv.getTypeUtils();
+		DeclaredType repositoryType = (DeclaredType) repository.asType();
+		StringBuilder fields = new StringBuilder();
+		StringBuilder constructor = new StringBuilder();
+		StringBuilder bodies = new StringBuilder();
+		Set<String> fieldNames = new HashSet<>();
+
+		for (ExecutableElement method : methods) {
+			ExecutableType resolved = (ExecutableType) types.asMemberOf(repositoryType, method);
+			String methodName = method.getSimpleName().toString();
+			String field = methodName;
+			for (int i = 1; !fieldNames.add(field); i++) {
+				field = methodName + i;
+			}
+
+			List<String> parameters = new ArrayList<>();
+			List<String> arguments = new ArrayList<>();
+			List<String> classLiterals = new ArrayList<>();
+			List<? extends VariableElement> parameterElements = method.getParameters();
+			for (int i = 0; i < parameterElements.size(); i++) {
+				String parameterType = sourceOf(resolved.getParameterTypes().get(i));
+				if (parameterType == null) {
+					return null;
+				}
+				String name = parameterElements.get(i).getSimpleName().toString();
+				parameters.add(parameterType + " " + name);
+				arguments.add(name);
+				// The declared erasure, which is what reflection reports for methods inherited from generic interfaces.
+				classLiterals.add(types.erasure(parameterElements.get(i).asType()) + ".class");
+			}
+			String returnType = sourceOf(resolved.getReturnType());
+			if (returnType == null) {
+				return null;
+			}
+
+			fields.append("\tprivate final CompiledQuery ").append(field).append(";\n");
+			constructor.append("\t\tthis.").append(field).append(" = compiled(\"").append(methodName).append('"');
+			classLiterals.forEach(literal -> constructor.append(", ").append(literal));
+			constructor.append(");\n");
+			bodies.append("\n\t@Override\n\tpublic ").append(returnType).append(' ').append(methodName)
+				.append('(').append(String.join(", ", parameters)).append(") {\n")
+				.append("\t\treturn execute(this.").append(field).append(", new Object[]{")
+				.append(String.join(", ", arguments)).append("});\n\t}\n");
+		}
+
+		String entityType = sourceOf(crudType.getTypeArguments().get(0));
+		String idType = sourceOf(crudType.getTypeArguments().get(1));
+		if (entityType == null || idType == null) {
+			return null;
+		}
+		StringBuilder source = new StringBuilder();
+		if (!packageName.isEmpty()) {
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("import ").append(GENERATED_REPOSITORY).append(";\n\n")
+			.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+			.append("public final class ").append(simpleName)
+			.append(" extends GeneratedRepository<").append(entityType).append(", ").append(idType).append(">")
+			.append(" implements ").append(repository.getQualifiedName()).append(" {\n\n")
+			.append(fields)
+			.append("\n\tpublic ").append(simpleName).append("(com.kardasland.repository.RepositoryInvocationHandler handler) {\n")
+			.append("\t\tsuper(handler);\n")
+			.append(constructor)
+			.append("\t}\n")
+			.append(bodies)
+			.append("}\n");
+		return source.toString();
+	}
+
+	private static String sourceOf(TypeMirror type) {
+		String source = type.toString();
+		return source.indexOf('@') == -1 ? source : null;
+	}
+
+	private DeclaredType findSupertype(DeclaredType type, TypeElement target) {
+		if (type.asElement().equals(target)) {
+			return type;
+		}
+		for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+			if (supertype instanceof DeclaredType declared) {
+				DeclaredType found = findSupertype(declared, target);
+				if (found != null) {
+					return found;
+				}
+			}
+		}
+		return null;
+	}
+
+	private String signature(TypeElement repository, ExecutableElement method) {
+		ExecutableType resolved = (ExecutableType) processingEnv.getTypeUtils().asMemberOf((DeclaredType) repository.asType(), method);
+		StringBuilder signature = new StringBuilder(method.getSimpleName());
+		for (TypeMirror parameterType : resolved.getParameterTypes()) {
+			signature.append(',').append(processingEnv.getTypeUtils().erasure(parameterType));
+		}
+		return signature.toString();
+	}
+
+	/**
+	 * Private nested interfaces cannot be implemented from a top-level class in the same package.
+	 */
+	private static boolean isAccessible(TypeElement type) {
+		for (Element element = type; !(element instanceof PackageElement); element = element.getEnclosingElement()) {
+			if (element.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
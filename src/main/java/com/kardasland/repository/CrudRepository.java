@@ -2,10 +2,43 @@ package com.kardasland.repository;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface CrudRepository<T, ID> {
 	CompletableFuture<T> findById(ID id);
 	CompletableFuture<Void> save(T entity);
 	CompletableFuture<Void> delete(T entity);
 	CompletableFuture<List<T>> findAll();
+
+	/**
+	 * Loads one page of the table together with the total row count.
+	 */
+	CompletableFuture<Page<T>> findAll(Pageable pageable);
+
+	/**
+	 * Streams the whole table to {@code consumer} in chunks of {@code fetchSize} rows, without holding more than one chunk in memory.
+	 * The consumer runs on the repository executor; the future completes after the last chunk.
+	 */
+	CompletableFuture<Void> streamAll(int fetchSize, Consumer<List<T>> consumer);
+
+	/**
+	 * Saves all entities in a single transaction, using JDBC batching.
+	 */
+	CompletableFuture<Void> saveAll(Iterable<T> entities);
+
+	/**
+	 * Deletes all entities in a single transaction.
+	 */
+	CompletableFuture<Void> deleteAll(Iterable<T> entities);
+
+	/**
+	 * Loads all entities with the given ids using {@code IN} queries, chunked to stay under bind parameter limits.
+	 * Ids without a matching row are skipped.
+	 */
+	CompletableFuture<List<T>> findAllById(Iterable<ID> ids);
+
+	/**
+	 * Deletes all entities with the given ids with a bulk {@code DELETE}, bypassing entity lifecycle callbacks and cascades.
+	 */
+	CompletableFuture<Void> deleteAllById(Iterable<ID> ids);
 }
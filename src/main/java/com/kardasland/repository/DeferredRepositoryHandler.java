@@ -0,0 +1,108 @@
+package com.kardasland.repository;
+
+import com.kardasland.concurrent.RepositoryPriority;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Stands in for a repository while the database is still initializing.
+ * Calls made before then are queued and started in call order as soon as the real repository exists;
+ * afterwards they go straight through. If initialization fails, queued and later calls fail with its exception.
+ */
+final class DeferredRepositoryHandler implements InvocationHandler {
+
+	private final Class<?> repositoryInterface;
+	private final CompletableFuture<?> repository;
+	private final Object lock = new Object();
+	// Null once the repository is ready or has failed.
+	private List<Runnable> queued = new ArrayList<>();
+
+	DeferredRepositoryHandler(Class<?> repositoryInterface, CompletableFuture<?> repository) {
+		this.repositoryInterface = repositoryInterface;
+		this.repository = repository;
+		repository.whenComplete((ready, failure) -> release());
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			return switch (method.getName()) {
+				case "equals" -> proxy == args[0];
+				case "hashCode" -> System.identityHashCode(proxy);
+				default -> "Deferred repository: " + repositoryInterface.getSimpleName();
+			};
+		}
+		if (method.isDefault()) {
+			return InvocationHandler.invokeDefault(proxy, method, args);
+		}
+		if (!CompletableFuture.class.isAssignableFrom(method.getReturnType())) {
+			return invokeTarget(repository.join(), method, args);
+		}
+		synchronized (lock) {
+			if (queued != null) {
+				CompletableFuture<Object> result = new CompletableFuture<>();
+				// Queued calls are started on the initializing thread, so the caller's priority is carried over.
+				RepositoryPriority priority = RepositoryPriority.current(null);
+				queued.add(() -> {
+					CompletableFuture<?> call = priority != null ? priority.call(() -> forward(method, args)) : forward(method, args);
+					call.whenComplete((value, failure) -> {
+						if (failure != null) {
+							result.completeExceptionally(failure);
+						} else {
+							result.complete(value);
+						}
+					});
+				});
+				return result;
+			}
+		}
+		return forward(method, args);
+	}
+
+	/**
+	 * Starts the queued calls. Calls made while they are being started join the queue, so none can overtake them.
+	 */
+	private void release() {
+		while (true) {
+			List<Runnable> calls;
+			synchronized (lock) {
+				if (queued.isEmpty()) {
+					queued = null;
+					return;
+				}
+				calls = queued;
+				queued = new ArrayList<>();
+			}
+			for (Runnable call : calls) {
+				call.run();
+			}
+		}
+	}
+
+	private CompletableFuture<?> forward(Method method, Object[] args) {
+		if (repository.isCompletedExceptionally()) {
+			return CompletableFuture.failedFuture(repository.exceptionNow());
+		}
+		try {
+			return (CompletableFuture<?>) invokeTarget(repository.join(), method, args);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
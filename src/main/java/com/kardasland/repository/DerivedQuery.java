@@ -0,0 +1,93 @@
+package com.kardasland.repository;
+
+import com.kardasland.repository.query.Part;
+import com.kardasland.repository.query.PartTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JPQL rendered from a {@link PartTree}. Arguments are bound as {@code :arg0}, {@code :arg1}, … in method order.
+ * @param argumentCount Number of method arguments the conditions consume.
+ */
+record DerivedQuery(String jpql, int argumentCount, List<SpatialPredicate> spatialPredicates) {
+
+	static DerivedQuery render(PartTree tree, String baseSelect) {
+		StringBuilder jpql = new StringBuilder(baseSelect);
+		List<SpatialPredicate> spatialPredicates = new ArrayList<>();
+		int argIndex = 0;
+
+		if (!tree.getPredicate().isEmpty()) {
+			jpql.append(" WHERE ");
+			// AND binds tighter than OR in JPQL, so the groups need no parentheses.
+			boolean firstDisjunct = true;
+			for (List<Part> conjunction : tree.getPredicate()) {
+				if (!firstDisjunct) {
+					jpql.append(" OR ");
+				}
+				firstDisjunct = false;
+				boolean firstCondition = true;
+				for (Part part : conjunction) {
+					if (!firstCondition) {
+						jpql.append(" AND ");
+					}
+					firstCondition = false;
+					if (part.type() == Part.Type.WITHIN || part.type() == Part.Type.IN_CHUNK) {
+						SpatialPredicate predicate = new SpatialPredicate(part.type(), part.property(), argIndex);
+						spatialPredicates.add(predicate);
+						jpql.append(predicate.jpql());
+					} else {
+						appendCondition(jpql, part, argIndex);
+					}
+					argIndex += part.type().arguments();
+				}
+			}
+		}
+
+		if (!tree.getSort().isUnsorted()) {
+			jpql.append(" ORDER BY ");
+			boolean first = true;
+			for (Sort.Order order : tree.getSort().orders()) {
+				if (!first) {
+					jpql.append(", ");
+				}
+				first = false;
+				jpql.append("e.").append(order.property()).append(order.descending() ? " DESC" : " ASC");
+			}
+		}
+
+		return new DerivedQuery(jpql.toString(), argIndex, List.copyOf(spatialPredicates));
+	}
+
+	private static void appendCondition(StringBuilder jpql, Part part, int argIndex) {
+		String path = "e." + part.property();
+		String arg = ":arg" + argIndex;
+		if (part.ignoreCase()) {
+			path = "UPPER(" + path + ")";
+			arg = "UPPER(" + arg + ")";
+		}
+		switch (part.type()) {
+			case SIMPLE_PROPERTY, EQUALS -> jpql.append(path).append(" = ").append(arg);
+			case NOT -> jpql.append(path).append(" <> ").append(arg);
+			case GREATER_THAN -> jpql.append(path).append(" > ").append(arg);
+			case GREATER_THAN_EQUAL -> jpql.append(path).append(" >= ").append(arg);
+			case LESS_THAN -> jpql.append(path).append(" < ").append(arg);
+			case LESS_THAN_EQUAL -> jpql.append(path).append(" <= ").append(arg);
+			case BETWEEN -> jpql.append("e.").append(part.property())
+				.append(" BETWEEN :arg").append(argIndex).append(" AND :arg").append(argIndex + 1);
+			// Collection-valued arguments are not upper-cased; IgnoreCase only applies to the scalar comparisons.
+			case IN -> jpql.append("e.").append(part.property()).append(" IN :arg").append(argIndex);
+			case NOT_IN -> jpql.append("e.").append(part.property()).append(" NOT IN :arg").append(argIndex);
+			case LIKE -> jpql.append(path).append(" LIKE ").append(arg);
+			case NOT_LIKE -> jpql.append(path).append(" NOT LIKE ").append(arg);
+			case STARTING_WITH -> jpql.append(path).append(" LIKE CONCAT(").append(arg).append(", '%')");
+			case ENDING_WITH -> jpql.append(path).append(" LIKE CONCAT('%', ").append(arg).append(")");
+			case CONTAINING -> jpql.append(path).append(" LIKE CONCAT('%', ").append(arg).append(", '%')");
+			case IS_NULL -> jpql.append("e.").append(part.property()).append(" IS NULL");
+			case IS_NOT_NULL -> jpql.append("e.").append(part.property()).append(" IS NOT NULL");
+			case TRUE -> jpql.append("e.").append(part.property()).append(" = TRUE");
+			case FALSE -> jpql.append("e.").append(part.property()).append(" = FALSE");
+			default -> throw new IllegalArgumentException(part.type() + " is not supported on " + part.property());
+		}
+	}
+}
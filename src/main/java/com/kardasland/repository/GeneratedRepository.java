@@ -0,0 +1,111 @@
+package com.kardasland.repository;
+
+import com.kardasland.repository.RepositoryInvocationHandler.CrudMethod;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the {@code <Repository>_Impl} classes written by {@link com.kardasland.processor.RepositoryProcessor}.
+ * Generated classes implement every query method with a direct call to its compiled plan, so {@link RepositoryFactory}
+ * can hand them out instead of a {@link java.lang.reflect.Proxy} and calls skip reflective dispatch.
+ * Not meant to be extended by hand.
+ */
+public abstract class GeneratedRepository<T, ID> implements CrudRepository<T, ID> {
+
+	private final RepositoryInvocationHandler handler;
+
+	protected GeneratedRepository(RepositoryInvocationHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Looks up the plan compiled for a repository method. Called once per method from the generated constructor.
+	 */
+	protected final CompiledQuery compiled(String methodName, Class<?>... parameterTypes) {
+		try {
+			Method method = handler.getRepositoryInterface().getMethod(methodName, parameterTypes);
+			return new CompiledQuery(handler.planFor(method));
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(getClass().getSimpleName() + " is out of date with " + handler.getRepositoryInterface().getSimpleName(), e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected final <R> CompletableFuture<R> execute(CompiledQuery query, Object... args) {
+		return (CompletableFuture<R>) handler.handleDerivedQuery(query.plan, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> CompletableFuture<R> crud(CrudMethod method, Object... args) {
+		return (CompletableFuture<R>) handler.handleCrudMethod(method, args);
+	}
+
+	@Override
+	public CompletableFuture<T> findById(ID id) {
+		return crud(CrudMethod.FIND_BY_ID, id);
+	}
+
+	@Override
+	public CompletableFuture<Void> save(T entity) {
+		return crud(CrudMethod.SAVE, entity);
+	}
+
+	@Override
+	public CompletableFuture<Void> delete(T entity) {
+		return crud(CrudMethod.DELETE, entity);
+	}
+
+	@Override
+	public CompletableFuture<List<T>> findAll() {
+		return crud(CrudMethod.FIND_ALL);
+	}
+
+	@Override
+	public CompletableFuture<Page<T>> findAll(Pageable pageable) {
+		return crud(CrudMethod.FIND_ALL_PAGE, pageable);
+	}
+
+	@Override
+	public CompletableFuture<Void> streamAll(int fetchSize, Consumer<List<T>> consumer) {
+		return crud(CrudMethod.STREAM_ALL, fetchSize, consumer);
+	}
+
+	@Override
+	public CompletableFuture<Void> saveAll(Iterable<T> entities) {
+		return crud(CrudMethod.SAVE_ALL, entities);
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteAll(Iterable<T> entities) {
+		return crud(CrudMethod.DELETE_ALL, entities);
+	}
+
+	@Override
+	public CompletableFuture<List<T>> findAllById(Iterable<ID> ids) {
+		return crud(CrudMethod.FIND_ALL_BY_ID, ids);
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteAllById(Iterable<ID> ids) {
+		return crud(CrudMethod.DELETE_ALL_BY_ID, ids);
+	}
+
+	@Override
+	public String toString() {
+		return "Generated repository: " + handler.getRepositoryInterface().getSimpleName();
+	}
+
+	/**
+	 * Opaque handle to the compiled plan of one repository method.
+	 */
+	public static final class CompiledQuery {
+		private final QueryPlan plan;
+
+		private CompiledQuery(QueryPlan plan) {
+			this.plan = plan;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.kardasland.repository;
+
+import java.util.List;
+
+/**
+ * A page of results together with the total number of matching rows.
+ */
+public record Page<T>(List<T> content, Pageable pageable, long totalElements) {
+
+	public int totalPages() {
+		return (int) ((totalElements + pageable.size() - 1) / pageable.size());
+	}
+
+	public boolean hasNext() {
+		return pageable.offset() + content.size() < totalElements;
+	}
+}
@@ -0,0 +1,73 @@
+package com.kardasland.repository;
+
+/**
+ * Requests one page of a query. Pass it as the last parameter of {@link CrudRepository#findAll(Pageable)}
+ * or of a derived query returning {@link Page}, {@link Slice} or {@link java.util.List}.
+ * <p>
+ * Offset pages ({@link #of(int, int, Sort)}) skip {@code page * size} rows. Keyset pages ({@link #after(Object, int, Sort)})
+ * seek past the last seen value of the first sort property instead, so deep pages stay as cheap as the first one;
+ * that property should be unique, such as the id.
+ */
+public record Pageable(int page, int size, Sort sort, Object keyset) {
+
+	public Pageable {
+		if (page < 0) {
+			throw new IllegalArgumentException("Page index must not be negative");
+		}
+		if (size < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1");
+		}
+		if (sort == null) {
+			sort = Sort.unsorted();
+		}
+		if (keyset != null && sort.isUnsorted()) {
+			throw new IllegalArgumentException("Keyset pagination requires a sort");
+		}
+	}
+
+	public static Pageable of(int page, int size) {
+		return new Pageable(page, size, Sort.unsorted(), null);
+	}
+
+	public static Pageable of(int page, int size, Sort sort) {
+		return new Pageable(page, size, sort, null);
+	}
+
+	/**
+	 * The first keyset page; continue with {@link Slice#nextPageable()}.
+	 */
+	public static Pageable first(int size, Sort sort) {
+		return after(null, size, sort);
+	}
+
+	/**
+	 * The keyset page following {@code lastValue} of the first sort property.
+	 */
+	public static Pageable after(Object lastValue, int size, Sort sort) {
+		if (sort == null || sort.isUnsorted()) {
+			throw new IllegalArgumentException("Keyset pagination requires a sort");
+		}
+		return new Pageable(0, size, sort, lastValue == null ? FIRST_KEYSET : lastValue);
+	}
+
+	public boolean isKeyset() {
+		return keyset != null;
+	}
+
+	/**
+	 * The value to seek past, or {@code null} on the first keyset page.
+	 */
+	public Object keysetValue() {
+		return keyset == FIRST_KEYSET ? null : keyset;
+	}
+
+	public long offset() {
+		return isKeyset() ? 0 : (long) page * size;
+	}
+
+	public Pageable next() {
+		return new Pageable(page + 1, size, sort, keyset);
+	}
+
+	private static final Object FIRST_KEYSET = new Object();
+}
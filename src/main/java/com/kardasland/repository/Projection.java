@@ -0,0 +1,150 @@
+package com.kardasland.repository;
+
+import jakarta.persistence.Tuple;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A record or interface returned by a derived query instead of the entity, so only the columns it exposes are selected.
+ * Records are built by a JPQL constructor expression. Interfaces are backed by the selected tuple, and each accessor
+ * ({@code getName()}, {@code isBanned()} or {@code name()}) reads the entity property of the same name.
+ */
+final class Projection {
+
+	private final Class<?> type;
+	private final List<String> properties;
+	// Interface accessor to its index in the selected tuple.
+	private final Map<Method, Integer> accessors;
+
+	private Projection(Class<?> type, List<String> properties, Map<Method, Integer> accessors) {
+		this.type = type;
+		this.properties = properties;
+		this.accessors = accessors;
+	}
+
+	/**
+	 * @return The projection for {@code type}, or {@code null} if it is not a record or an interface.
+	 */
+	static Projection of(Class<?> type) {
+		if (type.isRecord()) {
+			List<String> properties = Arrays.stream(type.getRecordComponents()).map(RecordComponent::getName).toList();
+			return new Projection(type, properties, Map.of());
+		}
+		if (!type.isInterface()) {
+			return null;
+		}
+		List<String> properties = new ArrayList<>();
+		Map<Method, Integer> accessors = new HashMap<>();
+		for (Method method : type.getMethods()) {
+			if (!Modifier.isAbstract(method.getModifiers()) || method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+				continue;
+			}
+			String property = propertyName(method);
+			int index = properties.indexOf(property);
+			if (index == -1) {
+				index = properties.size();
+				properties.add(property);
+			}
+			accessors.put(method, index);
+		}
+		if (properties.isEmpty()) {
+			throw new IllegalArgumentException("Projection " + type.getSimpleName() + " declares no accessors");
+		}
+		return new Projection(type, List.copyOf(properties), Map.copyOf(accessors));
+	}
+
+	String selectClause(String entityName) {
+		String columns = type.isRecord()
+			? "new " + type.getName() + "(" + properties.stream().map(property -> "e." + property).collect(Collectors.joining(", ")) + ")"
+			: properties.stream().map(property -> "e." + property + " AS " + property).collect(Collectors.joining(", "));
+		return "SELECT " + columns + " FROM " + entityName + " e";
+	}
+
+	/**
+	 * The type rows are read as: the record itself, or a {@link Tuple} for interfaces.
+	 */
+	Class<?> queryType() {
+		return type.isRecord() ? type : Tuple.class;
+	}
+
+	Object map(Object row) {
+		if (type.isRecord() || row == null) {
+			return row;
+		}
+		Object[] values = ((Tuple) row).toArray();
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new TupleHandler(values));
+	}
+
+	List<?> mapAll(List<?> rows) {
+		if (type.isRecord()) {
+			return rows;
+		}
+		List<Object> mapped = new ArrayList<>(rows.size());
+		for (Object row : rows) {
+			mapped.add(map(row));
+		}
+		return mapped;
+	}
+
+	private static String propertyName(Method method) {
+		String name = method.getName();
+		if (name.startsWith("get") && name.length() > 3) {
+			return Character.toLowerCase(name.charAt(3)) + name.substring(4);
+		}
+		if (name.startsWith("is") && name.length() > 2 && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+			return Character.toLowerCase(name.charAt(2)) + name.substring(3);
+		}
+		return name;
+	}
+
+	private final class TupleHandler implements InvocationHandler {
+
+		private final Object[] values;
+
+		private TupleHandler(Object[] values) {
+			this.values = values;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Integer index = accessors.get(method);
+			if (index != null) {
+				return values[index];
+			}
+			switch (method.getName()) {
+				case "equals":
+					return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+						&& Proxy.getInvocationHandler(args[0]) instanceof TupleHandler other
+						&& other.projection() == Projection.this
+						&& Arrays.equals(values, other.values);
+				case "hashCode":
+					return Arrays.hashCode(values);
+				case "toString":
+					Map<String, Object> fields = new LinkedHashMap<>();
+					for (int i = 0; i < properties.size(); i++) {
+						fields.put(properties.get(i), values[i]);
+					}
+					return type.getSimpleName() + fields;
+			}
+			if (method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+			throw new UnsupportedOperationException("Projection " + type.getSimpleName() + " cannot answer " + method.getName());
+		}
+
+		private Projection projection() {
+			return Projection.this;
+		}
+	}
+}
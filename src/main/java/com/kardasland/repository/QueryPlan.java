@@ -0,0 +1,249 @@
+package com.kardasland.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import lombok.Builder;
+import lombok.Getter;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable, precompiled form of a derived repository query.
+ * Built once per repository {@link java.lang.reflect.Method} when the proxy is created,
+ * so invocations only have to bind arguments and execute.
+ */
+@Getter
+@Builder
+final class QueryPlan {
+
+	private final String methodName;
+	@Builder.Default
+	private final Operation operation = Operation.SELECT;
+	private final String jpql;
+	/**
+	 * Named query executed instead of {@link #jpql}, either declared on the entity or registered from the derived JPQL.
+	 */
+	private final String namedQuery;
+	private final boolean declaredNamedQuery;
+	private final int limit;
+	private final boolean cacheable;
+	private final ResultShape resultShape;
+	/**
+	 * The type each row is read as: the entity, a record projection, a {@link jakarta.persistence.Tuple}, or a scalar.
+	 */
+	private final Class<?> resultType;
+	/**
+	 * The value type of the method's {@link java.util.concurrent.CompletableFuture}, used to narrow counts.
+	 */
+	private final Class<?> returnType;
+	/**
+	 * The record or interface the rows are returned as, or {@code null} for entities.
+	 */
+	private final Projection projection;
+	/**
+	 * Parameter name per method argument, {@code null} for arguments bound by a spatial predicate.
+	 */
+	private final String[] parameterNames;
+	@Builder.Default
+	private final List<SpatialPredicate> spatialPredicates = List.of();
+	/**
+	 * Index of the {@link Pageable} argument, or {@code -1}.
+	 */
+	@Builder.Default
+	private final int pageableIndex = -1;
+	// The pieces of jpql, used to rebuild it for sorted and keyset pages.
+	private final String selectClause;
+	private final String whereClause;
+	private final String orderClause;
+	private final String countJpql;
+
+	static String[] parameterNames(int parameterCount) {
+		String[] names = new String[parameterCount];
+		for (int i = 0; i < parameterCount; i++) {
+			names[i] = "arg" + i;
+		}
+		return names;
+	}
+
+	TypedQuery<?> createQuery(EntityManager em, Pageable pageable) {
+		TypedQuery<?> query;
+		if (pageable == null || (!pageable.isKeyset() && pageable.sort().isUnsorted())) {
+			query = namedQuery != null
+				? em.createNamedQuery(namedQuery, resultType)
+				: em.createQuery(jpql, resultType);
+		} else {
+			if (declaredNamedQuery) {
+				throw new IllegalArgumentException("Sorted and keyset pages are not supported for declared named query " + namedQuery);
+			}
+			query = em.createQuery(pagedJpql(pageable), resultType);
+			if (pageable.keysetValue() != null) {
+				query.setParameter("keyset", pageable.keysetValue());
+			}
+		}
+		if (pageable != null) {
+			query.setFirstResult(Math.toIntExact(pageable.offset()));
+			// A slice reads one extra row to learn whether another page follows.
+			query.setMaxResults(resultShape == ResultShape.SLICE ? pageable.size() + 1 : pageable.size());
+		} else if (operation == Operation.EXISTS) {
+			query.setMaxResults(1);
+		} else if (limit > 0) {
+			query.setMaxResults(limit);
+		}
+		if (cacheable) {
+			query.setHint(HibernateHints.HINT_CACHEABLE, true);
+		}
+		return query;
+	}
+
+	/**
+	 * The bulk statement of a {@link Operation#DELETE} plan.
+	 */
+	Query createUpdate(EntityManager em) {
+		return namedQuery != null ? em.createNamedQuery(namedQuery) : em.createQuery(jpql);
+	}
+
+	void bind(Query query, Object[] args) {
+		for (int i = 0; i < parameterNames.length; i++) {
+			if (parameterNames[i] != null) {
+				query.setParameter(parameterNames[i], args[i]);
+			}
+		}
+		for (SpatialPredicate predicate : spatialPredicates) {
+			predicate.bind(query, args);
+		}
+	}
+
+	private String pagedJpql(Pageable pageable) {
+		String where = whereClause;
+		if (pageable.keysetValue() != null) {
+			Sort.Order seekOrder = pageable.sort().orders().getFirst();
+			String seek = "e." + seekOrder.property() + (seekOrder.descending() ? " < :keyset" : " > :keyset");
+			where = where.isEmpty() ? seek : "(" + where + ") AND " + seek;
+		}
+
+		StringBuilder paged = new StringBuilder(selectClause);
+		if (!where.isEmpty()) {
+			paged.append(" WHERE ").append(where);
+		}
+		// The pageable's sort comes first, since keyset seeking relies on it being the primary order.
+		StringBuilder order = new StringBuilder();
+		for (Sort.Order sortOrder : pageable.sort().orders()) {
+			if (!order.isEmpty()) {
+				order.append(", ");
+			}
+			order.append("e.").append(sortOrder.property()).append(sortOrder.descending() ? " DESC" : " ASC");
+		}
+		if (!orderClause.isEmpty()) {
+			if (!order.isEmpty()) {
+				order.append(", ");
+			}
+			order.append(orderClause);
+		}
+		if (!order.isEmpty()) {
+			paged.append(" ORDER BY ").append(order);
+		}
+		return paged.toString();
+	}
+
+	/**
+	 * Narrows a row count to the method's return type: {@code int}, {@code long}, or nothing for {@code void}.
+	 */
+	Object narrowCount(long count) {
+		if (returnType == Integer.class || returnType == int.class) {
+			return Math.toIntExact(count);
+		}
+		if (returnType == Long.class || returnType == long.class) {
+			return count;
+		}
+		return null;
+	}
+
+	/**
+	 * What a derived query does, taken from its method name prefix.
+	 */
+	enum Operation {
+		/**
+		 * {@code find…By}, {@code get…By}, {@code read…By}: loads entities or projections.
+		 */
+		SELECT,
+		/**
+		 * {@code countBy}: {@code SELECT COUNT(e)}, returned as {@code long} or {@code int}.
+		 */
+		COUNT,
+		/**
+		 * {@code existsBy}: selects a constant with a limit of one row.
+		 */
+		EXISTS,
+		/**
+		 * {@code deleteBy}: a bulk {@code DELETE}, returning the number of rows removed or nothing.
+		 */
+		DELETE;
+
+		static Operation of(String methodName) {
+			if (methodName.startsWith("count")) {
+				return COUNT;
+			} else if (methodName.startsWith("exists")) {
+				return EXISTS;
+			} else if (methodName.startsWith("delete") || methodName.startsWith("remove")) {
+				return DELETE;
+			}
+			return SELECT;
+		}
+	}
+
+	/**
+	 * How the rows returned by a query are shaped into the repository method's return value.
+	 */
+	enum ResultShape {
+		LIST {
+			@Override
+			Object extract(TypedQuery<?> query) {
+				return query.getResultList();
+			}
+		},
+		OPTIONAL {
+			@Override
+			Object extract(TypedQuery<?> query) {
+				List<?> results = query.getResultList();
+				return Optional.ofNullable(results.isEmpty() ? null : results.getFirst());
+			}
+		},
+		SINGLE {
+			@Override
+			Object extract(TypedQuery<?> query) {
+				try {
+					return query.getSingleResult();
+				} catch (NoResultException e) {
+					return null;
+				}
+			}
+		},
+		PAGE,
+		SLICE;
+
+		Object extract(TypedQuery<?> query) {
+			throw new IllegalStateException(name() + " results require a Pageable argument");
+		}
+
+		boolean isPaged() {
+			return this == PAGE || this == SLICE;
+		}
+
+		static ResultShape of(Class<?> resultType) {
+			if (List.class.isAssignableFrom(resultType)) {
+				return LIST;
+			} else if (Optional.class.isAssignableFrom(resultType)) {
+				return OPTIONAL;
+			} else if (Page.class.isAssignableFrom(resultType)) {
+				return PAGE;
+			} else if (Slice.class.isAssignableFrom(resultType)) {
+				return SLICE;
+			}
+			return SINGLE;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.kardasland.repository;
+
+import com.kardasland.annotation.CoalesceReads;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Backs {@link CoalesceReads} repositories: identical reads share one in-flight future, and {@code findById}
+ * calls may be batched over a short window into a single lookup of all their ids.
+ */
+final class ReadCoalescer {
+
+	private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	/**
+	 * Bumped when a write starts and when it completes. Reads only join reads of the same generation.
+	 */
+	private final AtomicLong writeGeneration = new AtomicLong();
+	private final long batchWindowMillis;
+	private final int maxBatchSize;
+	private final Function<List<Object>, CompletableFuture<Map<Object, Object>>> batchLoader;
+	private final Executor batchTimer;
+	private final Object batchLock = new Object();
+	private Map<Object, CompletableFuture<Object>> batch;
+
+	/**
+	 * @param batchLoader Loads a list of ids and maps each found id to its entity. Only used when batching is enabled.
+	 */
+	ReadCoalescer(CoalesceReads settings, int maxBatchSize, Function<List<Object>, CompletableFuture<Map<Object, Object>>> batchLoader) {
+		this.batchWindowMillis = Math.max(0, settings.batchWindowMillis());
+		this.maxBatchSize = maxBatchSize;
+		this.batchLoader = batchLoader;
+		this.batchTimer = CompletableFuture.delayedExecutor(batchWindowMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Joins the running call with the same {@code key}, or starts one with {@code loader}.
+	 */
+	@SuppressWarnings("unchecked")
+	<R> CompletableFuture<R> join(Object read, Supplier<CompletableFuture<R>> loader) {
+		Object key = new GenerationKey(writeGeneration.get(), read);
+		CompletableFuture<Object> created = new CompletableFuture<>();
+		CompletableFuture<Object> running = inFlight.putIfAbsent(key, created);
+		if (running != null) {
+			return (CompletableFuture<R>) running.copy();
+		}
+		CompletableFuture<R> loaded;
+		try {
+			loaded = loader.get();
+		} catch (RuntimeException e) {
+			inFlight.remove(key, created);
+			throw e;
+		}
+		loaded.whenComplete((result, failure) -> {
+			inFlight.remove(key, created);
+			if (failure != null) {
+				created.completeExceptionally(failure);
+			} else {
+				created.complete(result);
+			}
+		});
+		// A copy, so one caller cancelling or completing its future cannot affect the others.
+		return (CompletableFuture<R>) created.copy();
+	}
+
+	/**
+	 * Loads an entity by id, through the batch window when one is configured, otherwise as {@code loader}.
+	 */
+	<R> CompletableFuture<R> findById(Object id, Supplier<CompletableFuture<R>> loader) {
+		if (batchWindowMillis == 0) {
+			return join(new ByIdKey(id), loader);
+		}
+		return join(new ByIdKey(id), () -> enqueue(id));
+	}
+
+	/**
+	 * Runs a write. Reads issued after it starts, and again after it completes, do not join reads that may predate it,
+	 * so a caller that waited for the write never reads the row as it was before.
+	 */
+	CompletableFuture<?> write(Supplier<? extends CompletableFuture<?>> writer) {
+		invalidate();
+		return writer.get().whenComplete((result, failure) -> invalidate());
+	}
+
+	/**
+	 * Starts a new write generation and loads the open batch right away, so later reads start a batch of their own.
+	 */
+	void invalidate() {
+		writeGeneration.incrementAndGet();
+		inFlight.clear();
+		Map<Object, CompletableFuture<Object>> open;
+		synchronized (batchLock) {
+			open = batch;
+			batch = null;
+		}
+		if (open != null) {
+			load(open);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R> CompletableFuture<R> enqueue(Object id) {
+		CompletableFuture<Object> future;
+		Map<Object, CompletableFuture<Object>> full = null;
+		synchronized (batchLock) {
+			if (batch == null) {
+				batch = new LinkedHashMap<>();
+				Map<Object, CompletableFuture<Object>> scheduled = batch;
+				batchTimer.execute(() -> flush(scheduled));
+			}
+			future = batch.computeIfAbsent(id, ignored -> new CompletableFuture<>());
+			if (batch.size() >= maxBatchSize) {
+				full = batch;
+				batch = null;
+			}
+		}
+		if (full != null) {
+			load(full);
+		}
+		return (CompletableFuture<R>) future;
+	}
+
+	private void flush(Map<Object, CompletableFuture<Object>> scheduled) {
+		synchronized (batchLock) {
+			if (batch != scheduled) {
+				// Already loaded because it filled up.
+				return;
+			}
+			batch = null;
+		}
+		load(scheduled);
+	}
+
+	private void load(Map<Object, CompletableFuture<Object>> ids) {
+		CompletableFuture<Map<Object, Object>> loaded;
+		try {
+			loaded = batchLoader.apply(new ArrayList<>(ids.keySet()));
+		} catch (RuntimeException e) {
+			ids.values().forEach(future -> future.completeExceptionally(e));
+			return;
+		}
+		loaded.whenComplete((found, failure) -> ids.forEach((id, future) -> {
+			if (failure != null) {
+				future.completeExceptionally(failure);
+			} else {
+				future.complete(found.get(id));
+			}
+		}));
+	}
+
+	private record GenerationKey(long generation, Object read) {
+	}
+
+	private record ByIdKey(Object id) {
+		ByIdKey {
+			Objects.requireNonNull(id, "id");
+		}
+	}
+}
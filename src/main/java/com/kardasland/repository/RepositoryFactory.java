@@ -1,22 +1,233 @@
 package com.kardasland.repository;
 
+import com.kardasland.DatabaseManager;
+import com.kardasland.concurrent.RepositoryExecutors;
+import com.kardasland.concurrent.RepositoryPriority;
+import com.kardasland.concurrent.TickAwareScheduler;
+import com.kardasland.metrics.RepositoryMetrics;
 import jakarta.persistence.EntityManagerFactory;
-import lombok.AllArgsConstructor;
+import com.kardasland.annotation.SessionScoped;
+import com.kardasland.session.PlayerSessionCache;
+import lombok.AccessLevel;
+import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
-@AllArgsConstructor
+@Getter(AccessLevel.PACKAGE)
 public class RepositoryFactory {
+	/**
+	 * Retries of a {@link #transaction(Function)} after a deadlock or busy database.
+	 */
+	public static final int DEFAULT_TRANSACTION_RETRIES = 3;
+
 	private final EntityManagerFactory entityManagerFactory;
 	private final JavaPlugin plugin;
+	private final Executor executor;
+	private final Executor writeExecutor;
+	private final RepositoryMetrics metrics;
+	private final TickAwareScheduler scheduler;
+	private final Duration sessionFlushInterval;
+	private final List<RepositoryInvocationHandler> handlers = new CopyOnWriteArrayList<>();
+	@Getter(AccessLevel.NONE)
+	private volatile PlayerSessionCache sessionCache;
+
+	/**
+	 * @param scheduler Queues calls by {@link com.kardasland.concurrent.RepositoryPriority} before they reach the executors. May be {@code null}.
+	 * @param sessionFlushInterval How often the {@link #getSessionCache() session cache} saves dirty entities.
+	 */
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin, Executor executor, Executor writeExecutor, RepositoryMetrics metrics,
+							 TickAwareScheduler scheduler, Duration sessionFlushInterval) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.plugin = plugin;
+		this.executor = executor;
+		this.writeExecutor = writeExecutor;
+		this.metrics = metrics;
+		this.scheduler = scheduler;
+		this.sessionFlushInterval = sessionFlushInterval;
+	}
+
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin, Executor executor, Executor writeExecutor, RepositoryMetrics metrics, TickAwareScheduler scheduler) {
+		this(entityManagerFactory, plugin, executor, writeExecutor, metrics, scheduler, PlayerSessionCache.DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin, Executor executor, Executor writeExecutor, RepositoryMetrics metrics) {
+		this(entityManagerFactory, plugin, executor, writeExecutor, metrics, null);
+	}
+
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin, Executor executor, Executor writeExecutor) {
+		this(entityManagerFactory, plugin, executor, writeExecutor, RepositoryMetrics.disabled());
+	}
+
+	/**
+	 * Creates a factory using the EntityManagerFactory, executors, metrics and scheduler of an initialized {@link DatabaseManager}.
+	 */
+	public RepositoryFactory(DatabaseManager databaseManager) {
+		this(databaseManager.getEntityManagerFactory(), databaseManager.getPlugin(), databaseManager.getExecutor(), databaseManager.getWriteExecutor(),
+			databaseManager.getMetrics(), databaseManager.getScheduler(), databaseManager.getSessionFlushInterval());
+	}
+
+	/**
+	 * Creates a factory whose repositories run on the Bukkit async scheduler.
+	 */
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin) {
+		this(entityManagerFactory, plugin, RepositoryExecutors.bukkitAsync(plugin));
+	}
+
+	public RepositoryFactory(EntityManagerFactory entityManagerFactory, JavaPlugin plugin, Executor executor) {
+		this(entityManagerFactory, plugin, executor, executor);
+	}
 
+	/**
+	 * Creates a repository, preferring the {@code _Impl} class generated at build time and
+	 * falling back to a dynamic proxy when the interface was compiled without the annotation processor.
+	 */
 	@SuppressWarnings("unchecked")
 	public <T> T createRepository(Class<T> repositoryInterface) {
+		RepositoryInvocationHandler handler = new RepositoryInvocationHandler(this, repositoryInterface);
+		handlers.add(handler);
+		T repository = createGenerated(repositoryInterface, handler);
+		if (repository == null) {
+			repository = (T) Proxy.newProxyInstance(
+				repositoryInterface.getClassLoader(),
+				new Class[]{repositoryInterface},
+				handler
+			);
+		}
+		if (handler.getEntityType().isAnnotationPresent(SessionScoped.class)) {
+			getSessionCache().register(handler.getEntityType(), (CrudRepository<?, UUID>) repository);
+		}
+		return repository;
+	}
+
+	/**
+	 * Creates a stand-in for a repository that is not created yet. Calls made before {@code repository}
+	 * completes are queued and then started in call order; if it fails, they fail with the same exception.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T createDeferred(Class<T> repositoryInterface, CompletableFuture<? extends T> repository) {
 		return (T) Proxy.newProxyInstance(
 			repositoryInterface.getClassLoader(),
 			new Class[]{repositoryInterface},
-			new RepositoryInvocationHandler(entityManagerFactory, plugin, repositoryInterface)
+			new DeferredRepositoryHandler(repositoryInterface, repository)
 		);
 	}
+
+	/**
+	 * Instantiates the generated implementation of {@code repositoryInterface}, if there is one.
+	 */
+	private <T> T createGenerated(Class<T> repositoryInterface, RepositoryInvocationHandler handler) {
+		Class<?> implementation;
+		try {
+			implementation = Class.forName(generatedClassName(repositoryInterface), true, repositoryInterface.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+		if (!repositoryInterface.isAssignableFrom(implementation) || !GeneratedRepository.class.isAssignableFrom(implementation)) {
+			return null;
+		}
+		try {
+			return repositoryInterface.cast(implementation.getConstructor(RepositoryInvocationHandler.class).newInstance(handler));
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Cannot create " + implementation.getSimpleName(), e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot create " + implementation.getSimpleName(), e);
+		}
+	}
+
+	/**
+	 * {@code com.example.PlayerRepository} is implemented by {@code com.example.PlayerRepository_Impl};
+	 * nested interfaces use their outer class names joined by underscores.
+	 */
+	static String generatedClassName(Class<?> repositoryInterface) {
+		String packageName = repositoryInterface.getPackageName();
+		String simpleName = repositoryInterface.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_');
+		return (packageName.isEmpty() ? "" : packageName + ".") + simpleName + "_Impl";
+	}
+
+	/**
+	 * Runs {@code work} as one transaction on the write executor, retrying it up to
+	 * {@link #DEFAULT_TRANSACTION_RETRIES} times on a deadlock or busy database. See {@link Transaction}.
+	 */
+	public <R> CompletableFuture<R> transaction(Function<Transaction, R> work) {
+		return transaction(DEFAULT_TRANSACTION_RETRIES, work);
+	}
+
+	/**
+	 * Runs {@code work} as one transaction on the write executor. Repository calls made by {@code work} share its
+	 * EntityManager and commit together when it returns; if it throws, nothing is committed.
+	 * The work may run more than once, so it should not have side effects outside the database.
+	 * Called from inside another transaction of this factory, {@code work} joins it instead.
+	 * @param maxRetries How often to rerun the work after a deadlock, serialization failure or {@code SQLITE_BUSY}.
+	 */
+	public <R> CompletableFuture<R> transaction(int maxRetries, Function<Transaction, R> work) {
+		Transaction current = Transaction.current(entityManagerFactory);
+		if (current != null) {
+			// Waiting for the write executor from inside a transaction could deadlock a single writer thread.
+			return current.execute(() -> work.apply(current));
+		}
+		Executor target = scheduler != null ? scheduler.lane(RepositoryPriority.current(RepositoryPriority.PLAYER), writeExecutor) : writeExecutor;
+		long submitted = System.nanoTime();
+		return RepositoryExecutors.supplyAsync(() -> {
+			long started = System.nanoTime();
+			boolean failed = true;
+			try {
+				R result = Transaction.run(entityManagerFactory, maxRetries, work, plugin.getLogger());
+				failed = false;
+				return result;
+			} finally {
+				if (metrics.isEnabled()) {
+					metrics.record("transaction", started - submitted, System.nanoTime() - started, 0, failed);
+				}
+			}
+		}, target);
+	}
+
+	/**
+	 * The player session cache for {@link SessionScoped} entities, created on first use. It starts on the main thread.
+	 */
+	public PlayerSessionCache getSessionCache() {
+		PlayerSessionCache cache = sessionCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = sessionCache;
+				if (cache == null) {
+					cache = new PlayerSessionCache(plugin, sessionFlushInterval);
+					sessionCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	PlayerSessionCache getSessionCacheIfPresent() {
+		return sessionCache;
+	}
+
+	/**
+	 * Flushes dirty player sessions and pending write-behind batches of every repository created by this factory.
+	 * Call this from your plugin's {@code onDisable} before the database is shut down.
+	 */
+	public void close() {
+		if (scheduler != null) {
+			// The shutdown flushes below are waited on from the main thread, so no tick would release throttled work.
+			scheduler.stopThrottling();
+		}
+		if (sessionCache != null) {
+			sessionCache.close();
+		}
+		handlers.forEach(RepositoryInvocationHandler::close);
+		handlers.clear();
+		if (scheduler != null) {
+			scheduler.close();
+		}
+	}
 }
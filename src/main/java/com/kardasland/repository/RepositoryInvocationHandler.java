@@ -1,37 +1,132 @@
 package com.kardasland.repository;
 
-import org.bukkit.Bukkit;
+import com.kardasland.annotation.SessionScoped;
+import com.kardasland.annotation.CoalesceReads;
+import com.kardasland.annotation.Upsert;
+import com.kardasland.annotation.WriteBehind;
+import com.kardasland.concurrent.RepositoryExecutors;
+import com.kardasland.concurrent.RepositoryPriority;
+import com.kardasland.concurrent.TickAwareScheduler;
+import com.kardasland.datasource.RoutingDataSource;
+import com.kardasland.metrics.RepositoryMetrics;
+import com.kardasland.repository.query.PartTree;
+import com.kardasland.session.PlayerSessionCache;
+import lombok.AccessLevel;
+import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.NoResultException;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 
 public class RepositoryInvocationHandler implements InvocationHandler {
 
+	private final RepositoryFactory factory;
 	private final EntityManagerFactory emf;
 	private final JavaPlugin plugin;
+	private final Executor executor;
+	private final Executor writeExecutor;
+	private final RepositoryMetrics metrics;
+	private final TickAwareScheduler scheduler;
+	private final String repositoryName;
+	@Getter(AccessLevel.PACKAGE)
+	private final Class<?> repositoryInterface;
+	@Getter(AccessLevel.PACKAGE)
 	private final Class<?> entityType;
-	private static final Pattern TOP_N_PATTERN = Pattern.compile("findTop(\\d+)");
+	private final boolean sessionScoped;
+	private final boolean queryCacheEnabled;
+	private final Map<Method, QueryPlan> queryPlans;
+	private final WriteBehindQueue writeBehind;
+	private final UpsertWriter upsertWriter;
+	private final ReadCoalescer coalescer;
+	private final QueryPlan findAllPagePlan;
+	private final String findAllByIdJpql;
+	private final String deleteAllByIdJpql;
+	private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+	private static final String DERIVED_QUERY_SUFFIX = "#derived";
 
 	public RepositoryInvocationHandler(EntityManagerFactory emf, JavaPlugin plugin, Class<?> repositoryInterface) {
-		this.emf = emf;
-		this.plugin = plugin;
+		this(new RepositoryFactory(emf, plugin), repositoryInterface);
+	}
+
+	public RepositoryInvocationHandler(RepositoryFactory factory, Class<?> repositoryInterface) {
+		this.factory = factory;
+		this.emf = factory.getEntityManagerFactory();
+		this.plugin = factory.getPlugin();
+		this.executor = factory.getExecutor();
+		this.writeExecutor = factory.getWriteExecutor();
+		this.metrics = factory.getMetrics();
+		this.scheduler = factory.getScheduler();
+		this.repositoryName = repositoryInterface.getSimpleName();
+		this.repositoryInterface = repositoryInterface;
 		this.entityType = (Class<?>) ((ParameterizedType) repositoryInterface.getGenericInterfaces()[0]).getActualTypeArguments()[0];
+		this.sessionScoped = entityType.isAnnotationPresent(SessionScoped.class);
+		this.queryCacheEnabled = emf != null && emf.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions().isQueryCacheEnabled();
+		this.queryPlans = compileQueryPlans(repositoryInterface);
+		String findAllJpql = "SELECT e FROM " + entityType.getSimpleName() + " e";
+		this.findAllPagePlan = planBuilder(findAllJpql, findAllJpql)
+			.methodName("findAll")
+			.resultType(entityType)
+			.returnType(Page.class)
+			.resultShape(QueryPlan.ResultShape.PAGE)
+			.parameterNames(QueryPlan.parameterNames(0))
+			.pageableIndex(0)
+			.build();
+		String idAttribute = resolveIdAttribute();
+		this.findAllByIdJpql = "SELECT e FROM " + entityType.getSimpleName() + " e WHERE e." + idAttribute + " IN :ids";
+		this.deleteAllByIdJpql = "DELETE FROM " + entityType.getSimpleName() + " e WHERE e." + idAttribute + " IN :ids";
+		CoalesceReads coalesceSettings = repositoryInterface.getAnnotation(CoalesceReads.class);
+		this.coalescer = coalesceSettings != null ? new ReadCoalescer(coalesceSettings, IN_CLAUSE_CHUNK_SIZE, this::findByIds) : null;
+		this.upsertWriter = repositoryInterface.isAnnotationPresent(Upsert.class) && emf != null ? new UpsertWriter(emf) : null;
+		WriteBehind writeBehindSettings = repositoryInterface.getAnnotation(WriteBehind.class);
+		this.writeBehind = writeBehindSettings != null && emf != null
+			? new WriteBehindQueue(emf, plugin, route(writeExecutor, RepositoryPriority.BACKGROUND), writeBehindSettings, upsertWriter)
+			: null;
+	}
+
+	/**
+	 * Flushes any writes still queued by a {@link WriteBehind} repository.
+	 */
+	void close() {
+		if (writeBehind != null) {
+			writeBehind.close();
+		}
 	}
 
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) {
+		// --- Dynamic Query Derivation ---
+		QueryPlan plan = queryPlans.get(method);
+		if (plan != null) {
+			return handleDerivedQuery(plan, args);
+		}
+
 		String methodName = method.getName();
 		switch (methodName) {
 			case "equals": return proxy == args[0];
@@ -40,53 +135,59 @@ public class RepositoryInvocationHandler implements InvocationHandler {
 		}
 
 		// --- Standard CRUD methods ---
-		if (methodName.equals("findById") || methodName.equals("save") || methodName.equals("delete") || methodName.equals("findAll")) {
-			return handleCrudMethod(methodName, args);
+		if (method.getDeclaringClass() == CrudRepository.class) {
+			return handleCrudMethod(CrudMethod.of(method), args);
 		}
 
-		// --- Dynamic Query Derivation ---
-		return handleDerivedQuery(method, args);
+		throw new UnsupportedOperationException("No query plan for repository method: " + methodName);
 	}
 
-	private CompletableFuture<?> handleDerivedQuery(Method method, Object[] args) {
-		return CompletableFuture.supplyAsync(() -> {
-			EntityManager em = emf.createEntityManager();
-			try {
-				String methodName = method.getName();
-				Matcher topNMatcher = TOP_N_PATTERN.matcher(methodName);
-				int limit = 0;
-				if (topNMatcher.find()) {
-					limit = Integer.parseInt(topNMatcher.group(1));
-				}
-
-				String baseSelect = "SELECT e FROM " + entityType.getSimpleName() + " e";
-				String jpql = buildJpqlFromMethodName(methodName, baseSelect);
-				TypedQuery<?> query = em.createQuery(jpql, entityType);
+	/**
+	 * The compiled plan of a derived query method, for {@link GeneratedRepository} implementations.
+	 */
+	QueryPlan planFor(Method method) {
+		QueryPlan plan = queryPlans.get(method);
+		if (plan == null) {
+			throw new IllegalArgumentException("No query plan for repository method: " + method.getName());
+		}
+		return plan;
+	}
 
-				if (args != null) {
-					for (int i = 0; i < args.length; i++) {
-						query.setParameter("arg" + i, args[i]);
-					}
-				}
-				if (limit > 0) {
-					query.setMaxResults(limit);
-				}
+	CompletableFuture<?> handleDerivedQuery(QueryPlan plan, Object[] args) {
+		// The ids a derived delete removes are not known, so no session may keep serving this type from memory.
+		PlayerSessionCache sessions = sessionScoped && plan.getOperation() == QueryPlan.Operation.DELETE ? factory.getSessionCacheIfPresent() : null;
+		Transaction transaction = Transaction.current(emf);
+		if (transaction != null) {
+			EntityManager em = transaction.getEntityManager();
+			if (sessions != null) {
+				transaction.afterCommit(() -> sessions.evictAll(entityType));
+			}
+			if (coalescer != null && plan.getOperation() == QueryPlan.Operation.DELETE) {
+				transaction.afterCommit(coalescer::invalidate);
+			}
+			return transaction.execute(() -> plan.getOperation() == QueryPlan.Operation.DELETE ? applyDelete(em, plan, args) : executePlan(em, plan, args));
+		}
+		if (plan.getOperation() == QueryPlan.Operation.DELETE) {
+			Supplier<CompletableFuture<?>> delete = () -> submit(plan.getMethodName(), plan.getParameterNames().length, route(writeExecutor, RepositoryPriority.PLAYER), () -> executeDelete(plan, args));
+			CompletableFuture<?> deleted = coalescer != null ? coalescer.write(delete) : delete.get();
+			return sessions == null ? deleted : deleted.thenApply(count -> {
+				sessions.evictAll(entityType);
+				return count;
+			});
+		}
+		if (coalescer != null) {
+			return coalescer.join(new DerivedQueryKey(plan, args != null ? Arrays.asList(args) : List.of()), () -> executeDerivedRead(plan, args));
+		}
+		return executeDerivedRead(plan, args);
+	}
 
-				try {
-					if (List.class.isAssignableFrom(getGenericReturnType(method))) {
-						return query.getResultList();
-					} else if (Optional.class.isAssignableFrom(getGenericReturnType(method))) {
-						List<?> results = query.getResultList();
-						return Optional.ofNullable(results.isEmpty() ? null : results.getFirst());
-					} else {
-						return query.getSingleResult();
-					}
-				} catch (NoResultException e) {
-					plugin.getLogger().info("Query returned no results, " + e.getMessage());
-					return method.getReturnType().equals(java.util.Optional.class) ? Optional.empty() : null;
-				}
+	private CompletableFuture<?> executeDerivedRead(QueryPlan plan, Object[] args) {
+		return submit(plan.getMethodName(), plan.getParameterNames().length, route(executor, RepositoryPriority.INTERACTIVE), () -> RoutingDataSource.readOnly(() -> {
+			EntityManager em = emf.createEntityManager();
+			try {
+				return executePlan(em, plan, args);
 			} catch (Exception e) {
-				plugin.getLogger().severe("Error executing derived query: " + e.getMessage());
+				plugin.getLogger().severe("Error executing derived query " + plan.getMethodName() + ": " + e.getMessage());
 				e.printStackTrace();
 				throw e;
 			} finally {
@@ -94,53 +195,339 @@ public class RepositoryInvocationHandler implements InvocationHandler {
 					em.close();
 				}
 			}
-		}, runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+		}));
 	}
 
-	private String buildJpqlFromMethodName(String methodName, String baseSelect) {
-		StringBuilder jpql = new StringBuilder(baseSelect);
-
-		// Find By / FindAllBy
-		int byIndex = methodName.indexOf("By");
-		int orderByIndex = methodName.indexOf("OrderBy");
-
-		if (byIndex != -1) {
-			String criteriaString = (orderByIndex != -1)
-				? methodName.substring(byIndex + 2, orderByIndex)
-				: methodName.substring(byIndex + 2);
-
-			if (!criteriaString.isEmpty()) {
-				jpql.append(" WHERE ");
-				String[] conditions = criteriaString.split("And|Or");
-				int argIndex = 0;
-				for (int i = 0; i < conditions.length; i++) {
-					String property = toCamelCase(conditions[i]);
-					jpql.append("e.").append(property).append(" = :arg").append(argIndex++);
-					if (i < conditions.length - 1) {
-						if (criteriaString.contains("Or")) {
-							jpql.append(" OR ");
-						} else {
-							jpql.append(" AND ");
-						}
-					}
+	/**
+	 * Queues calls on the {@link TickAwareScheduler} when one is configured, at the priority of an enclosing
+	 * {@link RepositoryPriority#call} or else {@code priority}.
+	 */
+	private Executor route(Executor target, RepositoryPriority priority) {
+		return scheduler != null ? scheduler.lane(RepositoryPriority.current(priority), target) : target;
+	}
+
+	/**
+	 * Runs a repository call on {@code target}, recording how long it waited for the executor and how long it ran.
+	 */
+	private <R> CompletableFuture<R> submit(String methodName, int parameterCount, Executor target, Supplier<R> call) {
+		if (!metrics.isEnabled()) {
+			return RepositoryExecutors.supplyAsync(call, target);
+		}
+		long submitted = System.nanoTime();
+		return RepositoryExecutors.supplyAsync(() -> {
+			long started = System.nanoTime();
+			boolean failed = true;
+			try {
+				R result = call.get();
+				failed = false;
+				return result;
+			} finally {
+				metrics.record(repositoryName + "." + methodName, started - submitted, System.nanoTime() - started, parameterCount, failed);
+			}
+		}, target);
+	}
+
+	private Object executePlan(EntityManager em, QueryPlan plan, Object[] args) {
+		Pageable pageable = plan.getPageableIndex() >= 0 ? (Pageable) args[plan.getPageableIndex()] : null;
+		TypedQuery<?> query = plan.createQuery(em, pageable);
+		plan.bind(query, args);
+		switch (plan.getOperation()) {
+			case COUNT:
+				return plan.narrowCount((Long) query.getSingleResult());
+			case EXISTS:
+				return !query.getResultList().isEmpty();
+		}
+		if (pageable == null) {
+			return project(plan, plan.getResultShape().extract(query));
+		}
+
+		List<?> content = plan.getProjection() != null ? plan.getProjection().mapAll(query.getResultList()) : query.getResultList();
+		switch (plan.getResultShape()) {
+			case PAGE:
+				TypedQuery<Long> countQuery = em.createQuery(plan.getCountJpql(), Long.class);
+				plan.bind(countQuery, args);
+				return new Page<>(content, pageable, countQuery.getSingleResult());
+			case SLICE:
+				boolean hasNext = content.size() > pageable.size();
+				List<?> sliceContent = hasNext ? content.subList(0, pageable.size()) : content;
+				Pageable nextPageable = null;
+				if (hasNext) {
+					nextPageable = pageable.isKeyset()
+						? Pageable.after(readProperty(sliceContent.getLast(), pageable.sort().orders().getFirst().property()), pageable.size(), pageable.sort())
+						: pageable.next();
 				}
+				return new Slice<>(List.copyOf(sliceContent), pageable, hasNext, nextPageable);
+			case OPTIONAL:
+				return Optional.ofNullable(content.isEmpty() ? null : content.getFirst());
+			case SINGLE:
+				return content.isEmpty() ? null : content.getFirst();
+			default:
+				return content;
+		}
+	}
+
+	private Object executeDelete(QueryPlan plan, Object[] args) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			Object deleted = applyDelete(em, plan, args);
+			em.getTransaction().commit();
+			return deleted;
+		} catch (Exception e) {
+			plugin.getLogger().severe("Error executing derived query " + plan.getMethodName() + ": " + e.getMessage());
+			throw e;
+		} finally {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			if (em.isOpen()) {
+				em.close();
+			}
+		}
+	}
+
+	private Object applyDelete(EntityManager em, QueryPlan plan, Object[] args) {
+		Query delete = plan.createUpdate(em);
+		plan.bind(delete, args);
+		return plan.narrowCount(delete.executeUpdate());
+	}
+
+	private Object project(QueryPlan plan, Object result) {
+		Projection projection = plan.getProjection();
+		if (projection == null) {
+			return result;
+		}
+		if (result instanceof List<?> rows) {
+			return projection.mapAll(rows);
+		}
+		if (result instanceof Optional<?> row) {
+			return row.map(projection::map);
+		}
+		return projection.map(result);
+	}
+
+	private Object readProperty(Object row, String property) {
+		if (entityType.isInstance(row)) {
+			return emf.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+				.getEntityDescriptor(entityType)
+				.getPropertyValue(row, property);
+		}
+		// A projection: records expose property(), interfaces may use getters.
+		String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		for (String accessor : new String[]{property, "get" + capitalized, "is" + capitalized}) {
+			try {
+				return row.getClass().getMethod(accessor).invoke(row);
+			} catch (NoSuchMethodException e) {
+				// Try the next naming convention.
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Cannot read " + property + " from " + row.getClass().getSimpleName(), e);
+			}
+		}
+		throw new IllegalArgumentException("Keyset property " + property + " is not part of the projection");
+	}
+
+	private String resolveIdAttribute() {
+		if (emf == null) {
+			return "id";
+		}
+		EntityType<?> metamodel = emf.getMetamodel().entity(entityType);
+		return metamodel.getId(metamodel.getIdType().getJavaType()).getName();
+	}
+
+	private Map<Method, QueryPlan> compileQueryPlans(Class<?> repositoryInterface) {
+		Map<Method, QueryPlan> plans = new HashMap<>();
+		for (Method method : repositoryInterface.getMethods()) {
+			if (method.getDeclaringClass() == CrudRepository.class || method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+				continue;
+			}
+			try {
+				plans.put(method, compileQueryPlan(method));
+			} catch (RuntimeException e) {
+				throw new IllegalStateException("Cannot derive a query for " + repositoryInterface.getSimpleName() + "." + method.getName() + ": " + e.getMessage(), e);
+			}
+		}
+		return Map.copyOf(plans);
+	}
+
+	private QueryPlan compileQueryPlan(Method method) {
+		String methodName = method.getName();
+		PartTree tree = PartTree.parse(methodName, this::isProperty);
+		QueryPlan.Operation operation = QueryPlan.Operation.of(methodName);
+		Class<?> returnType = getGenericReturnType(method);
+		Class<?> elementType = getElementType(method);
+		Projection projection = null;
+		if (operation == QueryPlan.Operation.SELECT && elementType != Object.class && !elementType.isAssignableFrom(entityType)) {
+			projection = Projection.of(elementType);
+			if (projection == null) {
+				throw new IllegalArgumentException("returns " + elementType.getSimpleName() + ", which is neither " + entityType.getSimpleName() + " nor a record or interface projection");
+			}
+		}
+		validateReturnType(operation, returnType);
+
+		String entityName = entityType.getSimpleName();
+		String baseSelect = switch (operation) {
+			case SELECT -> {
+				String select = projection != null ? projection.selectClause(entityName) : "SELECT e FROM " + entityName + " e";
+				yield tree.isDistinct() ? "SELECT DISTINCT " + select.substring("SELECT ".length()) : select;
+			}
+			case COUNT -> "SELECT COUNT(e) FROM " + entityName + " e";
+			// Any constant will do; only whether a row exists is read.
+			case EXISTS -> "SELECT 1 FROM " + entityName + " e";
+			case DELETE -> "DELETE FROM " + entityName + " e";
+		};
+		Class<?> resultType = switch (operation) {
+			case SELECT -> projection != null ? projection.queryType() : entityType;
+			case COUNT -> Long.class;
+			case EXISTS -> Integer.class;
+			case DELETE -> null;
+		};
+		DerivedQuery derived = DerivedQuery.render(tree, baseSelect);
+		String jpql = derived.jpql();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		int pageableIndex = parameterTypes.length > 0 && parameterTypes[parameterTypes.length - 1] == Pageable.class ? parameterTypes.length - 1 : -1;
+		int queryParameters = pageableIndex >= 0 ? parameterTypes.length - 1 : parameterTypes.length;
+		int expectedParameters = derived.argumentCount();
+		if (queryParameters != expectedParameters) {
+			throw new IllegalArgumentException("expected " + expectedParameters + " parameter(s) but found " + queryParameters);
+		}
+		String[] parameterNames = QueryPlan.parameterNames(expectedParameters);
+		for (SpatialPredicate predicate : derived.spatialPredicates()) {
+			predicate.validate(parameterTypes);
+			// Spatial arguments are bound by the predicate itself.
+			Arrays.fill(parameterNames, predicate.argumentIndex(), predicate.argumentIndex() + predicate.type().arguments(), null);
+		}
+		QueryPlan.ResultShape resultShape = QueryPlan.ResultShape.of(returnType);
+		if (resultShape.isPaged() && pageableIndex < 0) {
+			throw new IllegalArgumentException(resultShape + " results require a trailing Pageable parameter");
+		}
+		if (operation != QueryPlan.Operation.SELECT && pageableIndex >= 0) {
+			throw new IllegalArgumentException("a Pageable is only supported by find queries");
+		}
+
+		String namedQuery = resolveNamedQuery(method, jpql, resultType);
+		return planBuilder(jpql, baseSelect)
+			.methodName(methodName)
+			.operation(operation)
+			.resultType(resultType)
+			.returnType(returnType)
+			.projection(projection)
+			.namedQuery(namedQuery)
+			.declaredNamedQuery(namedQuery != null && !namedQuery.endsWith(DERIVED_QUERY_SUFFIX))
+			.limit(tree.getMaxResults())
+			.resultShape(resultShape)
+			.parameterNames(parameterNames)
+			.spatialPredicates(derived.spatialPredicates())
+			.pageableIndex(pageableIndex)
+			.build();
+	}
+
+	/**
+	 * Starts a plan for {@code jpql}, splitting it into the clauses needed to rebuild it for sorted and keyset pages.
+	 */
+	private QueryPlan.QueryPlanBuilder planBuilder(String jpql, String baseSelect) {
+		int whereIndex = jpql.indexOf(" WHERE ");
+		int orderIndex = jpql.indexOf(" ORDER BY ");
+		int whereEnd = orderIndex != -1 ? orderIndex : jpql.length();
+		String whereClause = whereIndex != -1 ? jpql.substring(whereIndex + " WHERE ".length(), whereEnd) : "";
+		String orderClause = orderIndex != -1 ? jpql.substring(orderIndex + " ORDER BY ".length()) : "";
+		String countSelect = "SELECT COUNT(e) FROM " + entityType.getSimpleName() + " e";
+		return QueryPlan.builder()
+			.jpql(jpql)
+			.cacheable(queryCacheEnabled)
+			.selectClause(baseSelect)
+			.whereClause(whereClause)
+			.orderClause(orderClause)
+			.countJpql(whereClause.isEmpty() ? countSelect : countSelect + " WHERE " + whereClause);
+	}
+
+	/**
+	 * Prefers a {@code @NamedQuery} called {@code Entity.methodName} declared on the entity.
+	 * Otherwise the derived JPQL is registered as a named query so Hibernate parses and validates it once, up front.
+	 * Named queries are global to the EntityManagerFactory, so the derived name carries the repository interface and
+	 * the parameter types; other repositories of the entity and overloads may derive different queries from the same name.
+	 */
+	private String resolveNamedQuery(Method method, String jpql, Class<?> resultType) {
+		String name = entityType.getSimpleName() + "." + method.getName();
+		for (NamedQuery declared : entityType.getAnnotationsByType(NamedQuery.class)) {
+			if (declared.name().equals(name)) {
+				return name;
 			}
 		}
+		if (emf == null) {
+			return null;
+		}
+		String derivedName = repositoryInterface.getName() + "." + method.getName()
+			+ Arrays.stream(method.getParameterTypes()).map(Class::getTypeName).collect(Collectors.joining(",", "(", ")"))
+			+ DERIVED_QUERY_SUFFIX;
+		EntityManager em = emf.createEntityManager();
+		try {
+			emf.addNamedQuery(derivedName, resultType != null ? em.createQuery(jpql, resultType) : em.createQuery(jpql));
+		} finally {
+			em.close();
+		}
+		return derivedName;
+	}
 
-		// Order By
-		if (orderByIndex != -1) {
-			String orderString = methodName.substring(orderByIndex + "OrderBy".length());
-			String propertyName = toCamelCase(orderString.replaceAll("Desc|Asc", ""));
-			String direction = orderString.endsWith("Desc") ? "DESC" : "ASC";
-			jpql.append(" ORDER BY e.").append(propertyName).append(" ").append(direction);
+	private String buildJpqlFromMethodName(String methodName, String baseSelect) {
+		return DerivedQuery.render(PartTree.parse(methodName, this::isProperty), baseSelect).jpql();
+	}
+
+	/**
+	 * Whether {@code path}, such as {@code home.x}, names a field of the entity or of its embeddables.
+	 */
+	private boolean isProperty(String path) {
+		Class<?> type = entityType;
+		for (String segment : path.split("\\.")) {
+			Field field = findField(type, segment);
+			if (field == null) {
+				return false;
+			}
+			type = field.getType();
 		}
+		return true;
+	}
 
-		return jpql.toString();
+	private static Field findField(Class<?> type, String name) {
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (field.getName().equals(name)) {
+					return field;
+				}
+			}
+		}
+		return null;
 	}
 
-	private String toCamelCase(String input) {
-		if (input.isEmpty()) return input;
-		return Character.toLowerCase(input.charAt(0)) + input.substring(1);
+	private void validateReturnType(QueryPlan.Operation operation, Class<?> returnType) {
+		boolean valid = switch (operation) {
+			case SELECT -> true;
+			case COUNT -> returnType == Long.class || returnType == Integer.class;
+			case EXISTS -> returnType == Boolean.class;
+			case DELETE -> returnType == Void.class || returnType == Long.class || returnType == Integer.class;
+		};
+		if (!valid) {
+			throw new IllegalArgumentException(operation.name().toLowerCase() + " queries cannot return " + returnType.getSimpleName());
+		}
+	}
+
+	/**
+	 * The entity or projection type of a method's rows: {@code X} in {@code CompletableFuture<X>},
+	 * {@code CompletableFuture<List<X>>}, {@code CompletableFuture<Optional<X>>} and so on.
+	 */
+	private Class<?> getElementType(Method method) {
+		java.lang.reflect.Type returnType = method.getGenericReturnType();
+		if (!(returnType instanceof ParameterizedType future) || future.getActualTypeArguments().length != 1) {
+			return Object.class;
+		}
+		java.lang.reflect.Type valueType = future.getActualTypeArguments()[0];
+		if (valueType instanceof Class<?> valueClass) {
+			return valueClass;
+		}
+		if (valueType instanceof ParameterizedType container && container.getActualTypeArguments().length == 1
+			&& container.getActualTypeArguments()[0] instanceof Class<?> elementClass) {
+			return elementClass;
+		}
+		return Object.class;
 	}
 
 	private Class<?> getGenericReturnType(Method method) {
@@ -159,35 +546,364 @@ public class RepositoryInvocationHandler implements InvocationHandler {
 		return Object.class;
 	}
 
-	private CompletableFuture<?> handleCrudMethod(String methodName, Object[] args) {
-		return CompletableFuture.supplyAsync(() -> {
+	@SuppressWarnings("unchecked")
+	CompletableFuture<?> handleCrudMethod(CrudMethod method, Object[] args) {
+		if (method == CrudMethod.FIND_ALL_PAGE) {
+			return handleDerivedQuery(findAllPagePlan, args);
+		}
+		if (method == CrudMethod.STREAM_ALL) {
+			return streamAll((Integer) args[0], (Consumer<List<Object>>) args[1]);
+		}
+		PlayerSessionCache sessions = sessionScoped ? factory.getSessionCacheIfPresent() : null;
+		Transaction transaction = Transaction.current(emf);
+		if (transaction != null) {
+			// Sessions are not consulted here: the caller has to see and change the transaction's own managed entities.
+			CompletableFuture<?> result = transaction.execute(() -> applyCrudMethod(transaction.getEntityManager(), method, args));
+			if (sessions != null && !method.isRead()) {
+				transaction.afterCommit(() -> syncSessions(sessions, method, args));
+			}
+			if (coalescer != null && !method.isRead()) {
+				transaction.afterCommit(coalescer::invalidate);
+			}
+			return result;
+		}
+		if (sessions != null) {
+			if (method == CrudMethod.FIND_BY_ID) {
+				Object cached = sessions.get(entityType, (UUID) args[0]);
+				if (cached != null) {
+					return CompletableFuture.completedFuture(cached);
+				}
+			} else if (!method.isRead()) {
+				return dispatchCrudMethod(method, args).thenApply(result -> {
+					syncSessions(sessions, method, args);
+					return result;
+				});
+			}
+		}
+		return dispatchCrudMethod(method, args);
+	}
+
+	private CompletableFuture<?> dispatchCrudMethod(CrudMethod method, Object[] args) {
+		if (coalescer != null) {
+			if (method == CrudMethod.FIND_BY_ID) {
+				return coalescer.findById(args[0], () -> submitCrudMethod(method, args));
+			}
+			if (!method.isRead()) {
+				return coalescer.write(() -> startCrudMethod(method, args));
+			}
+		}
+		return startCrudMethod(method, args);
+	}
+
+	private CompletableFuture<?> startCrudMethod(CrudMethod method, Object[] args) {
+		if (writeBehind != null) {
+			switch (method) {
+				case SAVE: return writeBehind.enqueue(args[0], false);
+				case DELETE: return writeBehind.enqueue(args[0], true);
+				case SAVE_ALL: return enqueueAll((Iterable<?>) args[0], false);
+				case DELETE_ALL: return enqueueAll((Iterable<?>) args[0], true);
+			}
+		}
+		return submitCrudMethod(method, args);
+	}
+
+	private CompletableFuture<?> submitCrudMethod(CrudMethod method, Object[] args) {
+		int parameterCount = args != null ? args.length : 0;
+		if (method.isRead()) {
+			return submit(method.methodName(), parameterCount, route(executor, method.priority()), () -> RoutingDataSource.readOnly(() -> executeCrudMethod(method, args)));
+		}
+		return submit(method.methodName(), parameterCount, route(writeExecutor, method.priority()), () -> executeCrudMethod(method, args));
+	}
+
+	private Object executeCrudMethod(CrudMethod method, Object[] args) {
+		if (upsertWriter != null && (method == CrudMethod.SAVE || method == CrudMethod.SAVE_ALL)) {
+			upsertWriter.write(method == CrudMethod.SAVE ? List.of(args[0]) : (Iterable<?>) args[0], List.of());
+			return null;
+		}
+		EntityManager em = emf.createEntityManager();
+		try {
+			if (method.isRead()) {
+				return applyCrudMethod(em, method, args);
+			}
+			em.getTransaction().begin();
+			Object result = applyCrudMethod(em, method, args);
+			em.getTransaction().commit();
+			return result;
+		} finally {
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			if (em.isOpen()) {
+				em.close();
+			}
+		}
+	}
+
+	/**
+	 * Runs a CRUD method on {@code em}; writes expect a transaction to be active.
+	 */
+	private Object applyCrudMethod(EntityManager em, CrudMethod method, Object[] args) {
+		switch (method) {
+			case FIND_BY_ID: return em.find(this.entityType, args[0]);
+			case SAVE:
+				em.merge(args[0]);
+				em.flush();
+				return null;
+			case DELETE:
+				Object entityToDelete = em.contains(args[0]) ? args[0] : em.merge(args[0]);
+				em.remove(entityToDelete);
+				return null;
+			case FIND_ALL:
+				String jpql = "SELECT e FROM " + entityType.getSimpleName() + " e";
+				TypedQuery<?> findAllQuery = em.createQuery(jpql, entityType);
+				return findAllQuery.getResultList();
+			case SAVE_ALL:
+				Map<Object, Object> stored = loadStored(em, (Iterable<?>) args[0]);
+				for (Object entity : (Iterable<?>) args[0]) {
+					Object id = emf.getPersistenceUnitUtil().getIdentifier(entity);
+					if (em.contains(entity) || (id != null && stored.containsKey(id))) {
+						// The row is already in the persistence context, so merging copies the state without a SELECT.
+						em.merge(entity);
+					} else {
+						em.persist(entity);
+						if (id != null) {
+							stored.put(id, entity);
+						}
+					}
+				}
+				return null;
+			case DELETE_ALL:
+				Map<Object, Object> toDelete = loadStored(em, (Iterable<?>) args[0]);
+				for (Object entity : (Iterable<?>) args[0]) {
+					Object managed = em.contains(entity) ? entity : toDelete.get(emf.getPersistenceUnitUtil().getIdentifier(entity));
+					if (managed != null) {
+						em.remove(managed);
+					}
+				}
+				return null;
+			case FIND_ALL_BY_ID:
+				List<Object> found = new ArrayList<>();
+				for (List<Object> chunk : chunk((Iterable<?>) args[0])) {
+					found.addAll(em.createQuery(findAllByIdJpql, entityType).setParameter("ids", chunk).getResultList());
+				}
+				return found;
+			case DELETE_ALL_BY_ID:
+				for (List<Object> chunk : chunk((Iterable<?>) args[0])) {
+					em.createQuery(deleteAllByIdJpql).setParameter("ids", chunk).executeUpdate();
+				}
+				return null;
+			default:
+				throw new UnsupportedOperationException(method.methodName());
+		}
+	}
+
+	/**
+	 * Loads the stored rows of {@code entities} into {@code em} with chunked {@code IN} queries, keyed by id,
+	 * instead of the SELECT per entity that merging detached entities one by one would cost.
+	 * Entities without an id are skipped.
+	 */
+	private Map<Object, Object> loadStored(EntityManager em, Iterable<?> entities) {
+		List<Object> ids = new ArrayList<>();
+		for (Object entity : entities) {
+			Object id = emf.getPersistenceUnitUtil().getIdentifier(entity);
+			if (id != null) {
+				ids.add(id);
+			}
+		}
+		Map<Object, Object> stored = new HashMap<>();
+		for (List<Object> chunk : chunk(ids)) {
+			for (Object entity : em.createQuery(findAllByIdJpql, entityType).setParameter("ids", chunk).getResultList()) {
+				stored.put(emf.getPersistenceUnitUtil().getIdentifier(entity), entity);
+			}
+		}
+		return stored;
+	}
+
+	/**
+	 * Loads a batch of {@link CoalesceReads} ids with one {@code IN} query, keyed by id.
+	 */
+	private CompletableFuture<Map<Object, Object>> findByIds(List<Object> ids) {
+		return submit(CrudMethod.FIND_BY_ID.methodName(), 1, route(executor, CrudMethod.FIND_BY_ID.priority()), () -> RoutingDataSource.readOnly(() -> {
 			EntityManager em = emf.createEntityManager();
 			try {
-				switch (methodName) {
-					case "findById": return em.find(this.entityType, args[0]);
-					case "save":
-						em.getTransaction().begin();
-						em.merge(args[0]);
-						em.flush();
-						em.getTransaction().commit();
-						return null;
-					case "delete":
-						em.getTransaction().begin();
-						Object entityToDelete = em.contains(args[0]) ? args[0] : em.merge(args[0]);
-						em.remove(entityToDelete);
-						em.getTransaction().commit();
-						return null;
-					case "findAll":
-						String jpql = "SELECT e FROM " + entityType.getSimpleName() + " e";
-						TypedQuery<?> findAllQuery = em.createQuery(jpql, entityType);
-						return findAllQuery.getResultList();
-				}
-			}finally {
-				if (em.isOpen()) {
-					em.close();
+				Map<Object, Object> found = new HashMap<>();
+				for (Object entity : em.createQuery(findAllByIdJpql, entityType).setParameter("ids", ids).getResultList()) {
+					found.put(emf.getPersistenceUnitUtil().getIdentifier(entity), entity);
 				}
+				return found;
+			} finally {
+				em.close();
 			}
+		}));
+	}
+
+	/**
+	 * Scrolls the whole table through a stateless session, so rows are never held by a persistence context,
+	 * and hands them to the consumer in chunks of {@code fetchSize}.
+	 * The scroll runs inside a transaction because PostgreSQL only honours the fetch size with auto-commit off.
+	 */
+	private CompletableFuture<?> streamAll(int fetchSize, Consumer<List<Object>> consumer) {
+		return submit("streamAll", 0, route(executor, CrudMethod.STREAM_ALL.priority()), () -> RoutingDataSource.readOnly(() -> {
+			scrollAll(fetchSize, consumer);
 			return null;
-		}, (runnable) -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable));
+		}));
+	}
+
+	private void scrollAll(int fetchSize, Consumer<List<Object>> consumer) {
+		String jpql = "SELECT e FROM " + entityType.getSimpleName() + " e";
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			session.getTransaction().begin();
+			try (ScrollableResults<?> results = session.createSelectionQuery(jpql, entityType)
+				.setFetchSize(fetchSize)
+				.scroll(ScrollMode.FORWARD_ONLY)) {
+				List<Object> chunk = new ArrayList<>(fetchSize);
+				while (results.next()) {
+					chunk.add(results.get());
+					if (chunk.size() == fetchSize) {
+						consumer.accept(chunk);
+						chunk = new ArrayList<>(fetchSize);
+					}
+				}
+				if (!chunk.isEmpty()) {
+					consumer.accept(chunk);
+				}
+			}
+			session.getTransaction().commit();
+		}
+	}
+
+	/**
+	 * Brings the sessions of online players in line with a save or delete once it has been written.
+	 */
+	private void syncSessions(PlayerSessionCache sessions, CrudMethod method, Object[] args) {
+		switch (method) {
+			case SAVE:
+				sessions.refresh(entityType, sessionId(args[0]), args[0]);
+				break;
+			case SAVE_ALL:
+				for (Object entity : (Iterable<?>) args[0]) {
+					sessions.refresh(entityType, sessionId(entity), entity);
+				}
+				break;
+			case DELETE:
+				sessions.evict(entityType, sessionId(args[0]));
+				break;
+			case DELETE_ALL:
+				for (Object entity : (Iterable<?>) args[0]) {
+					sessions.evict(entityType, sessionId(entity));
+				}
+				break;
+			case DELETE_ALL_BY_ID:
+				for (Object id : (Iterable<?>) args[0]) {
+					sessions.evict(entityType, (UUID) id);
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private UUID sessionId(Object entity) {
+		return (UUID) emf.getPersistenceUnitUtil().getIdentifier(entity);
+	}
+
+	private CompletableFuture<Void> enqueueAll(Iterable<?> entities, boolean delete) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (Object entity : entities) {
+			futures.add(writeBehind.enqueue(entity, delete));
+		}
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+	}
+
+	private record DerivedQueryKey(QueryPlan plan, List<Object> args) {
+	}
+
+	/**
+	 * Splits ids into chunks small enough to stay under every supported dialect's bind parameter limit.
+	 */
+	private static List<List<Object>> chunk(Iterable<?> ids) {
+		List<List<Object>> chunks = new ArrayList<>();
+		List<Object> current = new ArrayList<>();
+		for (Object id : ids) {
+			current.add(id);
+			if (current.size() == IN_CLAUSE_CHUNK_SIZE) {
+				chunks.add(current);
+				current = new ArrayList<>();
+			}
+		}
+		if (!current.isEmpty()) {
+			chunks.add(current);
+		}
+		return chunks;
+	}
+
+	/**
+	 * The methods of {@link CrudRepository}, so calls are dispatched on a constant instead of the method name.
+	 */
+	enum CrudMethod {
+		FIND_BY_ID("findById", RepositoryPriority.INTERACTIVE),
+		SAVE("save", RepositoryPriority.PLAYER),
+		DELETE("delete", RepositoryPriority.PLAYER),
+		FIND_ALL("findAll", RepositoryPriority.INTERACTIVE),
+		FIND_ALL_PAGE("findAll", RepositoryPriority.INTERACTIVE),
+		STREAM_ALL("streamAll", RepositoryPriority.BACKGROUND),
+		SAVE_ALL("saveAll", RepositoryPriority.BACKGROUND),
+		DELETE_ALL("deleteAll", RepositoryPriority.BACKGROUND),
+		FIND_ALL_BY_ID("findAllById", RepositoryPriority.INTERACTIVE),
+		DELETE_ALL_BY_ID("deleteAllById", RepositoryPriority.BACKGROUND);
+
+		private final String methodName;
+		private final RepositoryPriority priority;
+
+		CrudMethod(String methodName, RepositoryPriority priority) {
+			this.methodName = methodName;
+			this.priority = priority;
+		}
+
+		String methodName() {
+			return methodName;
+		}
+
+		/**
+		 * The default scheduling priority; bulk writes are background work.
+		 */
+		RepositoryPriority priority() {
+			return priority;
+		}
+
+		/**
+		 * Reads run on the read executor and may be routed to a replica.
+		 */
+		boolean isRead() {
+			return methodName.startsWith("find");
+		}
+
+		private static final Map<Method, CrudMethod> BY_METHOD = new HashMap<>();
+
+		static {
+			for (Method method : CrudRepository.class.getMethods()) {
+				BY_METHOD.put(method, resolve(method));
+			}
+		}
+
+		static CrudMethod of(Method method) {
+			CrudMethod crudMethod = BY_METHOD.get(method);
+			if (crudMethod == null) {
+				throw new UnsupportedOperationException("Unknown repository method: " + method.getName());
+			}
+			return crudMethod;
+		}
+
+		private static CrudMethod resolve(Method method) {
+			if (method.getName().equals("findAll")) {
+				return method.getParameterCount() == 0 ? FIND_ALL : FIND_ALL_PAGE;
+			}
+			for (CrudMethod crudMethod : values()) {
+				if (crudMethod.methodName.equals(method.getName())) {
+					return crudMethod;
+				}
+			}
+			throw new UnsupportedOperationException("Unknown repository method: " + method.getName());
+		}
 	}
 }
@@ -0,0 +1,9 @@
+package com.kardasland.repository;
+
+import java.util.List;
+
+/**
+ * A chunk of results that knows whether more follow, without counting the whole result set.
+ */
+public record Slice<T>(List<T> content, Pageable pageable, boolean hasNext, Pageable nextPageable) {
+}
@@ -0,0 +1,56 @@
+package com.kardasland.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Ordering applied to a paged query, e.g. {@code Sort.by(Sort.Order.desc("level"), Sort.Order.asc("username"))}.
+ */
+public record Sort(List<Order> orders) {
+
+	private static final Sort UNSORTED = new Sort(List.of());
+	private static final Pattern PROPERTY_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+
+	public Sort {
+		orders = List.copyOf(orders);
+	}
+
+	public static Sort unsorted() {
+		return UNSORTED;
+	}
+
+	public static Sort by(String... properties) {
+		List<Order> orders = new ArrayList<>(properties.length);
+		for (String property : properties) {
+			orders.add(Order.asc(property));
+		}
+		return new Sort(orders);
+	}
+
+	public static Sort by(Order... orders) {
+		return new Sort(List.of(orders));
+	}
+
+	public boolean isUnsorted() {
+		return orders.isEmpty();
+	}
+
+	public record Order(String property, boolean descending) {
+
+		public Order {
+			// Properties end up in JPQL, so only plain attribute paths are accepted.
+			if (!PROPERTY_PATTERN.matcher(property).matches()) {
+				throw new IllegalArgumentException("Invalid sort property: " + property);
+			}
+		}
+
+		public static Order asc(String property) {
+			return new Order(property, false);
+		}
+
+		public static Order desc(String property) {
+			return new Order(property, true);
+		}
+	}
+}
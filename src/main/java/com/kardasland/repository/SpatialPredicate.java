@@ -0,0 +1,82 @@
+package com.kardasland.repository;
+
+import com.kardasland.location.StoredLocation;
+import com.kardasland.repository.query.Part;
+import jakarta.persistence.Query;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+
+/**
+ * A {@code Within} or {@code InChunk} condition on a {@link StoredLocation} property.
+ * Radius searches pre-filter on a bounding box over the coordinate columns and then check the exact distance,
+ * so an index on the world and coordinate columns can be used.
+ * @param argumentIndex Index of the first method argument the predicate consumes.
+ */
+record SpatialPredicate(Part.Type type, String property, int argumentIndex) {
+
+	String jpql() {
+		String path = "e." + property;
+		String prefix = ":arg" + argumentIndex;
+		if (type == Part.Type.IN_CHUNK) {
+			return "(" + path + ".worldId = " + prefix + "World AND " + path + ".chunkKey = " + prefix + "Chunk)";
+		}
+		StringBuilder jpql = new StringBuilder("(").append(path).append(".worldId = ").append(prefix).append("World");
+		for (String axis : new String[]{"X", "Y", "Z"}) {
+			String column = path + "." + axis.toLowerCase();
+			jpql.append(" AND ").append(column).append(" BETWEEN ").append(prefix).append("Min").append(axis)
+				.append(" AND ").append(prefix).append("Max").append(axis);
+		}
+		jpql.append(" AND ");
+		for (String axis : new String[]{"X", "Y", "Z"}) {
+			String difference = "(" + path + "." + axis.toLowerCase() + " - " + prefix + axis + ")";
+			if (!axis.equals("X")) {
+				jpql.append(" + ");
+			}
+			jpql.append(difference).append(" * ").append(difference);
+		}
+		return jpql.append(" <= ").append(prefix).append("RadiusSquared)").toString();
+	}
+
+	void validate(Class<?>[] parameterTypes) {
+		boolean valid = switch (type) {
+			case WITHIN -> parameterTypes.length > argumentIndex + 1
+				&& Location.class.isAssignableFrom(parameterTypes[argumentIndex])
+				&& isNumber(parameterTypes[argumentIndex + 1]);
+			case IN_CHUNK -> parameterTypes.length > argumentIndex && Chunk.class.isAssignableFrom(parameterTypes[argumentIndex]);
+			default -> throw new IllegalArgumentException(type + " is not a spatial condition");
+		};
+		if (!valid) {
+			throw new IllegalArgumentException(property + (type == Part.Type.WITHIN ? "Within takes (Location center, double radius)" : "InChunk takes (Chunk chunk)"));
+		}
+	}
+
+	void bind(Query query, Object[] args) {
+		String prefix = "arg" + argumentIndex;
+		if (type == Part.Type.IN_CHUNK) {
+			Chunk chunk = (Chunk) args[argumentIndex];
+			query.setParameter(prefix + "World", chunk.getWorld().getUID());
+			query.setParameter(prefix + "Chunk", StoredLocation.chunkKey(chunk.getX(), chunk.getZ()));
+			return;
+		}
+		Location center = (Location) args[argumentIndex];
+		if (center.getWorld() == null) {
+			throw new IllegalArgumentException("Center location must have a valid world.");
+		}
+		double radius = ((Number) args[argumentIndex + 1]).doubleValue();
+		query.setParameter(prefix + "World", center.getWorld().getUID());
+		query.setParameter(prefix + "MinX", center.getX() - radius);
+		query.setParameter(prefix + "MaxX", center.getX() + radius);
+		query.setParameter(prefix + "MinY", center.getY() - radius);
+		query.setParameter(prefix + "MaxY", center.getY() + radius);
+		query.setParameter(prefix + "MinZ", center.getZ() - radius);
+		query.setParameter(prefix + "MaxZ", center.getZ() + radius);
+		query.setParameter(prefix + "X", center.getX());
+		query.setParameter(prefix + "Y", center.getY());
+		query.setParameter(prefix + "Z", center.getZ());
+		query.setParameter(prefix + "RadiusSquared", radius * radius);
+	}
+
+	private static boolean isNumber(Class<?> type) {
+		return type == double.class || type == float.class || type == int.class || type == long.class || Number.class.isAssignableFrom(type);
+	}
+}
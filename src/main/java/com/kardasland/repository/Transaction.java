@@ -0,0 +1,169 @@
+package com.kardasland.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.exception.LockAcquisitionException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A unit of work started with {@link RepositoryFactory#transaction}. While the work runs, calls to repositories of the
+ * same factory on that thread share this transaction's EntityManager and connection, run immediately and return
+ * completed futures, so they can be joined right away. Everything commits once when the work returns.
+ * Write-behind, upsert, read coalescing and player sessions are bypassed inside a transaction; sessions are
+ * updated once it commits. {@code streamAll} still runs on its own.
+ */
+public final class Transaction {
+
+	private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+	private final EntityManagerFactory emf;
+	private final EntityManager entityManager;
+	private final int attempt;
+	private final List<Runnable> afterCommit = new ArrayList<>();
+	private boolean rollbackOnly;
+	private RuntimeException failure;
+
+	private Transaction(EntityManagerFactory emf, EntityManager entityManager, int attempt) {
+		this.emf = emf;
+		this.entityManager = entityManager;
+		this.attempt = attempt;
+	}
+
+	/**
+	 * The shared EntityManager, for queries the repositories do not cover. Do not commit or close it.
+	 */
+	public EntityManager getEntityManager() {
+		return entityManager;
+	}
+
+	/**
+	 * 1 on the first run, higher when the work is retried after a deadlock or busy database.
+	 */
+	public int getAttempt() {
+		return attempt;
+	}
+
+	/**
+	 * Rolls the transaction back instead of committing once the work returns. The work's result is still returned.
+	 */
+	public void setRollbackOnly() {
+		rollbackOnly = true;
+	}
+
+	public boolean isRollbackOnly() {
+		return rollbackOnly;
+	}
+
+	/**
+	 * Runs {@code action} on this thread once the transaction has committed, for in-memory state that has to follow
+	 * the database. Nothing runs if it rolls back, and an attempt that is retried drops the actions it registered.
+	 */
+	public void afterCommit(Runnable action) {
+		afterCommit.add(action);
+	}
+
+	/**
+	 * The transaction running on this thread for {@code emf}, or {@code null}.
+	 */
+	static Transaction current(EntityManagerFactory emf) {
+		Transaction transaction = CURRENT.get();
+		return transaction != null && transaction.emf == emf ? transaction : null;
+	}
+
+	/**
+	 * Runs a repository call inside this transaction. A failure fails the whole transaction,
+	 * even if the caller never looks at the returned future.
+	 */
+	<R> CompletableFuture<R> execute(Supplier<R> call) {
+		try {
+			return CompletableFuture.completedFuture(call.get());
+		} catch (RuntimeException e) {
+			if (failure == null) {
+				failure = e;
+			}
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Runs {@code work} in a new transaction on the calling thread, retrying it up to {@code maxRetries} times
+	 * when the database reports a deadlock, a serialization failure or {@code SQLITE_BUSY}.
+	 */
+	static <R> R run(EntityManagerFactory emf, int maxRetries, Function<Transaction, R> work, Logger logger) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return runOnce(emf, attempt, work);
+			} catch (RuntimeException e) {
+				if (attempt > maxRetries || !isRetryable(e)) {
+					throw e;
+				}
+				logger.fine("Retrying transaction after attempt " + attempt + ": " + e.getMessage());
+				backOff(attempt);
+			}
+		}
+	}
+
+	private static <R> R runOnce(EntityManagerFactory emf, int attempt, Function<Transaction, R> work) {
+		EntityManager em = emf.createEntityManager();
+		Transaction transaction = new Transaction(emf, em, attempt);
+		CURRENT.set(transaction);
+		try {
+			em.getTransaction().begin();
+			R result = work.apply(transaction);
+			if (transaction.failure != null) {
+				throw transaction.failure;
+			}
+			if (transaction.rollbackOnly) {
+				em.getTransaction().rollback();
+			} else {
+				em.getTransaction().commit();
+				transaction.afterCommit.forEach(Runnable::run);
+			}
+			return result;
+		} finally {
+			CURRENT.remove();
+			if (em.getTransaction().isActive()) {
+				em.getTransaction().rollback();
+			}
+			em.close();
+		}
+	}
+
+	static boolean isRetryable(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof LockAcquisitionException) {
+				return true;
+			}
+			if (cause instanceof SQLException sql) {
+				String state = sql.getSQLState();
+				// Serialization failure, PostgreSQL deadlock, MySQL deadlock and lock wait timeout.
+				if ("40001".equals(state) || "40P01".equals(state) || sql.getErrorCode() == 1213 || sql.getErrorCode() == 1205) {
+					return true;
+				}
+				String message = sql.getMessage();
+				if (message != null && (message.contains("SQLITE_BUSY") || message.contains("SQLITE_LOCKED"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void backOff(int attempt) {
+		long millis = (10L << Math.min(attempt - 1, 6)) + ThreadLocalRandom.current().nextLong(10);
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying a transaction", e);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.kardasland.repository;
+
+import com.kardasland.annotation.Upsert;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.Cache;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes entities of {@link Upsert} repositories through a stateless session, so a save is one statement
+ * instead of a select followed by an insert or update. Statements are batched with the configured JDBC batch size.
+ */
+final class UpsertWriter {
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final PersistenceUnitUtil persistenceUnitUtil;
+
+	UpsertWriter(EntityManagerFactory emf) {
+		this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+		this.persistenceUnitUtil = emf.getPersistenceUnitUtil();
+	}
+
+	/**
+	 * Upserts {@code saves} and deletes {@code deletes} in one transaction.
+	 */
+	void write(Iterable<?> saves, Iterable<?> deletes) {
+		List<Object> upserts = new ArrayList<>();
+		List<Object> inserts = new ArrayList<>();
+		for (Object entity : saves) {
+			(persistenceUnitUtil.getIdentifier(entity) != null ? upserts : inserts).add(entity);
+		}
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			session.setJdbcBatchSize(sessionFactory.getSessionFactoryOptions().getJdbcBatchSize());
+			session.getTransaction().begin();
+			try {
+				if (!upserts.isEmpty()) {
+					session.upsertMultiple(upserts);
+				}
+				if (!inserts.isEmpty()) {
+					session.insertMultiple(inserts);
+				}
+				for (Object entity : deletes) {
+					session.delete(entity);
+				}
+				session.getTransaction().commit();
+			} catch (RuntimeException e) {
+				if (session.getTransaction().isActive()) {
+					session.getTransaction().rollback();
+				}
+				throw e;
+			}
+		}
+		evictCached(saves, deletes);
+	}
+
+	/**
+	 * Makes sure no second-level cache entry or cached query result outlives the write, whatever cache mode
+	 * the stateless session ran with.
+	 */
+	private void evictCached(Iterable<?> saves, Iterable<?> deletes) {
+		if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+			return;
+		}
+		Cache cache = sessionFactory.getCache();
+		for (Iterable<?> written : List.of(saves, deletes)) {
+			for (Object entity : written) {
+				Object id = persistenceUnitUtil.getIdentifier(entity);
+				if (id != null) {
+					cache.evictEntityData(entity.getClass(), id);
+				}
+			}
+		}
+		if (sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+			cache.evictDefaultQueryRegion();
+		}
+	}
+}
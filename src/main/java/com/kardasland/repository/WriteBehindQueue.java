@@ -0,0 +1,167 @@
+package com.kardasland.repository;
+
+import com.kardasland.annotation.WriteBehind;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+/**
+ * Coalescing queue backing {@link WriteBehind} repositories.
+ * Pending writes are keyed by entity id so only the latest save or delete per id reaches the database.
+ */
+final class WriteBehindQueue {
+
+	private final EntityManagerFactory emf;
+	private final JavaPlugin plugin;
+	private final Executor executor;
+	private final int maxBatchSize;
+	private final Map<Object, PendingWrite> pending = new LinkedHashMap<>();
+	private final Object flushLock = new Object();
+	private final BukkitTask flushTask;
+	private final UpsertWriter upsertWriter;
+	private boolean closed;
+
+	/**
+	 * @param upsertWriter Writes the batches of an {@link com.kardasland.annotation.Upsert} repository, otherwise {@code null}.
+	 */
+	WriteBehindQueue(EntityManagerFactory emf, JavaPlugin plugin, Executor executor, WriteBehind settings, UpsertWriter upsertWriter) {
+		this.emf = emf;
+		this.upsertWriter = upsertWriter;
+		this.plugin = plugin;
+		this.executor = executor;
+		this.maxBatchSize = Math.max(1, settings.maxBatchSize());
+		long periodTicks = Math.max(1L, settings.flushIntervalMillis() / 50L);
+		this.flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> executor.execute(this::flush), periodTicks, periodTicks);
+	}
+
+	/**
+	 * Queues a save or delete. Once the queue is closed the returned future fails with a
+	 * {@link RejectedExecutionException} instead, since nothing would ever flush the write.
+	 */
+	CompletableFuture<Void> enqueue(Object entity, boolean delete) {
+		Object id = emf.getPersistenceUnitUtil().getIdentifier(entity);
+		// Entities without an assigned id cannot be coalesced, so they get a key of their own.
+		Object key = id != null ? id : new Object();
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		boolean full;
+		synchronized (pending) {
+			if (closed) {
+				return CompletableFuture.failedFuture(new RejectedExecutionException("Write-behind queue is closed"));
+			}
+			PendingWrite write = pending.get(key);
+			if (write == null) {
+				write = new PendingWrite();
+				pending.put(key, write);
+			}
+			write.entity = entity;
+			write.delete = delete;
+			write.waiters.add(future);
+			full = pending.size() >= maxBatchSize;
+		}
+		if (full) {
+			try {
+				executor.execute(this::flush);
+			} catch (RejectedExecutionException e) {
+				// The writes stay queued for the next timed flush or the one on close.
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Commits every pending write in one transaction. Flushes are serialized so that
+	 * a later batch can never overtake an earlier one for the same id.
+	 */
+	void flush() {
+		synchronized (flushLock) {
+			List<PendingWrite> batch;
+			synchronized (pending) {
+				if (pending.isEmpty()) {
+					return;
+				}
+				batch = new ArrayList<>(pending.values());
+				pending.clear();
+			}
+			if (upsertWriter != null) {
+				upsert(batch);
+				return;
+			}
+
+			EntityManager em = emf.createEntityManager();
+			try {
+				em.getTransaction().begin();
+				for (PendingWrite write : batch) {
+					if (write.delete) {
+						Object managed = em.contains(write.entity) ? write.entity : em.merge(write.entity);
+						em.remove(managed);
+					} else {
+						em.merge(write.entity);
+					}
+				}
+				em.getTransaction().commit();
+				for (PendingWrite write : batch) {
+					write.waiters.forEach(waiter -> waiter.complete(null));
+				}
+			} catch (Exception e) {
+				if (em.getTransaction().isActive()) {
+					em.getTransaction().rollback();
+				}
+				plugin.getLogger().log(Level.SEVERE, "Write-behind batch of " + batch.size() + " entities failed", e);
+				for (PendingWrite write : batch) {
+					write.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+				}
+			} finally {
+				if (em.isOpen()) {
+					em.close();
+				}
+			}
+		}
+	}
+
+	private void upsert(List<PendingWrite> batch) {
+		List<Object> saves = new ArrayList<>();
+		List<Object> deletes = new ArrayList<>();
+		for (PendingWrite write : batch) {
+			(write.delete ? deletes : saves).add(write.entity);
+		}
+		try {
+			upsertWriter.write(saves, deletes);
+			for (PendingWrite write : batch) {
+				write.waiters.forEach(waiter -> waiter.complete(null));
+			}
+		} catch (Exception e) {
+			plugin.getLogger().log(Level.SEVERE, "Write-behind batch of " + batch.size() + " entities failed", e);
+			for (PendingWrite write : batch) {
+				write.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+			}
+		}
+	}
+
+	/**
+	 * Stops the periodic flush and commits whatever is still queued.
+	 */
+	void close() {
+		synchronized (pending) {
+			closed = true;
+		}
+		flushTask.cancel();
+		flush();
+	}
+
+	private static final class PendingWrite {
+		private Object entity;
+		private boolean delete;
+		private final List<CompletableFuture<Void>> waiters = new ArrayList<>(1);
+	}
+}
@@ -0,0 +1,118 @@
+package com.kardasland.repository.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * One condition of a derived query, e.g. {@code LevelGreaterThan} or {@code UsernameIgnoreCase}.
+ * @param property The attribute path; {@code Home_X} in a method name becomes {@code home.x}.
+ */
+public record Part(String property, Type type, boolean ignoreCase) {
+
+	private static final String[] IGNORE_CASE = {"IgnoringCase", "IgnoreCase"};
+	// Every keyword, longest first, so that NotIn wins over In and IsNotNull over Null.
+	private static final List<Keyword> KEYWORDS = new ArrayList<>();
+
+	static {
+		for (Type type : Type.values()) {
+			for (String keyword : type.keywords) {
+				KEYWORDS.add(new Keyword(keyword, type));
+			}
+		}
+		KEYWORDS.sort(Comparator.comparingInt((Keyword keyword) -> keyword.text().length()).reversed());
+	}
+
+	public enum Type {
+		BETWEEN(2, "IsBetween", "Between"),
+		IS_NOT_NULL(0, "IsNotNull", "NotNull"),
+		IS_NULL(0, "IsNull", "Null"),
+		LESS_THAN_EQUAL(1, "IsLessThanEqual", "LessThanEqual"),
+		LESS_THAN(1, "IsLessThan", "LessThan", "IsBefore", "Before"),
+		GREATER_THAN_EQUAL(1, "IsGreaterThanEqual", "GreaterThanEqual"),
+		GREATER_THAN(1, "IsGreaterThan", "GreaterThan", "IsAfter", "After"),
+		NOT_LIKE(1, "IsNotLike", "NotLike"),
+		LIKE(1, "IsLike", "Like"),
+		STARTING_WITH(1, "IsStartingWith", "StartingWith", "StartsWith"),
+		ENDING_WITH(1, "IsEndingWith", "EndingWith", "EndsWith"),
+		CONTAINING(1, "IsContaining", "Containing", "Contains"),
+		NOT_IN(1, "IsNotIn", "NotIn"),
+		IN(1, "IsIn", "In"),
+		TRUE(0, "IsTrue", "True"),
+		FALSE(0, "IsFalse", "False"),
+		/**
+		 * Radius search on a {@link com.kardasland.location.StoredLocation}: {@code (Location center, double radius)}.
+		 */
+		WITHIN(2, "IsWithin", "Within"),
+		/**
+		 * Chunk lookup on a {@link com.kardasland.location.StoredLocation}: {@code (Chunk chunk)}.
+		 */
+		IN_CHUNK(1, "IsInChunk", "InChunk"),
+		NOT(1, "IsNot", "Not"),
+		EQUALS(1, "Is", "Equals"),
+		SIMPLE_PROPERTY(1);
+
+		private final int arguments;
+		private final String[] keywords;
+
+		Type(int arguments, String... keywords) {
+			this.arguments = arguments;
+			this.keywords = keywords;
+		}
+
+		/**
+		 * Number of method arguments the condition consumes.
+		 */
+		public int arguments() {
+			return arguments;
+		}
+	}
+
+	/**
+	 * @param isProperty Tells whether an attribute path exists on the entity, or {@code null} if unknown. When a keyword
+	 * suffix would turn an existing property into a missing one (such as {@code Login} into {@code Log} + {@code In}),
+	 * the suffix is read as part of the name instead.
+	 */
+	static Part parse(String text, boolean allIgnoreCase, Predicate<String> isProperty) {
+		boolean ignoreCase = allIgnoreCase;
+		for (String suffix : IGNORE_CASE) {
+			if (text.endsWith(suffix) && text.length() > suffix.length()) {
+				text = text.substring(0, text.length() - suffix.length());
+				ignoreCase = true;
+				break;
+			}
+		}
+		for (Keyword keyword : KEYWORDS) {
+			if (!text.endsWith(keyword.text()) || text.length() == keyword.text().length()) {
+				continue;
+			}
+			String property = toPropertyPath(text.substring(0, text.length() - keyword.text().length()));
+			if (isProperty != null && !isProperty.test(property) && isProperty.test(toPropertyPath(text))) {
+				continue;
+			}
+			return new Part(property, keyword.type(), ignoreCase);
+		}
+		if (text.isEmpty()) {
+			throw new IllegalArgumentException("empty condition");
+		}
+		return new Part(toPropertyPath(text), Type.SIMPLE_PROPERTY, ignoreCase);
+	}
+
+	static String toPropertyPath(String text) {
+		StringBuilder path = new StringBuilder(text.length());
+		for (String segment : text.split("_")) {
+			if (segment.isEmpty()) {
+				throw new IllegalArgumentException("invalid property path: " + text);
+			}
+			if (!path.isEmpty()) {
+				path.append('.');
+			}
+			path.append(Character.toLowerCase(segment.charAt(0))).append(segment, 1, segment.length());
+		}
+		return path.toString();
+	}
+
+	private record Keyword(String text, Type type) {
+	}
+}
@@ -0,0 +1,158 @@
+package com.kardasland.repository.query;
+
+import com.kardasland.repository.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed form of a derived query method name:
+ * {@code <prefix>[Distinct][First|Top<n>]…By<condition>[And|Or<condition>…][AllIgnoreCase][OrderBy<property>[Asc|Desc]…]}.
+ * Conditions are grouped as a disjunction of conjunctions, matching how JPQL binds {@code AND} tighter than {@code OR}.
+ * Connectives and {@code OrderBy} are only recognised between a lowercase letter or digit and an uppercase letter,
+ * so properties such as {@code Order} or {@code Color} are never split.
+ */
+public final class PartTree {
+
+	private static final Pattern PREFIX = Pattern.compile("^(find|read|get|query|search|stream|count|exists|delete|remove)");
+	private static final Pattern LIMIT = Pattern.compile("(First|Top)(\\d*)(?=\\p{Lu}|$)");
+	private static final Pattern OR = Pattern.compile("(?<=[a-z0-9])Or(?=\\p{Lu})");
+	private static final Pattern AND = Pattern.compile("(?<=[a-z0-9])And(?=\\p{Lu})");
+	private static final Pattern ORDER_BY = Pattern.compile("(?:^|(?<=[a-z0-9]))OrderBy(?=\\p{Lu})");
+	private static final Pattern ORDER_SPLIT = Pattern.compile("(?<=Asc|Desc)(?=\\p{Lu})");
+	private static final String[] ALL_IGNORE_CASE = {"AllIgnoringCase", "AllIgnoreCase"};
+
+	private final boolean distinct;
+	private final int maxResults;
+	private final List<List<Part>> predicate;
+	private final Sort sort;
+
+	private PartTree(boolean distinct, int maxResults, List<List<Part>> predicate, Sort sort) {
+		this.distinct = distinct;
+		this.maxResults = maxResults;
+		this.predicate = predicate;
+		this.sort = sort;
+	}
+
+	public static PartTree parse(String methodName) {
+		return parse(methodName, null);
+	}
+
+	/**
+	 * @param isProperty Tells whether an attribute path exists on the entity, used to tell keywords from property names
+	 * that happen to end like one. May be {@code null}.
+	 */
+	public static PartTree parse(String methodName, Predicate<String> isProperty) {
+		Matcher prefix = PREFIX.matcher(methodName);
+		if (!prefix.lookingAt()) {
+			throw new IllegalArgumentException("method name must start with find, read, get, query, search, stream, count, exists, delete or remove");
+		}
+		int byIndex = indexOfBy(methodName, prefix.end());
+		String subject = byIndex == -1 ? methodName.substring(prefix.end()) : methodName.substring(prefix.end(), byIndex);
+		String criteria = byIndex == -1 ? "" : methodName.substring(byIndex + 2);
+
+		int maxResults = 0;
+		Matcher limit = LIMIT.matcher(subject);
+		if (limit.find()) {
+			maxResults = limit.group(2).isEmpty() ? 1 : Integer.parseInt(limit.group(2));
+			if (maxResults < 1) {
+				throw new IllegalArgumentException(limit.group() + " must be positive");
+			}
+		}
+
+		String order = "";
+		Matcher orderBy = ORDER_BY.matcher(criteria);
+		if (orderBy.find()) {
+			order = criteria.substring(orderBy.end());
+			criteria = criteria.substring(0, orderBy.start());
+		}
+
+		boolean allIgnoreCase = false;
+		for (String suffix : ALL_IGNORE_CASE) {
+			if (criteria.endsWith(suffix)) {
+				criteria = criteria.substring(0, criteria.length() - suffix.length());
+				allIgnoreCase = true;
+				break;
+			}
+		}
+
+		List<List<Part>> predicate = new ArrayList<>();
+		if (!criteria.isEmpty()) {
+			for (String disjunct : OR.split(criteria)) {
+				List<Part> conjunction = new ArrayList<>();
+				for (String condition : AND.split(disjunct)) {
+					conjunction.add(Part.parse(condition, allIgnoreCase, isProperty));
+				}
+				predicate.add(List.copyOf(conjunction));
+			}
+		}
+		return new PartTree(subject.contains("Distinct"), maxResults, List.copyOf(predicate), parseSort(order));
+	}
+
+	private static int indexOfBy(String methodName, int from) {
+		int index = methodName.indexOf("By", from);
+		while (index != -1) {
+			int next = index + 2;
+			if (next == methodName.length() || Character.isUpperCase(methodName.charAt(next))) {
+				return index;
+			}
+			index = methodName.indexOf("By", next);
+		}
+		return -1;
+	}
+
+	private static Sort parseSort(String order) {
+		if (order.isEmpty()) {
+			return Sort.unsorted();
+		}
+		List<Sort.Order> orders = new ArrayList<>();
+		for (String key : ORDER_SPLIT.split(order)) {
+			if (key.endsWith("Desc") && key.length() > 4) {
+				orders.add(Sort.Order.desc(Part.toPropertyPath(key.substring(0, key.length() - 4))));
+			} else if (key.endsWith("Asc") && key.length() > 3) {
+				orders.add(Sort.Order.asc(Part.toPropertyPath(key.substring(0, key.length() - 3))));
+			} else {
+				orders.add(Sort.Order.asc(Part.toPropertyPath(key)));
+			}
+		}
+		return new Sort(orders);
+	}
+
+	public boolean isDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * Row limit from {@code First}/{@code Top}, or {@code 0} for none.
+	 */
+	public int getMaxResults() {
+		return maxResults;
+	}
+
+	/**
+	 * Conditions as a disjunction of conjunctions; empty when the method has no criteria.
+	 */
+	public List<List<Part>> getPredicate() {
+		return predicate;
+	}
+
+	public Sort getSort() {
+		return sort;
+	}
+
+	/**
+	 * Number of method arguments consumed by the conditions.
+	 */
+	public int getArgumentCount() {
+		int count = 0;
+		for (List<Part> conjunction : predicate) {
+			for (Part part : conjunction) {
+				count += part.type().arguments();
+			}
+		}
+		return count;
+	}
+}
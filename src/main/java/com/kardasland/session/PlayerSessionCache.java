@@ -0,0 +1,318 @@
+package com.kardasland.session;
+
+import com.kardasland.concurrent.RepositoryPriority;
+import com.kardasland.repository.CrudRepository;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * In-memory copies of {@link com.kardasland.annotation.SessionScoped} entities for online players.
+ * Entities are loaded during {@link AsyncPlayerPreLoginEvent}, or right away for players already online when the cache
+ * starts or a type is registered, read on the main thread with {@link #get(Class, UUID)}
+ * at the cost of two map lookups, and written back in batches on quit, on an interval and on {@link #close()}.
+ * Call {@link #markDirty(Class, UUID)} after changing a cached entity so the next flush saves it.
+ * Entities whose save fails stay dirty and are retried by the next flush, even after their player has quit.
+ */
+public class PlayerSessionCache implements Listener {
+
+	public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMinutes(5);
+
+	private final JavaPlugin plugin;
+	private final long flushPeriodTicks;
+	private final Map<Class<?>, CrudRepository<Object, UUID>> repositories = new ConcurrentHashMap<>();
+	private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+	private final Map<UUID, CompletableFuture<Void>> pendingQuitFlushes = new ConcurrentHashMap<>();
+	/**
+	 * Sessions of players whose quit save failed, kept until a later flush saves them or the player rejoins.
+	 * Locked while a session is handed between a flush and a login.
+	 */
+	private final Map<UUID, Session> unsavedQuitSessions = new ConcurrentHashMap<>();
+	private volatile boolean started;
+	private volatile boolean closed;
+	private volatile BukkitTask flushTask;
+
+	/**
+	 * May be created on any thread; the listeners and the periodic flush are set up on the main thread.
+	 */
+	public PlayerSessionCache(JavaPlugin plugin, Duration flushInterval) {
+		this.plugin = plugin;
+		this.flushPeriodTicks = Math.max(1L, flushInterval.toMillis() / 50L);
+		onMainThread(this::start);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void register(Class<?> entityType, CrudRepository<?, UUID> repository) {
+		repositories.put(entityType, (CrudRepository<Object, UUID>) repository);
+		if (started) {
+			onMainThread(() -> loadOnlinePlayers(entityType, (CrudRepository<Object, UUID>) repository));
+		}
+	}
+
+	public boolean isRegistered(Class<?> entityType) {
+		return repositories.containsKey(entityType);
+	}
+
+	/**
+	 * Returns the cached entity, or {@code null} if the player has no session or no row of that type.
+	 * Performs no I/O and is safe to call from the main thread.
+	 */
+	public <T> T get(Class<T> entityType, UUID playerId) {
+		Session session = sessions.get(playerId);
+		return session == null ? null : entityType.cast(session.entities.get(entityType));
+	}
+
+	/**
+	 * Stores an entity in the player's session, for example one created on first join, and marks it dirty.
+	 * Ignored if the player has no session.
+	 */
+	public void put(UUID playerId, Object entity) {
+		Session session = sessions.get(playerId);
+		if (session != null) {
+			session.entities.put(entity.getClass(), entity);
+			session.dirty.add(entity.getClass());
+		}
+	}
+
+	public void markDirty(Class<?> entityType, UUID playerId) {
+		Session session = sessions.get(playerId);
+		if (session != null && session.entities.containsKey(entityType)) {
+			session.dirty.add(entityType);
+		}
+	}
+
+	/**
+	 * Replaces the cached copy after it was saved through its repository. The entity is not marked dirty.
+	 */
+	public void refresh(Class<?> entityType, UUID playerId, Object entity) {
+		Session session = sessions.get(playerId);
+		if (session != null) {
+			session.entities.put(entityType, entity);
+		}
+	}
+
+	public void evict(Class<?> entityType, UUID playerId) {
+		Session session = sessions.get(playerId);
+		if (session != null) {
+			session.entities.remove(entityType);
+			session.dirty.remove(entityType);
+		}
+	}
+
+	/**
+	 * Drops every cached entity of a type, for deletes that do not say which players they hit.
+	 */
+	public void evictAll(Class<?> entityType) {
+		for (Session session : sessions.values()) {
+			session.entities.remove(entityType);
+			session.dirty.remove(entityType);
+		}
+	}
+
+	/**
+	 * Saves every dirty entity of every online player, one {@code saveAll} transaction per entity type,
+	 * and retries the saves that failed for players who have quit since.
+	 */
+	public CompletableFuture<Void> flush() {
+		List<CompletableFuture<Void>> flushes = new ArrayList<>();
+		flushes.add(flush(sessions.values()));
+		synchronized (unsavedQuitSessions) {
+			for (UUID playerId : List.copyOf(unsavedQuitSessions.keySet())) {
+				flushes.add(flushQuitSession(playerId, unsavedQuitSessions.remove(playerId)));
+			}
+		}
+		return CompletableFuture.allOf(flushes.toArray(CompletableFuture[]::new));
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+		if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED || repositories.isEmpty()) {
+			return;
+		}
+		UUID playerId = event.getUniqueId();
+		// A quick rejoin must not read rows its own quit flush has not written yet.
+		Session unsaved;
+		CompletableFuture<Void> pendingFlush;
+		synchronized (unsavedQuitSessions) {
+			unsaved = unsavedQuitSessions.remove(playerId);
+			pendingFlush = pendingQuitFlushes.get(playerId);
+		}
+		if (unsaved == null && pendingFlush != null) {
+			pendingFlush.exceptionally(e -> null).join();
+			unsaved = unsavedQuitSessions.remove(playerId);
+		}
+		if (unsaved != null) {
+			// Newer than the stored rows, which the failed save never reached.
+			sessions.put(playerId, unsaved);
+			return;
+		}
+
+		Session session = new Session();
+		Map<Class<?>, CompletableFuture<Object>> loads = new HashMap<>();
+		repositories.forEach((type, repository) -> loads.put(type, repository.findById(playerId)));
+		try {
+			CompletableFuture.allOf(loads.values().toArray(CompletableFuture[]::new)).join();
+			loads.forEach((type, load) -> {
+				Object entity = load.join();
+				if (entity != null) {
+					session.entities.put(type, entity);
+				}
+			});
+			sessions.put(playerId, session);
+		} catch (Exception e) {
+			plugin.getLogger().log(Level.SEVERE, "Failed to preload session data for " + event.getName(), e);
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onLogin(PlayerLoginEvent event) {
+		if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+			sessions.remove(event.getPlayer().getUniqueId());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onQuit(PlayerQuitEvent event) {
+		UUID playerId = event.getPlayer().getUniqueId();
+		Session session = sessions.remove(playerId);
+		if (session == null) {
+			return;
+		}
+		// A single player's save, ahead of periodic flushes and other bulk work.
+		RepositoryPriority.PLAYER.call(() -> flushQuitSession(playerId, session));
+	}
+
+	private void start() {
+		if (closed) {
+			return;
+		}
+		Bukkit.getPluginManager().registerEvents(this, plugin);
+		flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, flushPeriodTicks, flushPeriodTicks);
+		started = true;
+		// Players who joined before the cache existed, for example during a reload, get their sessions now.
+		repositories.forEach(this::loadOnlinePlayers);
+	}
+
+	/**
+	 * Loads one entity type for every online player. Runs on the main thread.
+	 */
+	private void loadOnlinePlayers(Class<?> entityType, CrudRepository<Object, UUID> repository) {
+		if (closed) {
+			return;
+		}
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			Session session = sessions.computeIfAbsent(player.getUniqueId(), ignored -> new Session());
+			repository.findById(player.getUniqueId()).whenComplete((entity, e) -> {
+				if (e != null) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to load session data for " + player.getName(), e);
+				} else if (entity != null) {
+					session.entities.putIfAbsent(entityType, entity);
+				}
+			});
+		}
+	}
+
+	private void onMainThread(Runnable task) {
+		if (Bukkit.isPrimaryThread()) {
+			task.run();
+		} else {
+			Bukkit.getScheduler().runTask(plugin, task);
+		}
+	}
+
+	/**
+	 * Stops the periodic flush and unregisters the listeners, then saves all dirty entities and waits for them.
+	 */
+	public void close() {
+		closed = true;
+		if (flushTask != null) {
+			flushTask.cancel();
+		}
+		HandlerList.unregisterAll(this);
+		try {
+			CompletableFuture.allOf(pendingQuitFlushes.values().toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+			flush().join();
+		} catch (Exception e) {
+			plugin.getLogger().log(Level.SEVERE, "Failed to flush player sessions on shutdown", e);
+		}
+		if (!unsavedQuitSessions.isEmpty()) {
+			plugin.getLogger().severe("Unsaved session data of " + unsavedQuitSessions.size() + " player(s) who quit is lost");
+		}
+		sessions.clear();
+		unsavedQuitSessions.clear();
+	}
+
+	/**
+	 * Saves the session of a player who has quit, keeping it for a later flush if that fails.
+	 */
+	private CompletableFuture<Void> flushQuitSession(UUID playerId, Session session) {
+		synchronized (unsavedQuitSessions) {
+			CompletableFuture<Void> flush = flush(List.of(session)).whenComplete((ignored, e) -> {
+				if (!session.dirty.isEmpty()) {
+					unsavedQuitSessions.put(playerId, session);
+				}
+			});
+			pendingQuitFlushes.put(playerId, flush);
+			flush.whenComplete((ignored, e) -> pendingQuitFlushes.remove(playerId, flush));
+			return flush;
+		}
+	}
+
+	private CompletableFuture<Void> flush(Iterable<Session> toFlush) {
+		Map<Class<?>, List<DirtyEntity>> dirtyByType = new HashMap<>();
+		for (Session session : toFlush) {
+			for (Class<?> type : session.dirty) {
+				session.dirty.remove(type);
+				Object entity = session.entities.get(type);
+				if (entity != null) {
+					dirtyByType.computeIfAbsent(type, t -> new ArrayList<>()).add(new DirtyEntity(session, entity));
+				}
+			}
+		}
+		List<CompletableFuture<Void>> saves = new ArrayList<>(dirtyByType.size());
+		dirtyByType.forEach((type, dirty) -> saves.add(repositories.get(type).saveAll(dirty.stream().map(DirtyEntity::entity).toList())
+			.whenComplete((ignored, e) -> {
+				if (e != null) {
+					plugin.getLogger().log(Level.SEVERE, "Failed to flush " + dirty.size() + " " + type.getSimpleName() + " session entities, retrying on the next flush", e);
+					dirty.forEach(entity -> entity.session().markUnsaved(type, entity.entity()));
+				}
+			})));
+		return CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new));
+	}
+
+	private static final class Session {
+		private final Map<Class<?>, Object> entities = new ConcurrentHashMap<>();
+		private final Set<Class<?>> dirty = ConcurrentHashMap.newKeySet();
+
+		/**
+		 * Marks an entity dirty again after its save failed, unless it was replaced or evicted meanwhile.
+		 */
+		private void markUnsaved(Class<?> type, Object entity) {
+			if (entities.get(type) == entity) {
+				dirty.add(type);
+			}
+		}
+	}
+
+	private record DirtyEntity(Session session, Object entity) {
+	}
+}
@@ -0,0 +1,63 @@
+package com.kardasland;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerProfileRepository;
+import com.kardasland.repository.RepositoryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DatabaseManagerTest {
+
+	private MockPlugin plugin;
+
+	@BeforeEach
+	void setUp() {
+		MockBukkit.mock();
+		plugin = MockBukkit.createMockPlugin("SchemaTestPlugin");
+	}
+
+	@AfterEach
+	void tearDown() {
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testSchemaUpdateOnSqliteSingleWriter() throws ExecutionException, InterruptedException {
+		DatabaseConfig config = DatabaseConfig.builder()
+			.type("sqlite")
+			.filePath("target/test-db-" + UUID.randomUUID() + ".db")
+			.schemaMode(SchemaMode.UPDATE)
+			.packagesToScan(List.of(PlayerProfile.class.getPackageName()))
+			.build();
+		UUID playerId = UUID.randomUUID();
+
+		// The first start creates the tables, the second finds them already there.
+		for (int start = 1; start <= 2; start++) {
+			DatabaseManager databaseManager = new DatabaseManager(plugin);
+			databaseManager.initializeDataSource(config);
+			RepositoryFactory factory = new RepositoryFactory(databaseManager);
+			try {
+				PlayerProfileRepository profiles = factory.createRepository(PlayerProfileRepository.class);
+				if (start == 1) {
+					profiles.save(new PlayerProfile(playerId, "Notch", 1, null)).get();
+				}
+				PlayerProfile stored = profiles.findById(playerId).get();
+				assertNotNull(stored);
+				assertEquals("Notch", stored.getUsername());
+			} finally {
+				factory.close();
+				databaseManager.shutdown();
+			}
+		}
+	}
+}
@@ -3,25 +3,51 @@ package com.kardasland;
 import be.seeseemelk.mockbukkit.MockBukkit;
 import be.seeseemelk.mockbukkit.MockPlugin;
 import be.seeseemelk.mockbukkit.ServerMock;
+import com.kardasland.domain.PlayerClaim;
+import com.kardasland.domain.PlayerClaimRepository;
 import com.kardasland.domain.PlayerProfile;
 import com.kardasland.domain.PlayerProfileRepository;
+import com.kardasland.domain.PlayerProfileViewRepository;
+import com.kardasland.domain.ProfileSummary;
+import com.kardasland.domain.QueuedPlayerProfileRepository;
+import com.kardasland.domain.UpsertPlayerProfileRepository;
+import com.kardasland.domain.UsernameView;
+import com.kardasland.location.StoredLocation;
+import com.kardasland.repository.Page;
+import com.kardasland.repository.Pageable;
 import com.kardasland.repository.RepositoryFactory;
+import com.kardasland.repository.Slice;
+import com.kardasland.repository.Sort;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class RepositoryIntegrationTest {
 
 	private ServerMock server;
 	private MockPlugin plugin;
+	private DatabaseManager databaseManager;
+	private RepositoryFactory factory;
 	private PlayerProfileRepository playerProfileRepository;
+	private PlayerClaimRepository playerClaimRepository;
+	private UpsertPlayerProfileRepository upsertPlayerProfileRepository;
 
 	@BeforeAll
 	void setupServer() {
@@ -36,24 +62,27 @@ public class RepositoryIntegrationTest {
 			.packagesToScan(List.of(PlayerProfile.class.getPackageName()))
 			.build();
 
-		DatabaseManager databaseManager = new DatabaseManager(plugin);
+		databaseManager = new DatabaseManager(plugin);
 		databaseManager.initializeDataSource(dbConfig);
 
-		RepositoryFactory factory = new RepositoryFactory(databaseManager.getEntityManagerFactory(), plugin);
+		factory = new RepositoryFactory(databaseManager);
 		playerProfileRepository = factory.createRepository(PlayerProfileRepository.class);
+		playerClaimRepository = factory.createRepository(PlayerClaimRepository.class);
+		upsertPlayerProfileRepository = factory.createRepository(UpsertPlayerProfileRepository.class);
 	}
 
 	@AfterAll
 	void teardownServer() {
+		factory.close();
+		databaseManager.shutdown();
 		MockBukkit.unmock();
 	}
 
 	@BeforeEach
 	void cleanupDatabase() throws ExecutionException, InterruptedException {
 		List<PlayerProfile> allProfiles = playerProfileRepository.findAll().get();
-		for (PlayerProfile profile : allProfiles) {
-			playerProfileRepository.delete(profile).get();
-		}
+		playerProfileRepository.deleteAll(allProfiles).get();
+		playerClaimRepository.deleteAll(playerClaimRepository.findAll().get()).get();
 	}
 
 	@Test
@@ -82,4 +111,176 @@ public class RepositoryIntegrationTest {
 		assertNotNull(foundProfile);
 		assertEquals(100, foundProfile.getLevel());
 	}
+
+	@Test
+	void testSaveAllAndFindAllById() throws ExecutionException, InterruptedException {
+		PlayerProfile notch = new PlayerProfile(UUID.randomUUID(), "Notch", 100, null);
+		PlayerProfile jeb = new PlayerProfile(UUID.randomUUID(), "Jeb", 90, null);
+		PlayerProfile dinnerbone = new PlayerProfile(UUID.randomUUID(), "Dinnerbone", 80, null);
+		playerProfileRepository.saveAll(List.of(notch, jeb, dinnerbone)).get();
+
+		List<PlayerProfile> found = playerProfileRepository.findAllById(List.of(notch.getId(), jeb.getId(), UUID.randomUUID())).get();
+		assertEquals(2, found.size());
+
+		// Updates stored rows and inserts new ones in the same call.
+		PlayerProfile grumm = new PlayerProfile(UUID.randomUUID(), "Grumm", 70, null);
+		playerProfileRepository.saveAll(List.of(new PlayerProfile(notch.getId(), "Notch", 101, null), grumm)).get();
+		assertEquals(101, playerProfileRepository.findById(notch.getId()).get().getLevel());
+		playerProfileRepository.deleteAll(List.of(grumm)).get();
+
+		playerProfileRepository.deleteAllById(List.of(notch.getId(), jeb.getId())).get();
+		List<PlayerProfile> remaining = playerProfileRepository.findAll().get();
+		assertEquals(1, remaining.size());
+		assertEquals("Dinnerbone", remaining.getFirst().getUsername());
+	}
+
+	@Test
+	void testPagedKeysetAndStreamingQueries() throws ExecutionException, InterruptedException {
+		List<PlayerProfile> profiles = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			profiles.add(new PlayerProfile(UUID.randomUUID(), "player" + i, 7, null));
+		}
+		profiles.add(new PlayerProfile(UUID.randomUUID(), "newcomer", 1, null));
+		playerProfileRepository.saveAll(profiles).get();
+
+		Page<PlayerProfile> page = playerProfileRepository.findAll(Pageable.of(0, 4, Sort.by("username"))).get();
+		assertEquals(6, page.totalElements());
+		assertEquals(2, page.totalPages());
+		assertEquals("newcomer", page.content().getFirst().getUsername());
+		assertTrue(page.hasNext());
+
+		Slice<PlayerProfile> first = playerProfileRepository.findByLevel(7, Pageable.first(2, Sort.by("username"))).get();
+		assertEquals(List.of("player0", "player1"), first.content().stream().map(PlayerProfile::getUsername).toList());
+		assertTrue(first.hasNext());
+		Slice<PlayerProfile> second = playerProfileRepository.findByLevel(7, first.nextPageable()).get();
+		assertEquals(List.of("player2", "player3"), second.content().stream().map(PlayerProfile::getUsername).toList());
+		Slice<PlayerProfile> last = playerProfileRepository.findByLevel(7, second.nextPageable()).get();
+		assertEquals(List.of("player4"), last.content().stream().map(PlayerProfile::getUsername).toList());
+		assertFalse(last.hasNext());
+		assertNull(last.nextPageable());
+
+		List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+		playerProfileRepository.streamAll(4, chunk -> chunkSizes.add(chunk.size())).get();
+		assertEquals(List.of(4, 2), chunkSizes);
+	}
+
+	@Test
+	void testCountExistsDeleteAndProjections() throws ExecutionException, InterruptedException {
+		playerProfileRepository.saveAll(List.of(
+			new PlayerProfile(UUID.randomUUID(), "Notch", 50, null),
+			new PlayerProfile(UUID.randomUUID(), "Jeb", 50, null),
+			new PlayerProfile(UUID.randomUUID(), "Dinnerbone", 3, null)
+		)).get();
+
+		assertEquals(2L, playerProfileRepository.countByLevel(50).get());
+		assertTrue(playerProfileRepository.existsByUsername("Jeb").get());
+		assertFalse(playerProfileRepository.existsByUsername("Herobrine").get());
+
+		List<ProfileSummary> summaries = playerProfileRepository.findSummariesByLevelOrderByUsernameAsc(50).get();
+		assertEquals(List.of(new ProfileSummary("Jeb", 50), new ProfileSummary("Notch", 50)), summaries);
+		UsernameView view = playerProfileRepository.findViewByUsername("Dinnerbone").get().orElseThrow();
+		assertEquals("Dinnerbone", view.getUsername());
+
+		assertEquals(2, playerProfileRepository.deleteByLevel(50).get());
+		assertEquals(0L, playerProfileRepository.countByLevel(50).get());
+	}
+
+	@Test
+	void testRepositoriesDeriveQueriesFromTheSameMethodName() throws ExecutionException, InterruptedException {
+		playerProfileRepository.saveAll(List.of(
+			new PlayerProfile(UUID.randomUUID(), "Notch", 50, null),
+			new PlayerProfile(UUID.randomUUID(), "Jeb", 50, null)
+		)).get();
+		// Created after playerProfileRepository, so its queries would replace those of the same name if they shared one.
+		PlayerProfileViewRepository views = factory.createRepository(PlayerProfileViewRepository.class);
+
+		List<PlayerProfile> profiles = playerProfileRepository.findByLevelOrderByUsernameAsc(50).get();
+		assertEquals(List.of("Jeb", "Notch"), profiles.stream().map(PlayerProfile::getUsername).toList());
+		List<UsernameView> usernames = views.findByLevelOrderByUsernameAsc(50).get();
+		assertEquals(List.of("Jeb", "Notch"), usernames.stream().map(UsernameView::getUsername).toList());
+		Page<ProfileSummary> summaries = views.findByLevelOrderByUsernameAsc(50, Pageable.of(0, 1)).get();
+		assertEquals(List.of(new ProfileSummary("Jeb", 50)), summaries.content());
+		assertEquals(2, summaries.totalElements());
+	}
+
+	@Test
+	void testSpatialQueries() throws ExecutionException, InterruptedException {
+		World world = server.getWorld("test-world");
+		PlayerClaim spawn = new PlayerClaim(UUID.randomUUID(), "Notch", StoredLocation.of(new Location(world, 0, 64, 0)));
+		PlayerClaim nearby = new PlayerClaim(UUID.randomUUID(), "Jeb", StoredLocation.of(new Location(world, 6, 64, 8)));
+		// Inside the bounding box of a 12 block radius, but not within the radius itself.
+		PlayerClaim corner = new PlayerClaim(UUID.randomUUID(), "Notch", StoredLocation.of(new Location(world, 11, 64, 11)));
+		PlayerClaim far = new PlayerClaim(UUID.randomUUID(), "Notch", StoredLocation.of(new Location(world, 500, 64, -500)));
+		playerClaimRepository.saveAll(List.of(spawn, nearby, corner, far)).get();
+
+		List<PlayerClaim> within = playerClaimRepository.findByCenterWithin(new Location(world, 0, 64, 0), 12).get();
+		assertEquals(2, within.size());
+		assertTrue(within.stream().anyMatch(claim -> claim.getId().equals(spawn.getId())));
+		assertTrue(within.stream().anyMatch(claim -> claim.getId().equals(nearby.getId())));
+
+		List<PlayerClaim> inChunk = playerClaimRepository.findByOwnerAndCenterInChunk("Notch", world.getChunkAt(0, 0)).get();
+		assertEquals(2, inChunk.size());
+		assertTrue(inChunk.stream().noneMatch(claim -> claim.getId().equals(far.getId())));
+	}
+
+	@Test
+	void testUpsertInsertsAndUpdatesWithoutMerge() throws ExecutionException, InterruptedException {
+		UUID playerId = UUID.randomUUID();
+		upsertPlayerProfileRepository.save(new PlayerProfile(playerId, "Notch", 1, null)).get();
+		upsertPlayerProfileRepository.save(new PlayerProfile(playerId, "Notch", 2, null)).get();
+
+		PlayerProfile jeb = new PlayerProfile(UUID.randomUUID(), "Jeb", 90, null);
+		upsertPlayerProfileRepository.saveAll(List.of(new PlayerProfile(playerId, "Notch", 3, null), jeb)).get();
+
+		assertEquals(3, playerProfileRepository.findById(playerId).get().getLevel());
+		assertEquals("Jeb", playerProfileRepository.findById(jeb.getId()).get().getUsername());
+		assertEquals(2, playerProfileRepository.findAll().get().size());
+	}
+
+	@Test
+	void testTransactionCommitsTogetherOrNotAtAll() throws ExecutionException, InterruptedException {
+		UUID notchId = UUID.randomUUID();
+		UUID jebId = UUID.randomUUID();
+		factory.transaction(tx -> {
+			playerProfileRepository.save(new PlayerProfile(notchId, "Notch", 1, null));
+			playerProfileRepository.save(new PlayerProfile(jebId, "Jeb", 2, null));
+			// Visible inside the transaction before it commits.
+			assertNotNull(playerProfileRepository.findByUsername("Jeb").join());
+			return null;
+		}).get();
+		assertEquals(2, playerProfileRepository.findAll().get().size());
+
+		UUID dinnerboneId = UUID.randomUUID();
+		CompletableFuture<Object> aborted = factory.transaction(tx -> {
+			playerProfileRepository.save(new PlayerProfile(dinnerboneId, "Dinnerbone", 3, null));
+			throw new IllegalStateException("trade cancelled");
+		});
+		assertThrows(ExecutionException.class, aborted::get);
+		assertNull(playerProfileRepository.findById(dinnerboneId).get());
+	}
+
+	@Test
+	void testWriteBehindCoalescesWritesUntilFlush() throws ExecutionException, InterruptedException {
+		// A factory of its own, so closing it leaves the shared one untouched for the other tests.
+		RepositoryFactory queuedFactory = new RepositoryFactory(databaseManager.getEntityManagerFactory(), plugin,
+			databaseManager.getExecutor(), databaseManager.getWriteExecutor());
+		QueuedPlayerProfileRepository queuedPlayerProfileRepository = queuedFactory.createRepository(QueuedPlayerProfileRepository.class);
+		UUID playerId = UUID.randomUUID();
+		CompletableFuture<Void> first = queuedPlayerProfileRepository.save(new PlayerProfile(playerId, "Dinnerbone", 1, null));
+		CompletableFuture<Void> second = queuedPlayerProfileRepository.save(new PlayerProfile(playerId, "Grumm", 2, null));
+
+		assertFalse(first.isDone());
+		queuedFactory.close();
+		first.get();
+		second.get();
+
+		PlayerProfile foundProfile = playerProfileRepository.findById(playerId).get();
+		assertNotNull(foundProfile);
+		assertEquals("Grumm", foundProfile.getUsername());
+		assertEquals(2, foundProfile.getLevel());
+
+		CompletableFuture<Void> late = queuedPlayerProfileRepository.save(new PlayerProfile(playerId, "jeb_", 3, null));
+		ExecutionException rejected = assertThrows(ExecutionException.class, late::get);
+		assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+	}
 }
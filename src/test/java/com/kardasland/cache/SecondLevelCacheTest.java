@@ -0,0 +1,107 @@
+package com.kardasland.cache;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.kardasland.CacheConfig;
+import com.kardasland.DatabaseConfig;
+import com.kardasland.DatabaseManager;
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerProfileRepository;
+import com.kardasland.domain.UpsertPlayerProfileRepository;
+import com.kardasland.repository.RepositoryFactory;
+import jakarta.persistence.Cache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SecondLevelCacheTest {
+
+	private DatabaseManager databaseManager;
+	private RepositoryFactory factory;
+	private PlayerProfileRepository profiles;
+	private UpsertPlayerProfileRepository upserts;
+	private Cache cache;
+
+	@BeforeAll
+	void setupServer() {
+		MockBukkit.mock();
+		MockPlugin plugin = MockBukkit.createMockPlugin("CacheTestPlugin");
+
+		DatabaseConfig dbConfig = DatabaseConfig.builder()
+			.type("sqlite")
+			.filePath("target/test-db-" + UUID.randomUUID() + ".db")
+			.packagesToScan(List.of(PlayerProfile.class.getPackageName()))
+			.cache(CacheConfig.builder().enabled(true).cacheAllEntities(true).build())
+			.build();
+
+		databaseManager = new DatabaseManager(plugin);
+		databaseManager.initializeDataSource(dbConfig);
+		factory = new RepositoryFactory(databaseManager);
+		profiles = factory.createRepository(PlayerProfileRepository.class);
+		upserts = factory.createRepository(UpsertPlayerProfileRepository.class);
+		cache = databaseManager.getEntityManagerFactory().getCache();
+	}
+
+	@AfterAll
+	void teardownServer() {
+		factory.close();
+		databaseManager.shutdown();
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testRepeatedFindByIdIsServedFromCache() throws ExecutionException, InterruptedException {
+		UUID playerId = UUID.randomUUID();
+		profiles.save(new PlayerProfile(playerId, "Notch", 1, null)).get();
+		cache.evictAll();
+
+		CacheStatistics before = databaseManager.getCacheStatistics();
+		profiles.findById(playerId).get();
+		profiles.findById(playerId).get();
+		CacheStatistics after = databaseManager.getCacheStatistics();
+
+		assertEquals(1, after.misses() - before.misses());
+		assertEquals(1, after.hits() - before.hits());
+		assertTrue(after.hitRatio() > 0);
+		assertTrue(after.regions().containsKey(PlayerProfile.class.getName()));
+	}
+
+	@Test
+	void testWritesInvalidateCachedEntities() throws ExecutionException, InterruptedException {
+		UUID notchId = UUID.randomUUID();
+		profiles.save(new PlayerProfile(notchId, "Notch", 1, null)).get();
+		profiles.findById(notchId).get();
+		profiles.save(new PlayerProfile(notchId, "Notch", 2, null)).get();
+		assertEquals(2, profiles.findById(notchId).get().getLevel());
+
+		profiles.deleteAllById(List.of(notchId)).get();
+		assertFalse(cache.contains(PlayerProfile.class, notchId));
+		assertNull(profiles.findById(notchId).get());
+
+		UUID jebId = UUID.randomUUID();
+		profiles.save(new PlayerProfile(jebId, "Jeb", 77, null)).get();
+		profiles.findById(jebId).get();
+		assertTrue(cache.contains(PlayerProfile.class, jebId));
+		assertEquals(1, profiles.deleteByLevel(77).get());
+		assertFalse(cache.contains(PlayerProfile.class, jebId));
+		assertNull(profiles.findById(jebId).get());
+
+		// Upserts write through a stateless session, not the persistence context that keeps the cache in step.
+		UUID dinnerboneId = UUID.randomUUID();
+		upserts.save(new PlayerProfile(dinnerboneId, "Dinnerbone", 1, null)).get();
+		assertEquals(1, profiles.findById(dinnerboneId).get().getLevel());
+		upserts.save(new PlayerProfile(dinnerboneId, "Dinnerbone", 2, null)).get();
+		assertEquals(2, profiles.findById(dinnerboneId).get().getLevel());
+	}
+}
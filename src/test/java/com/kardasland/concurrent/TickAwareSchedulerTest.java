@@ -0,0 +1,128 @@
+package com.kardasland.concurrent;
+
+import com.kardasland.SchedulerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TickAwareSchedulerTest {
+
+	// Runs tasks only when the test says so, so the order they were started in can be observed.
+	private final Queue<Runnable> started = new ArrayDeque<>();
+	private final Executor manual = started::add;
+	private final List<String> ran = new ArrayList<>();
+
+	private void runStarted() {
+		Runnable task;
+		while ((task = started.poll()) != null) {
+			task.run();
+		}
+	}
+
+	@Test
+	void testStartsQueuedWorkInPriorityOrder() {
+		TickAwareScheduler scheduler = new TickAwareScheduler(SchedulerConfig.builder().enabled(true).build(), 1, Logger.getAnonymousLogger());
+
+		scheduler.lane(RepositoryPriority.PLAYER, manual).execute(() -> ran.add("first"));
+		scheduler.lane(RepositoryPriority.BACKGROUND, manual).execute(() -> ran.add("background"));
+		scheduler.lane(RepositoryPriority.PLAYER, manual).execute(() -> ran.add("player"));
+		scheduler.lane(RepositoryPriority.INTERACTIVE, manual).execute(() -> ran.add("interactive"));
+		assertEquals(3, scheduler.getQueuedTasks());
+
+		// With one permit, each finished task starts the next one.
+		runStarted();
+
+		assertEquals(List.of("first", "interactive", "player", "background"), ran);
+	}
+
+	@Test
+	void testThrottlesBackgroundWorkWhileLagging() {
+		SchedulerConfig config = SchedulerConfig.builder().enabled(true).laggingBackgroundPerTick(1).build();
+		TickAwareScheduler scheduler = new TickAwareScheduler(config, 4, Logger.getAnonymousLogger());
+		scheduler.onTick(true);
+		scheduler.onTick(true);
+
+		Executor background = scheduler.lane(RepositoryPriority.BACKGROUND, manual);
+		for (int i = 0; i < 3; i++) {
+			int index = i;
+			background.execute(() -> ran.add("background" + index));
+		}
+		scheduler.lane(RepositoryPriority.INTERACTIVE, manual).execute(() -> ran.add("interactive"));
+		runStarted();
+		// One background task per tick; interactive work is not held back.
+		assertEquals(List.of("background0", "interactive"), ran);
+
+		scheduler.onTick(true);
+		runStarted();
+		assertEquals(List.of("background0", "interactive", "background1"), ran);
+
+		scheduler.onTick(false);
+		runStarted();
+		assertEquals(List.of("background0", "interactive", "background1", "background2"), ran);
+	}
+
+	@Test
+	void testCloseReleasesThrottledWork() {
+		TickAwareScheduler scheduler = new TickAwareScheduler(SchedulerConfig.builder().enabled(true).laggingBackgroundPerTick(0).build(), 4, Logger.getAnonymousLogger());
+		scheduler.onTick(true);
+		scheduler.lane(RepositoryPriority.BACKGROUND, manual).execute(() -> ran.add("background"));
+		runStarted();
+		assertEquals(List.of(), ran);
+
+		scheduler.close();
+		runStarted();
+		assertEquals(List.of("background"), ran);
+	}
+
+	@Test
+	void testFailsQueuedTasksTheExecutorRejects() {
+		TickAwareScheduler scheduler = new TickAwareScheduler(SchedulerConfig.builder().enabled(true).build(), 1, Logger.getAnonymousLogger());
+		Executor rejecting = task -> {
+			throw new RejectedExecutionException("Shutting down");
+		};
+
+		scheduler.lane(RepositoryPriority.PLAYER, manual).execute(() -> ran.add("first"));
+		CompletableFuture<String> rejected = RepositoryExecutors.supplyAsync(() -> "rejected", scheduler.lane(RepositoryPriority.PLAYER, rejecting));
+		scheduler.lane(RepositoryPriority.BACKGROUND, manual).execute(() -> ran.add("background"));
+		assertFalse(rejected.isDone());
+
+		// The rejected task gives its permit back, so the background task still starts.
+		runStarted();
+
+		ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+		assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+		assertEquals(List.of("first", "background"), ran);
+		assertEquals(0, scheduler.getQueuedTasks());
+	}
+
+	@Test
+	void testRejectsTasksOnceClosedOrShutDown() {
+		TickAwareScheduler scheduler = new TickAwareScheduler(SchedulerConfig.builder().enabled(true).build(), 1, Logger.getAnonymousLogger());
+		ExecutorService shutDown = Executors.newSingleThreadExecutor();
+		shutDown.shutdown();
+
+		assertThrows(RejectedExecutionException.class, () -> scheduler.lane(RepositoryPriority.PLAYER, shutDown).execute(() -> ran.add("shut down")));
+		CompletableFuture<String> rejected = RepositoryExecutors.supplyAsync(() -> "rejected", scheduler.lane(RepositoryPriority.PLAYER, shutDown));
+		assertInstanceOf(RejectedExecutionException.class, assertThrows(ExecutionException.class, rejected::get).getCause());
+
+		scheduler.close();
+		assertThrows(RejectedExecutionException.class, () -> scheduler.lane(RepositoryPriority.PLAYER, manual).execute(() -> ran.add("closed")));
+		runStarted();
+		assertEquals(List.of(), ran);
+	}
+}
@@ -0,0 +1,65 @@
+package com.kardasland.converters;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LocationConverterTest {
+
+	private final LocationConverter converter = new LocationConverter();
+	private World world;
+
+	@BeforeAll
+	void setupServer() {
+		ServerMock server = MockBukkit.mock();
+		world = server.addSimpleWorld("converter-world");
+	}
+
+	@AfterAll
+	void teardownServer() {
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testRoundTrip() {
+		Location location = new Location(world, 1024.5, -64, -2048.125, 90.25f, -12.5f);
+
+		String column = converter.convertToDatabaseColumn(location);
+		assertEquals("converter-world;1024.5;-64.0;-2048.125;90.25;-12.5", column);
+
+		Location read = converter.convertToEntityAttribute(column);
+		assertSame(world, read.getWorld());
+		assertEquals(location, read);
+	}
+
+	@Test
+	void testMatchesJdkParserOutsideFastPath() {
+		String[] values = {"1.0E-4", "1.2345678901234567E7", "0.1", "-0.0", "123456.78901234", "9007199254740993"};
+		for (String value : values) {
+			assertEquals(Double.parseDouble(value), LocationConverter.parseDouble(value, 0, value.length()), value);
+		}
+		String[] floats = {"0.1", "359.99", "-90.0", "1.0E-5", "16777217"};
+		for (String value : floats) {
+			assertEquals(Float.parseFloat(value), LocationConverter.parseFloat(value, 0, value.length()), value);
+		}
+	}
+
+	@Test
+	void testRejectsMalformedColumns() {
+		assertNull(converter.convertToEntityAttribute(""));
+		assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("converter-world;1;2;3;4"));
+		assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("converter-world;1;2;3;4;5;6"));
+		assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("converter-world;1;two;3;4;5"));
+	}
+}
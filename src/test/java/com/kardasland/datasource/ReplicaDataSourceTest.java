@@ -0,0 +1,133 @@
+package com.kardasland.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaDataSourceTest {
+
+	private static final Logger LOGGER = Logger.getLogger(ReplicaDataSourceTest.class.getName());
+
+	@Test
+	void testSpreadsReadsOverHealthyReplicas() throws SQLException {
+		Pool primary = new Pool();
+		Pool first = new Pool();
+		Pool second = new Pool();
+		ReplicaDataSource replicas = new ReplicaDataSource(primary.dataSource, List.of(first.dataSource, second.dataSource), connection -> 0, 1_000, LOGGER);
+
+		// Nothing has been checked yet, so the primary serves reads.
+		assertSame(primary.connection, replicas.getConnection());
+
+		replicas.checkHealth();
+		assertEquals(2, replicas.getHealthyReplicaCount());
+		assertSame(second.connection, replicas.getConnection());
+		assertSame(first.connection, replicas.getConnection());
+		assertSame(second.connection, replicas.getConnection());
+	}
+
+	@Test
+	void testFallsBackToPrimaryWhenReplicasLagOrFail() throws SQLException {
+		Pool primary = new Pool();
+		Pool lagging = new Pool();
+		Pool down = new Pool();
+		Map<Connection, Long> lag = new ConcurrentHashMap<>(Map.of(lagging.connection, 0L, down.connection, 0L));
+		ReplicaDataSource replicas = new ReplicaDataSource(primary.dataSource, List.of(lagging.dataSource, down.dataSource), lag::get, 1_000, LOGGER);
+		replicas.checkHealth();
+		assertEquals(2, replicas.getHealthyReplicaCount());
+
+		lag.put(lagging.connection, 30_000L);
+		when(down.dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+		replicas.checkHealth();
+
+		assertEquals(0, replicas.getHealthyReplicaCount());
+		assertSame(primary.connection, replicas.getConnection());
+
+		lag.put(lagging.connection, ReplicaLagProbe.STOPPED);
+		replicas.checkHealth();
+		assertSame(primary.connection, replicas.getConnection());
+
+		lag.put(lagging.connection, 200L);
+		replicas.checkHealth();
+		assertEquals(1, replicas.getHealthyReplicaCount());
+		assertSame(lagging.connection, replicas.getConnection());
+		assertSame(lagging.connection, replicas.getConnection());
+	}
+
+	@Test
+	void testDropsReplicaThatCannotHandOutConnections() throws SQLException {
+		Pool primary = new Pool();
+		Pool replica = new Pool();
+		ReplicaDataSource replicas = new ReplicaDataSource(primary.dataSource, List.of(replica.dataSource), connection -> 0, 1_000, LOGGER);
+		replicas.checkHealth();
+
+		when(replica.dataSource.getConnection()).thenThrow(new SQLException("Too many connections"));
+
+		assertSame(primary.connection, replicas.getConnection());
+		assertEquals(0, replicas.getHealthyReplicaCount());
+	}
+
+	@Test
+	void testRoutingSendsOnlyReadOnlyWorkToReplicas() throws SQLException {
+		Pool primary = new Pool();
+		Pool replica = new Pool();
+		ReplicaDataSource replicas = new ReplicaDataSource(primary.dataSource, List.of(replica.dataSource), connection -> 0, 1_000, LOGGER);
+		replicas.checkHealth();
+		RoutingDataSource routing = new RoutingDataSource(primary.dataSource, replicas);
+
+		assertSame(primary.connection, routing.getConnection());
+		assertSame(replica.connection, RoutingDataSource.readOnly(() -> {
+			try {
+				return routing.getConnection();
+			} catch (SQLException e) {
+				throw new RuntimeException(e);
+			}
+		}));
+	}
+
+	@Test
+	void testStartDoesNotWaitForTheFirstCheck() throws SQLException, InterruptedException {
+		Pool primary = new Pool();
+		Pool replica = new Pool();
+		CountDownLatch reachable = new CountDownLatch(1);
+		when(replica.dataSource.getConnection()).thenAnswer(invocation -> {
+			reachable.await();
+			return replica.connection;
+		});
+		ReplicaDataSource replicas = new ReplicaDataSource(primary.dataSource, List.of(replica.dataSource), connection -> 0, 1_000, LOGGER);
+		try {
+			// The first check hangs on the unreachable replica, but only its own thread waits.
+			replicas.start(60_000, "replica-health-check");
+			assertSame(primary.connection, replicas.getConnection());
+
+			reachable.countDown();
+			long deadline = System.currentTimeMillis() + 5_000;
+			while (replicas.getHealthyReplicaCount() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, replicas.getHealthyReplicaCount());
+		} finally {
+			replicas.close();
+		}
+	}
+
+	private static final class Pool {
+		private final DataSource dataSource = mock(DataSource.class);
+		private final Connection connection = mock(Connection.class);
+
+		private Pool() throws SQLException {
+			when(dataSource.getConnection()).thenReturn(connection);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.kardasland.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoutingDataSourceTest {
+
+	@Test
+	void testRoutesByReadOnlyScope() throws SQLException {
+		DataSource primary = mock(DataSource.class);
+		DataSource reader = mock(DataSource.class);
+		Connection primaryConnection = mock(Connection.class);
+		Connection readerConnection = mock(Connection.class);
+		when(primary.getConnection()).thenReturn(primaryConnection);
+		when(reader.getConnection()).thenReturn(readerConnection);
+
+		RoutingDataSource routing = new RoutingDataSource(primary, reader);
+
+		assertSame(primaryConnection, routing.getConnection());
+		assertSame(readerConnection, RoutingDataSource.readOnly(() -> {
+			try {
+				return routing.getConnection();
+			} catch (SQLException e) {
+				throw new RuntimeException(e);
+			}
+		}));
+		assertFalse(RoutingDataSource.isReadOnly());
+		assertSame(primaryConnection, routing.getConnection());
+	}
+}
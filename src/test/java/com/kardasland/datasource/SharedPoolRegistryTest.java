@@ -0,0 +1,68 @@
+package com.kardasland.datasource;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.Bukkit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedPoolRegistryTest {
+
+	private MockPlugin economy;
+	private MockPlugin claims;
+
+	@BeforeEach
+	void setUp() {
+		MockBukkit.mock();
+		economy = MockBukkit.createMockPlugin("Economy");
+		claims = MockBukkit.createMockPlugin("Claims");
+	}
+
+	@AfterEach
+	void tearDown() {
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testPluginsLeaseOnePoolPerUrl() {
+		String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		HikariDataSource first = SharedPoolRegistry.acquire(economy, config(url));
+		HikariDataSource second = SharedPoolRegistry.acquire(claims, config(url));
+		HikariDataSource other = SharedPoolRegistry.acquire(claims, config("jdbc:h2:mem:" + UUID.randomUUID()));
+
+		assertSame(first, second);
+		assertNotSame(first, other);
+		assertEquals(2, SharedPoolRegistry.getLeaseCount(first));
+
+		SharedPoolRegistry.release(economy, first);
+		assertFalse(first.isClosed());
+		assertEquals(1, SharedPoolRegistry.getLeaseCount(first));
+		// The registry outlives the plugin that created it.
+		assertSame(claims, Bukkit.getServicesManager().getRegistration(SharedPoolRegistry.class).getPlugin());
+
+		SharedPoolRegistry.release(claims, second);
+		assertTrue(first.isClosed());
+		assertFalse(other.isClosed());
+
+		SharedPoolRegistry.release(claims, other);
+		assertTrue(other.isClosed());
+	}
+
+	private static HikariConfig config(String url) {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(url);
+		config.setMaximumPoolSize(2);
+		return config;
+	}
+}
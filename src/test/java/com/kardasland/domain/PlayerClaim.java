@@ -0,0 +1,23 @@
+package com.kardasland.domain;
+
+import com.kardasland.location.StoredLocation;
+import jakarta.persistence.Embedded;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerClaim {
+	@Id
+	private UUID id;
+	private String owner;
+	@Embedded
+	private StoredLocation center;
+}
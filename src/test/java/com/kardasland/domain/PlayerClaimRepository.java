@@ -0,0 +1,14 @@
+package com.kardasland.domain;
+
+import com.kardasland.repository.CrudRepository;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface PlayerClaimRepository extends CrudRepository<PlayerClaim, UUID> {
+	CompletableFuture<List<PlayerClaim>> findByCenterWithin(Location center, double radius);
+	CompletableFuture<List<PlayerClaim>> findByOwnerAndCenterInChunk(String owner, Chunk chunk);
+}
@@ -1,11 +1,20 @@
 package com.kardasland.domain;
 
 import com.kardasland.repository.CrudRepository;
+import com.kardasland.repository.Pageable;
+import com.kardasland.repository.Slice;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public interface PlayerProfileRepository extends CrudRepository<PlayerProfile, UUID> {
 	CompletableFuture<PlayerProfile> findByUsername(String username);
 	CompletableFuture<List<PlayerProfile>> findByLevelOrderByUsernameAsc(int level);
+	CompletableFuture<Slice<PlayerProfile>> findByLevel(int level, Pageable pageable);
+	CompletableFuture<Long> countByLevel(int level);
+	CompletableFuture<Boolean> existsByUsername(String username);
+	CompletableFuture<Integer> deleteByLevel(int level);
+	CompletableFuture<List<ProfileSummary>> findSummariesByLevelOrderByUsernameAsc(int level);
+	CompletableFuture<Optional<UsernameView>> findViewByUsername(String username);
 }
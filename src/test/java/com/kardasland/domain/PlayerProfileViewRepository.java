@@ -0,0 +1,13 @@
+package com.kardasland.domain;
+
+import com.kardasland.repository.CrudRepository;
+import com.kardasland.repository.Page;
+import com.kardasland.repository.Pageable;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface PlayerProfileViewRepository extends CrudRepository<PlayerProfile, UUID> {
+	CompletableFuture<List<UsernameView>> findByLevelOrderByUsernameAsc(int level);
+	CompletableFuture<Page<ProfileSummary>> findByLevelOrderByUsernameAsc(int level, Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.kardasland.domain;
+
+import com.kardasland.annotation.SessionScoped;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Entity
+@SessionScoped
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerWallet {
+	@Id
+	private UUID id;
+	private long balance;
+}
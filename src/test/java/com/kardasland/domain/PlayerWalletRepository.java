@@ -0,0 +1,10 @@
+package com.kardasland.domain;
+
+import com.kardasland.repository.CrudRepository;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface PlayerWalletRepository extends CrudRepository<PlayerWallet, UUID> {
+	CompletableFuture<Integer> deleteByBalanceLessThan(long balance);
+}
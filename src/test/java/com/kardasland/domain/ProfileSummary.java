@@ -0,0 +1,4 @@
+package com.kardasland.domain;
+
+public record ProfileSummary(String username, int level) {
+}
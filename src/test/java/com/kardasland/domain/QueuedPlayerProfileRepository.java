@@ -0,0 +1,10 @@
+package com.kardasland.domain;
+
+import com.kardasland.annotation.WriteBehind;
+import com.kardasland.repository.CrudRepository;
+
+import java.util.UUID;
+
+@WriteBehind(maxBatchSize = 50, flushIntervalMillis = 60_000)
+public interface QueuedPlayerProfileRepository extends CrudRepository<PlayerProfile, UUID> {
+}
@@ -0,0 +1,10 @@
+package com.kardasland.domain;
+
+import com.kardasland.annotation.Upsert;
+import com.kardasland.repository.CrudRepository;
+
+import java.util.UUID;
+
+@Upsert
+public interface UpsertPlayerProfileRepository extends CrudRepository<PlayerProfile, UUID> {
+}
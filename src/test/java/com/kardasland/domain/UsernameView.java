@@ -0,0 +1,5 @@
+package com.kardasland.domain;
+
+public interface UsernameView {
+	String getUsername();
+}
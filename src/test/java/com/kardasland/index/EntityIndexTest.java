@@ -0,0 +1,48 @@
+package com.kardasland.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityIndexTest {
+
+	@Test
+	void testReadsEntriesByKind() throws IOException {
+		EntityIndex index = new EntityIndex();
+		index.read(new StringReader("""
+			# Generated
+			entity com.kardasland.domain.PlayerProfile
+			converter com.kardasland.converters.LocationConverter
+
+			repository com.kardasland.domain.PlayerProfileRepository
+			"""));
+
+		assertEquals(Set.of("com.kardasland.domain.PlayerProfile"), index.getEntities());
+		assertEquals(Set.of("com.kardasland.converters.LocationConverter"), index.getConverters());
+		assertEquals(Set.of("com.kardasland.domain.PlayerProfileRepository"), index.getRepositories());
+	}
+
+	@Test
+	void testCoversPackagesOfIndexedClasses() {
+		EntityIndex index = new EntityIndex();
+		index.add(EntityIndex.ENTITY, "com.kardasland.domain.player.PlayerProfile");
+
+		assertTrue(index.covers("com.kardasland.domain"));
+		assertTrue(index.covers("com.kardasland.domain.player"));
+		assertFalse(index.covers("com.kardasland.dom"));
+		assertFalse(index.covers("com.example.shaded"));
+	}
+
+	@Test
+	void testRejectsMalformedLine() {
+		EntityIndex index = new EntityIndex();
+		assertThrows(IOException.class, () -> index.read(new StringReader("com.kardasland.domain.PlayerProfile")));
+	}
+}
@@ -0,0 +1,60 @@
+package com.kardasland.location;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpatialIndexTest {
+
+	private World world;
+
+	private record Marker(String id, StoredLocation location) {
+	}
+
+	@BeforeEach
+	void setupServer() {
+		ServerMock server = MockBukkit.mock();
+		world = server.addSimpleWorld("spatial-world");
+	}
+
+	@AfterEach
+	void teardownServer() {
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testRadiusAndChunkLookups() {
+		SpatialIndex<Marker, String> index = new SpatialIndex<>(Marker::id, Marker::location);
+		index.put(new Marker("spawn", StoredLocation.of(new Location(world, 0, 64, 0))));
+		index.put(new Marker("across-chunk-border", StoredLocation.of(new Location(world, -3, 64, 2))));
+		index.put(new Marker("corner", StoredLocation.of(new Location(world, 11, 64, 11))));
+		index.put(new Marker("far", StoredLocation.of(new Location(world, 500, 64, 500))));
+
+		List<String> within = index.within(new Location(world, 0, 64, 0), 12).stream().map(Marker::id).sorted().toList();
+		assertEquals(List.of("across-chunk-border", "spawn"), within);
+		assertEquals(2, index.inChunk(world, 0, 0).size());
+	}
+
+	@Test
+	void testPutMovesAndRemoveForgets() {
+		SpatialIndex<Marker, String> index = new SpatialIndex<>(Marker::id, Marker::location);
+		index.put(new Marker("cart", StoredLocation.of(new Location(world, 0, 64, 0))));
+		index.put(new Marker("cart", StoredLocation.of(new Location(world, 100, 64, 100))));
+
+		assertTrue(index.inChunk(world, 0, 0).isEmpty());
+		assertEquals(1, index.inChunk(world, 6, 6).size());
+
+		index.remove("cart");
+		assertEquals(0, index.size());
+		assertTrue(index.within(new Location(world, 100, 64, 100), 5).isEmpty());
+	}
+}
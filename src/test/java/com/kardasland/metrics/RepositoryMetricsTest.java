@@ -0,0 +1,63 @@
+package com.kardasland.metrics;
+
+import com.kardasland.MetricsConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryMetricsTest {
+
+	@Test
+	void testRecordsCallsAndPercentiles() {
+		RepositoryMetrics metrics = new RepositoryMetrics(Logger.getAnonymousLogger(), MetricsConfig.builder().enabled(true).slowQueryThreshold(null).build());
+		for (int i = 0; i < 99; i++) {
+			metrics.record("PlayerProfileRepository.findById", 1_000, 500_000, 1, false);
+		}
+		metrics.record("PlayerProfileRepository.findById", 1_000, 40_000_000, 1, true);
+
+		List<MethodStatistics> statistics = metrics.getMethodStatistics();
+		assertEquals(1, statistics.size());
+		MethodStatistics findById = statistics.getFirst();
+		assertEquals(100, findById.calls());
+		assertEquals(1, findById.failures());
+		// 500µs falls in the 256-512µs bucket, 40ms in the 32-65ms bucket.
+		assertEquals(Duration.ofNanos(512_000), findById.execution().p50());
+		assertEquals(Duration.ofNanos(512_000), findById.execution().p99());
+		assertEquals(Duration.ofMillis(40), findById.execution().max());
+	}
+
+	@Test
+	void testLogsSlowQueries() {
+		Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers(false);
+		StringBuilder logged = new StringBuilder();
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				logged.append(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+		RepositoryMetrics metrics = new RepositoryMetrics(logger, MetricsConfig.builder().enabled(true).slowQueryThreshold(Duration.ofMillis(10)).build());
+
+		metrics.record("PlayerProfileRepository.findByUsername", 0, 5_000_000, 1, false);
+		assertTrue(logged.isEmpty());
+
+		metrics.record("PlayerProfileRepository.findByUsername", 2_000_000, 25_000_000, 1, false);
+		assertEquals("Slow query PlayerProfileRepository.findByUsername took 25 ms (queued 2 ms, 1 bound parameter(s))", logged.toString());
+	}
+}
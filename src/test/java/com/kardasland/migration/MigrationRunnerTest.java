@@ -0,0 +1,136 @@
+package com.kardasland.migration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MigrationRunnerTest {
+
+	private static final Logger LOGGER = Logger.getLogger(MigrationRunnerTest.class.getName());
+	private static final String HISTORY = "schema_history";
+
+	private JdbcDataSource dataSource;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+	}
+
+	@Test
+	void testAppliesPendingMigrationsOnce() throws SQLException {
+		List<Migration> migrations = List.of(
+			Migration.sql("V2__add_name.sql", "ALTER TABLE player ADD COLUMN name VARCHAR(16);"),
+			Migration.sql("V1__create_player.sql", "-- players\nCREATE TABLE player (id INT PRIMARY KEY);\nINSERT INTO player (id) VALUES (1);")
+		);
+
+		assertEquals(2, runner(migrations).migrate());
+		assertEquals(0, runner(migrations).migrate());
+		assertEquals(2, count(HISTORY));
+		assertEquals(1, count("player"));
+	}
+
+	@Test
+	void testRejectsChangedMigration() {
+		runner(List.of(Migration.sql("V1__create_player.sql", "CREATE TABLE player (id INT PRIMARY KEY);"))).migrate();
+
+		MigrationRunner changed = runner(List.of(Migration.sql("V1__create_player.sql", "CREATE TABLE player (id BIGINT PRIMARY KEY);")));
+		assertThrows(MigrationException.class, changed::migrate);
+	}
+
+	@Test
+	void testRejectsMigrationOlderThanApplied() {
+		Migration first = Migration.sql("V1__create_player.sql", "CREATE TABLE player (id INT PRIMARY KEY);");
+		Migration latest = Migration.sql("V3__create_claim.sql", "CREATE TABLE claim (id INT PRIMARY KEY);");
+		runner(List.of(first, latest)).migrate();
+
+		Migration late = Migration.sql("V2__add_name.sql", "ALTER TABLE player ADD COLUMN name VARCHAR(16);");
+		assertThrows(MigrationException.class, () -> runner(List.of(first, late, latest)).migrate());
+	}
+
+	@Test
+	void testRollsBackFailedMigration() throws SQLException {
+		Migration broken = Migration.sql("V1__broken.sql", "CREATE TABLE player (id INT PRIMARY KEY);\nINSERT INTO missing_table VALUES (1);");
+
+		assertThrows(MigrationException.class, () -> runner(List.of(broken)).migrate());
+		assertEquals(0, count(HISTORY));
+	}
+
+	@Test
+	void testValidateReportsPendingMigrations() {
+		Migration first = Migration.sql("V1__create_player.sql", "CREATE TABLE player (id INT PRIMARY KEY);");
+		runner(List.of(first)).migrate();
+		assertDoesNotThrow(() -> runner(List.of(first)).validate());
+
+		Migration pending = Migration.java(new JavaMigration() {
+			@Override
+			public String version() {
+				return "1.1";
+			}
+
+			@Override
+			public String description() {
+				return "seed players";
+			}
+
+			@Override
+			public void migrate(Connection connection) throws SQLException {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("INSERT INTO player (id) VALUES (7)");
+				}
+			}
+		});
+		assertThrows(MigrationException.class, () -> runner(List.of(first, pending)).validate());
+		assertEquals(1, runner(List.of(first, pending)).migrate());
+	}
+
+	@Test
+	void testPluginsSharingTheHistoryTableKeepTheirOwnVersions() throws SQLException {
+		MigrationRunner shops = new MigrationRunner(dataSource, HISTORY, "Shops", List.of(
+			Migration.sql("V1__create_shop.sql", "CREATE TABLE shop (id INT PRIMARY KEY);")), LOGGER);
+		MigrationRunner claims = new MigrationRunner(dataSource, HISTORY, "Claims", List.of(
+			Migration.sql("V1__create_claim.sql", "CREATE TABLE claim (id INT PRIMARY KEY);"),
+			Migration.sql("V2__seed_claim.sql", "INSERT INTO claim (id) VALUES (1);")), LOGGER);
+
+		assertEquals(1, shops.migrate());
+		// V1 of Claims is neither taken for Shops' V1 nor rejected for its different checksum.
+		assertEquals(2, claims.migrate());
+		assertEquals(0, shops.migrate());
+		assertEquals(0, claims.migrate());
+		assertDoesNotThrow(shops::validate);
+		assertEquals(3, count(HISTORY));
+		assertEquals(1, count("claim"));
+	}
+
+	@Test
+	void testSplitsScriptOutsideQuotesAndComments() {
+		List<String> statements = SqlScript.split("INSERT INTO t VALUES ('a;b'); -- c;d\n/* e; */ UPDATE t SET v = 1;\n");
+
+		assertEquals(List.of("INSERT INTO t VALUES ('a;b')", "UPDATE t SET v = 1"), statements);
+	}
+
+	private MigrationRunner runner(List<Migration> migrations) {
+		return new MigrationRunner(dataSource, HISTORY, "TestPlugin", migrations, LOGGER);
+	}
+
+	private int count(String table) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+			rows.next();
+			return rows.getInt(1);
+		}
+	}
+}
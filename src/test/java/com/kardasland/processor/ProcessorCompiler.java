@@ -0,0 +1,135 @@
+package com.kardasland.processor;
+
+import com.kardasland.repository.CrudRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles sources in-process with {@link RepositoryProcessor}, as the build of a plugin using the processor would.
+ * The test build itself only runs Lombok, so this is how generated repositories are exercised.
+ */
+public final class ProcessorCompiler {
+
+	private ProcessorCompiler() {
+	}
+
+	/**
+	 * @param directory Receives the generated sources in {@code generated} and the class files in {@code classes}.
+	 * @param sources Source code keyed by fully qualified class name.
+	 * @param classpath Classes whose jars or directories the sources need, besides this library, JPA and Bukkit.
+	 */
+	public static Result compile(Path directory, Map<String, String> sources, Class<?>... classpath) {
+		List<JavaFileObject> units = new ArrayList<>();
+		sources.forEach((className, code) -> units.add(source(className, code)));
+		return run(directory, units, List.of(), classpath);
+	}
+
+	/**
+	 * Runs the processor over a repository interface that is already compiled, such as one of the test domain,
+	 * and compiles what it generates. Parameter names are not kept in class files, so they read {@code arg0} and so on.
+	 */
+	public static Result generate(Path directory, Class<?> repositoryInterface) {
+		return run(directory, List.of(), List.of(repositoryInterface.getName()), repositoryInterface);
+	}
+
+	private static Result run(Path directory, List<JavaFileObject> units, List<String> classNames, Class<?>... classpath) {
+		Path generated = directory.resolve("generated");
+		Path classes = directory.resolve("classes");
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+			Files.createDirectories(generated);
+			Files.createDirectories(classes);
+			files.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(generated));
+			files.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(classes));
+			Set<File> locations = new LinkedHashSet<>();
+			for (Class<?> type : List.of(CrudRepository.class, EntityManagerFactory.class, JavaPlugin.class)) {
+				locations.add(location(type));
+			}
+			for (Class<?> type : classpath) {
+				locations.add(location(type));
+			}
+			files.setLocation(StandardLocation.CLASS_PATH, locations);
+
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, null, classNames.isEmpty() ? null : classNames, units);
+			task.setProcessors(List.of(new RepositoryProcessor()));
+			boolean success = task.call();
+			String messages = diagnostics.getDiagnostics().stream()
+				.map(diagnostic -> diagnostic.getKind() + ": " + diagnostic.getMessage(null))
+				.collect(Collectors.joining("\n"));
+			return new Result(success && diagnostics.getDiagnostics().stream().noneMatch(d -> d.getKind() == Diagnostic.Kind.ERROR),
+				messages, generated, classes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static JavaFileObject source(String className, String code) {
+		URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+		return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return code;
+			}
+		};
+	}
+
+	private static File location(Class<?> type) {
+		try {
+			return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException("Cannot locate " + type.getName(), e);
+		}
+	}
+
+	/**
+	 * @param success Whether the sources compiled without errors.
+	 * @param diagnostics Every message of the compiler and the processor, one per line.
+	 */
+	public record Result(boolean success, String diagnostics, Path generatedSources, Path classes) {
+
+		/**
+		 * The generated source of {@code className}, or {@code null} if the processor wrote none.
+		 */
+		public String generatedSource(String className) throws IOException {
+			Path file = generatedSources.resolve(className.replace('.', '/') + ".java");
+			return Files.exists(file) ? Files.readString(file) : null;
+		}
+
+		/**
+		 * Loads the compiled classes on top of {@code parent}. The caller closes it.
+		 */
+		public URLClassLoader classLoader(ClassLoader parent) {
+			try {
+				return new URLClassLoader(new URL[]{classes.toUri().toURL()}, parent);
+			} catch (MalformedURLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.kardasland.processor;
+
+import com.kardasland.repository.GeneratedRepository;
+import com.kardasland.repository.RepositoryFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryProcessorTest {
+
+	private static final String PET = """
+		package sample;
+
+		public class Pet {
+			private java.util.UUID id;
+			private String name;
+			private Pet parent;
+		}
+		""";
+
+	private static final String NAMED_REPOSITORY = """
+		package sample;
+
+		import com.kardasland.repository.CrudRepository;
+		import java.util.List;
+		import java.util.UUID;
+		import java.util.concurrent.CompletableFuture;
+
+		public interface NamedRepository<E> extends CrudRepository<E, UUID> {
+			CompletableFuture<List<E>> findByName(String name);
+			CompletableFuture<List<E>> findByParent(E parent);
+		}
+		""";
+
+	private static final String KENNEL = """
+		package sample;
+
+		public class Kennel {
+			public interface PetRepository extends NamedRepository<Pet> {
+				java.util.concurrent.CompletableFuture<Long> countByNameStartingWith(String prefix);
+			}
+		}
+		""";
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void testGeneratesCompilableImplementations() throws IOException {
+		ProcessorCompiler.Result result = ProcessorCompiler.compile(directory, Map.of(
+			"sample.Pet", PET, "sample.NamedRepository", NAMED_REPOSITORY, "sample.Kennel", KENNEL));
+		assertTrue(result.success(), result.diagnostics());
+
+		// Nested interfaces are named after their outer classes, and generic repositories are left to the proxy.
+		assertNull(result.generatedSource("sample.NamedRepository_Impl"));
+		String source = result.generatedSource("sample.Kennel_PetRepository_Impl");
+		assertNotNull(source);
+		assertTrue(source.contains("extends GeneratedRepository<sample.Pet, java.util.UUID> implements sample.Kennel.PetRepository"), source);
+		// Inherited generic methods are written with the resolved types, but looked up by their declared erasure.
+		assertTrue(source.contains("public java.util.concurrent.CompletableFuture<java.util.List<sample.Pet>> findByParent(sample.Pet parent)"), source);
+		assertTrue(source.contains("compiled(\"findByParent\", java.lang.Object.class)"), source);
+		assertTrue(source.contains("compiled(\"findByName\", java.lang.String.class)"), source);
+		assertTrue(source.contains("public java.util.concurrent.CompletableFuture<java.lang.Long> countByNameStartingWith(java.lang.String prefix)"), source);
+
+		try (URLClassLoader classLoader = result.classLoader(getClass().getClassLoader())) {
+			Class<?> repositoryInterface = Class.forName("sample.Kennel$PetRepository", true, classLoader);
+			// Also checks that every compiled(...) lookup in the generated constructor finds its method.
+			Object repository = new RepositoryFactory(null, null).createRepository(repositoryInterface);
+			assertInstanceOf(GeneratedRepository.class, repository);
+			assertTrue(repositoryInterface.isInstance(repository));
+		} catch (ClassNotFoundException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Test
+	void testReportsUnderivableMethodNames() throws IOException {
+		String broken = """
+			package sample;
+
+			public interface BrokenRepository extends com.kardasland.repository.CrudRepository<Pet, java.util.UUID> {
+				java.util.concurrent.CompletableFuture<Pet> frobnicateByName(String name);
+			}
+			""";
+		ProcessorCompiler.Result result = ProcessorCompiler.compile(directory, Map.of("sample.Pet", PET, "sample.BrokenRepository", broken));
+
+		assertFalse(result.success());
+		assertTrue(result.diagnostics().contains("Cannot derive a query from frobnicateByName"), result.diagnostics());
+		assertNull(result.generatedSource("sample.BrokenRepository_Impl"));
+	}
+}
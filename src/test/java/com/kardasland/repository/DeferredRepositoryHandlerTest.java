@@ -0,0 +1,61 @@
+package com.kardasland.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeferredRepositoryHandlerTest {
+
+	interface NameRepository {
+		CompletableFuture<String> findName(int id);
+	}
+
+	private static NameRepository deferred(CompletableFuture<NameRepository> repository) {
+		return (NameRepository) Proxy.newProxyInstance(NameRepository.class.getClassLoader(), new Class[]{NameRepository.class},
+			new DeferredRepositoryHandler(NameRepository.class, repository));
+	}
+
+	@Test
+	void testQueuesCallsUntilReadyAndStartsThemInOrder() throws ExecutionException, InterruptedException {
+		List<Integer> started = new ArrayList<>();
+		CompletableFuture<NameRepository> repository = new CompletableFuture<>();
+		NameRepository proxy = deferred(repository);
+
+		CompletableFuture<String> first = proxy.findName(1);
+		CompletableFuture<String> second = proxy.findName(2);
+		assertFalse(first.isDone());
+
+		repository.complete(id -> {
+			started.add(id);
+			return CompletableFuture.completedFuture("name" + id);
+		});
+
+		assertEquals("name1", first.get());
+		assertEquals("name2", second.get());
+		assertEquals("name3", proxy.findName(3).get());
+		assertEquals(List.of(1, 2, 3), started);
+	}
+
+	@Test
+	void testFailsCallsWhenInitializationFails() {
+		CompletableFuture<NameRepository> repository = new CompletableFuture<>();
+		NameRepository proxy = deferred(repository);
+		CompletableFuture<String> queued = proxy.findName(1);
+
+		repository.completeExceptionally(new IllegalStateException("no database"));
+
+		ExecutionException queuedFailure = assertThrows(ExecutionException.class, queued::get);
+		assertInstanceOf(IllegalStateException.class, queuedFailure.getCause());
+		ExecutionException laterFailure = assertThrows(ExecutionException.class, () -> proxy.findName(2).get());
+		assertInstanceOf(IllegalStateException.class, laterFailure.getCause());
+	}
+}
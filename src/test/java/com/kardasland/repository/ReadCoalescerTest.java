@@ -0,0 +1,146 @@
+package com.kardasland.repository;
+
+import com.kardasland.annotation.CoalesceReads;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReadCoalescerTest {
+
+	@CoalesceReads
+	private interface SingleFlight {
+	}
+
+	@CoalesceReads(batchWindowMillis = 200)
+	private interface Batched {
+	}
+
+	@Test
+	void testIdenticalReadsShareOneCall() throws ExecutionException, InterruptedException {
+		ReadCoalescer coalescer = new ReadCoalescer(SingleFlight.class.getAnnotation(CoalesceReads.class), 500, ids -> {
+			throw new AssertionError("batching is disabled");
+		});
+		AtomicInteger calls = new AtomicInteger();
+		CompletableFuture<String> pending = new CompletableFuture<>();
+
+		CompletableFuture<String> first = coalescer.findById("a", () -> {
+			calls.incrementAndGet();
+			return pending;
+		});
+		CompletableFuture<String> second = coalescer.findById("a", () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		pending.complete("profile");
+
+		assertEquals("profile", first.get());
+		assertEquals("profile", second.get());
+		assertEquals(1, calls.get());
+
+		coalescer.findById("a", () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture("reloaded");
+		}).get();
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void testWriteStopsJoiningEarlierRead() throws ExecutionException, InterruptedException {
+		ReadCoalescer coalescer = new ReadCoalescer(SingleFlight.class.getAnnotation(CoalesceReads.class), 500, ids -> null);
+		CompletableFuture<String> stale = new CompletableFuture<>();
+
+		CompletableFuture<String> before = coalescer.join("key", () -> stale);
+		coalescer.invalidate();
+		CompletableFuture<String> after = coalescer.join("key", () -> CompletableFuture.completedFuture("fresh"));
+		stale.complete("stale");
+
+		assertEquals("stale", before.get());
+		assertEquals("fresh", after.get());
+	}
+
+	@Test
+	void testReadAfterWriteCompletionNeverJoinsEarlierRead() throws ExecutionException, InterruptedException {
+		ReadCoalescer coalescer = new ReadCoalescer(SingleFlight.class.getAnnotation(CoalesceReads.class), 500, ids -> null);
+		CompletableFuture<Void> writing = new CompletableFuture<>();
+		CompletableFuture<String> stale = new CompletableFuture<>();
+
+		CompletableFuture<?> written = coalescer.write(() -> writing);
+		// Started while the write is still running, so it may read the row as it was before.
+		CompletableFuture<String> during = coalescer.findById("a", () -> stale);
+		writing.complete(null);
+		written.get();
+		CompletableFuture<String> after = coalescer.findById("a", () -> CompletableFuture.completedFuture("fresh"));
+		stale.complete("stale");
+
+		assertEquals("stale", during.get());
+		assertEquals("fresh", after.get());
+	}
+
+	@Test
+	void testWriteClosesOpenBatch() throws ExecutionException, InterruptedException, TimeoutException {
+		List<List<Object>> loads = new ArrayList<>();
+		ReadCoalescer coalescer = new ReadCoalescer(Batched.class.getAnnotation(CoalesceReads.class), 500, ids -> {
+			synchronized (loads) {
+				loads.add(ids);
+			}
+			return CompletableFuture.completedFuture(Map.of("a", "A" + loads.size()));
+		});
+
+		CompletableFuture<String> before = coalescer.findById("a", () -> null);
+		coalescer.write(() -> CompletableFuture.completedFuture(null)).get();
+		CompletableFuture<String> after = coalescer.findById("a", () -> null);
+
+		assertEquals("A1", before.get(1, TimeUnit.SECONDS));
+		assertEquals("A2", after.get(1, TimeUnit.SECONDS));
+		assertEquals(List.of(List.of("a"), List.of("a")), loads);
+	}
+
+	@Test
+	void testBatchesDistinctIdsIntoOneLoad() throws ExecutionException, InterruptedException, TimeoutException {
+		List<List<Object>> loads = new ArrayList<>();
+		ReadCoalescer coalescer = new ReadCoalescer(Batched.class.getAnnotation(CoalesceReads.class), 500, ids -> {
+			synchronized (loads) {
+				loads.add(ids);
+			}
+			return CompletableFuture.completedFuture(Map.of("a", "A", "b", "B"));
+		});
+
+		CompletableFuture<String> a = coalescer.findById("a", () -> null);
+		CompletableFuture<String> b = coalescer.findById("b", () -> null);
+		CompletableFuture<String> againA = coalescer.findById("a", () -> null);
+		CompletableFuture<String> missing = coalescer.findById("c", () -> null);
+
+		assertEquals("A", a.get(1, TimeUnit.SECONDS));
+		assertEquals("B", b.get(1, TimeUnit.SECONDS));
+		assertEquals("A", againA.get(1, TimeUnit.SECONDS));
+		assertNull(missing.get(1, TimeUnit.SECONDS));
+		assertEquals(List.of(List.of("a", "b", "c")), loads);
+	}
+
+	@Test
+	void testFullBatchLoadsWithoutWaiting() throws ExecutionException, InterruptedException, TimeoutException {
+		AtomicInteger loads = new AtomicInteger();
+		ReadCoalescer coalescer = new ReadCoalescer(Batched.class.getAnnotation(CoalesceReads.class), 2, ids -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture(Map.of());
+		});
+
+		CompletableFuture<Object> first = coalescer.findById(1, () -> null);
+		CompletableFuture<Object> second = coalescer.findById(2, () -> null);
+
+		assertEquals(1, loads.get());
+		assertNull(first.get(1, TimeUnit.SECONDS));
+		assertNull(second.get(1, TimeUnit.SECONDS));
+		assertEquals(1, loads.get());
+	}
+}
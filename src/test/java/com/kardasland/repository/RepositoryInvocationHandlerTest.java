@@ -3,13 +3,19 @@ package com.kardasland.repository;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TestEntity {}
 
 interface TestRepository extends CrudRepository<TestEntity, Long> {}
 
+interface MismatchedParametersRepository extends CrudRepository<TestEntity, Long> {
+	CompletableFuture<TestEntity> findByUsername();
+}
+
 class RepositoryInvocationHandlerTest {
 
 	private String invokeBuildJpql(String methodName) throws Exception {
@@ -51,4 +57,38 @@ class RepositoryInvocationHandlerTest {
 		String jpql = invokeBuildJpql("findAll");
 		assertEquals("SELECT e FROM TestEntity e", jpql);
 	}
+
+	@Test
+	void testBuildJpqlForInChunk() throws Exception {
+		String jpql = invokeBuildJpql("findByOwnerAndHomeInChunk");
+		assertEquals("SELECT e FROM TestEntity e WHERE e.owner = :arg0 AND (e.home.worldId = :arg1World AND e.home.chunkKey = :arg1Chunk)", jpql);
+	}
+
+	@Test
+	void testBuildJpqlWithOrBindsLooserThanAnd() throws Exception {
+		String jpql = invokeBuildJpql("findByUsernameAndLevelOrScore");
+		assertEquals("SELECT e FROM TestEntity e WHERE e.username = :arg0 AND e.level = :arg1 OR e.score = :arg2", jpql);
+	}
+
+	@Test
+	void testBuildJpqlWithComparisonKeywords() throws Exception {
+		assertEquals("SELECT e FROM TestEntity e WHERE e.level > :arg0 AND e.score BETWEEN :arg1 AND :arg2",
+			invokeBuildJpql("findByLevelGreaterThanAndScoreBetween"));
+		assertEquals("SELECT e FROM TestEntity e WHERE e.username IN :arg0 AND e.banned = TRUE",
+			invokeBuildJpql("findByUsernameInAndBannedTrue"));
+		assertEquals("SELECT e FROM TestEntity e WHERE UPPER(e.username) LIKE CONCAT(UPPER(:arg0), '%')",
+			invokeBuildJpql("findByUsernameStartingWithIgnoreCase"));
+	}
+
+	@Test
+	void testBuildJpqlWithMultipleOrderKeys() throws Exception {
+		String jpql = invokeBuildJpql("findTop5ByLevelOrderByScoreDescUsernameAsc");
+		assertEquals("SELECT e FROM TestEntity e WHERE e.level = :arg0 ORDER BY e.score DESC, e.username ASC", jpql);
+	}
+
+	@Test
+	void testMismatchedParametersFailAtCreation() {
+		assertThrows(IllegalStateException.class,
+			() -> new RepositoryInvocationHandler(null, null, MismatchedParametersRepository.class));
+	}
 }
@@ -0,0 +1,65 @@
+package com.kardasland.repository.query;
+
+import com.kardasland.repository.Sort;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartTreeTest {
+
+	@Test
+	void groupsConditionsAsOrOfAnds() {
+		PartTree tree = PartTree.parse("findByUsernameAndLevelOrScoreGreaterThan");
+
+		List<List<Part>> predicate = tree.getPredicate();
+		assertEquals(2, predicate.size());
+		assertEquals(List.of(new Part("username", Part.Type.SIMPLE_PROPERTY, false), new Part("level", Part.Type.SIMPLE_PROPERTY, false)), predicate.get(0));
+		assertEquals(List.of(new Part("score", Part.Type.GREATER_THAN, false)), predicate.get(1));
+		assertEquals(3, tree.getArgumentCount());
+	}
+
+	@Test
+	void doesNotSplitPropertiesContainingKeywords() {
+		PartTree tree = PartTree.parse("findByOrderIdAndColorOrderByOrderIdDesc");
+
+		assertEquals(List.of(List.of(new Part("orderId", Part.Type.SIMPLE_PROPERTY, false), new Part("color", Part.Type.SIMPLE_PROPERTY, false))), tree.getPredicate());
+		assertEquals(new Sort(List.of(Sort.Order.desc("orderId"))), tree.getSort());
+	}
+
+	@Test
+	void prefersExistingPropertyOverKeywordSuffix() {
+		Set<String> properties = Set.of("lastLogin");
+		PartTree tree = PartTree.parse("findByLastLogin", properties::contains);
+
+		assertEquals(Part.Type.SIMPLE_PROPERTY, tree.getPredicate().getFirst().getFirst().type());
+		assertEquals("lastLogin", tree.getPredicate().getFirst().getFirst().property());
+	}
+
+	@Test
+	void parsesLimitsDistinctAndIgnoreCase() {
+		assertEquals(1, PartTree.parse("findFirstByLevel").getMaxResults());
+		assertEquals(10, PartTree.parse("findTop10ByLevel").getMaxResults());
+		assertTrue(PartTree.parse("findDistinctByLevel").isDistinct());
+
+		PartTree tree = PartTree.parse("findByUsernameAndNicknameAllIgnoreCase");
+		assertTrue(tree.getPredicate().getFirst().stream().allMatch(Part::ignoreCase));
+	}
+
+	@Test
+	void parsesNestedPropertiesAndZeroArgumentKeywords() {
+		PartTree tree = PartTree.parse("countByHome_WorldIdAndBannedIsNull");
+
+		assertEquals(List.of(new Part("home.worldId", Part.Type.SIMPLE_PROPERTY, false), new Part("banned", Part.Type.IS_NULL, false)), tree.getPredicate().getFirst());
+		assertEquals(1, tree.getArgumentCount());
+	}
+
+	@Test
+	void rejectsUnknownPrefix() {
+		assertThrows(IllegalArgumentException.class, () -> PartTree.parse("loadByLevel"));
+	}
+}
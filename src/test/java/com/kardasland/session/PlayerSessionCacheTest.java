@@ -0,0 +1,221 @@
+package com.kardasland.session;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.kardasland.DatabaseConfig;
+import com.kardasland.DatabaseManager;
+import com.kardasland.domain.PlayerProfile;
+import com.kardasland.domain.PlayerWallet;
+import com.kardasland.domain.PlayerWalletRepository;
+import com.kardasland.repository.CrudRepository;
+import com.kardasland.repository.RepositoryFactory;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlayerSessionCacheTest {
+
+	private ServerMock server;
+	private MockPlugin plugin;
+	private DatabaseManager databaseManager;
+	private RepositoryFactory factory;
+	private PlayerWalletRepository walletRepository;
+
+	@BeforeAll
+	void setupServer() {
+		server = MockBukkit.mock();
+		plugin = MockBukkit.createMockPlugin("SessionTestPlugin");
+
+		DatabaseConfig dbConfig = DatabaseConfig.builder()
+			.type("sqlite")
+			.filePath("target/test-db-" + UUID.randomUUID() + ".db")
+			.packagesToScan(List.of(PlayerProfile.class.getPackageName()))
+			.build();
+
+		databaseManager = new DatabaseManager(plugin);
+		databaseManager.initializeDataSource(dbConfig);
+		factory = new RepositoryFactory(databaseManager);
+		walletRepository = factory.createRepository(PlayerWalletRepository.class);
+	}
+
+	@AfterAll
+	void teardownServer() {
+		factory.close();
+		databaseManager.shutdown();
+		MockBukkit.unmock();
+	}
+
+	@Test
+	void testPreloadServesFromMemoryAndFlushesDirtyEntities() throws ExecutionException, InterruptedException {
+		UUID playerId = UUID.randomUUID();
+		walletRepository.save(new PlayerWallet(playerId, 100)).get();
+
+		PlayerSessionCache sessions = factory.getSessionCache();
+		assertNull(sessions.get(PlayerWallet.class, playerId));
+		sessions.onPreLogin(new AsyncPlayerPreLoginEvent("Steve", InetAddress.getLoopbackAddress(), playerId));
+
+		PlayerWallet wallet = sessions.get(PlayerWallet.class, playerId);
+		assertNotNull(wallet);
+		assertEquals(100, wallet.getBalance());
+		CompletableFuture<PlayerWallet> cachedLookup = walletRepository.findById(playerId);
+		assertTrue(cachedLookup.isDone());
+		assertSame(wallet, cachedLookup.get());
+
+		wallet.setBalance(250);
+		sessions.markDirty(PlayerWallet.class, playerId);
+		sessions.flush().get();
+
+		// findAllById bypasses the session cache and reads the row back from the database.
+		PlayerWallet stored = walletRepository.findAllById(List.of(playerId)).get().getFirst();
+		assertEquals(250, stored.getBalance());
+	}
+
+	@Test
+	void testBulkWritesKeepSessionsInSync() throws ExecutionException, InterruptedException {
+		UUID playerId = UUID.randomUUID();
+		walletRepository.save(new PlayerWallet(playerId, 5)).get();
+		PlayerSessionCache sessions = factory.getSessionCache();
+		sessions.onPreLogin(new AsyncPlayerPreLoginEvent("Alex", InetAddress.getLoopbackAddress(), playerId));
+
+		PlayerWallet saved = new PlayerWallet(playerId, 10);
+		walletRepository.saveAll(List.of(saved)).get();
+		assertSame(saved, walletRepository.findById(playerId).get());
+
+		walletRepository.deleteAllById(List.of(playerId)).get();
+		assertNull(sessions.get(PlayerWallet.class, playerId));
+		assertNull(walletRepository.findById(playerId).get());
+
+		walletRepository.save(new PlayerWallet(playerId, 5)).get();
+		sessions.onPreLogin(new AsyncPlayerPreLoginEvent("Alex", InetAddress.getLoopbackAddress(), playerId));
+		assertNotNull(sessions.get(PlayerWallet.class, playerId));
+		assertEquals(1, walletRepository.deleteByBalanceLessThan(6).get());
+		assertNull(sessions.get(PlayerWallet.class, playerId));
+		assertNull(walletRepository.findById(playerId).get());
+	}
+
+	@Test
+	void testTransactionsUpdateSessionsOnlyAfterCommit() throws ExecutionException, InterruptedException {
+		UUID playerId = UUID.randomUUID();
+		walletRepository.save(new PlayerWallet(playerId, 100)).get();
+		PlayerSessionCache sessions = factory.getSessionCache();
+		sessions.onPreLogin(new AsyncPlayerPreLoginEvent("Herobrine", InetAddress.getLoopbackAddress(), playerId));
+		PlayerWallet cached = sessions.get(PlayerWallet.class, playerId);
+
+		// Inside the transaction findById returns the managed wallet, so its change commits with the transaction.
+		PlayerWallet[] seen = new PlayerWallet[2];
+		PlayerWallet committed = factory.transaction(transaction -> {
+			PlayerWallet managed = walletRepository.findById(playerId).join();
+			managed.setBalance(150);
+			walletRepository.save(managed).join();
+			seen[0] = sessions.get(PlayerWallet.class, playerId);
+			return managed;
+		}).get();
+		assertNotSame(cached, committed);
+		assertSame(cached, seen[0]);
+		assertSame(committed, sessions.get(PlayerWallet.class, playerId));
+		assertEquals(150, walletRepository.findAllById(List.of(playerId)).get().getFirst().getBalance());
+
+		factory.transaction(transaction -> {
+			walletRepository.delete(walletRepository.findById(playerId).join()).join();
+			transaction.setRollbackOnly();
+			return null;
+		}).get();
+		assertSame(committed, sessions.get(PlayerWallet.class, playerId));
+
+		assertThrows(ExecutionException.class, () -> factory.transaction(transaction -> {
+			walletRepository.save(new PlayerWallet(playerId, 999)).join();
+			throw new IllegalStateException("Rolled back");
+		}).get());
+		assertSame(committed, sessions.get(PlayerWallet.class, playerId));
+		assertEquals(150, walletRepository.findAllById(List.of(playerId)).get().getFirst().getBalance());
+
+		factory.transaction(transaction -> walletRepository.deleteAllById(List.of(playerId)).join()).get();
+		assertNull(sessions.get(PlayerWallet.class, playerId));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testStartsOnTheMainThreadAndLoadsPlayersAlreadyOnline() throws InterruptedException {
+		PlayerMock player = server.addPlayer();
+		PlayerWallet wallet = new PlayerWallet(player.getUniqueId(), 42);
+		CrudRepository<PlayerWallet, UUID> repository = mock(CrudRepository.class);
+		when(repository.findById(any())).thenReturn(CompletableFuture.completedFuture(null));
+		when(repository.findById(player.getUniqueId())).thenReturn(CompletableFuture.completedFuture(wallet));
+
+		// Created off the main thread, as by a repository of a factory that initializes asynchronously.
+		PlayerSessionCache[] created = new PlayerSessionCache[1];
+		Thread init = new Thread(() -> created[0] = new PlayerSessionCache(plugin, Duration.ofHours(1)));
+		init.start();
+		init.join();
+		PlayerSessionCache sessions = created[0];
+		try {
+			sessions.register(PlayerWallet.class, repository);
+			assertNull(sessions.get(PlayerWallet.class, player.getUniqueId()));
+
+			server.getScheduler().performOneTick();
+			assertSame(wallet, sessions.get(PlayerWallet.class, player.getUniqueId()));
+		} finally {
+			sessions.close();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testFailedFlushIsRetriedAfterQuit() {
+		PlayerMock player = server.addPlayer();
+		PlayerWallet wallet = new PlayerWallet(player.getUniqueId(), 100);
+		CrudRepository<PlayerWallet, UUID> repository = mock(CrudRepository.class);
+		when(repository.findById(player.getUniqueId())).thenReturn(CompletableFuture.completedFuture(wallet));
+		when(repository.saveAll(any())).thenReturn(
+			CompletableFuture.failedFuture(new IllegalStateException("database is down")),
+			CompletableFuture.failedFuture(new IllegalStateException("database is down")),
+			CompletableFuture.completedFuture(null));
+
+		PlayerSessionCache sessions = new PlayerSessionCache(plugin, Duration.ofHours(1));
+		try {
+			sessions.register(PlayerWallet.class, repository);
+			sessions.onPreLogin(new AsyncPlayerPreLoginEvent(player.getName(), InetAddress.getLoopbackAddress(), player.getUniqueId()));
+			wallet.setBalance(250);
+			sessions.markDirty(PlayerWallet.class, player.getUniqueId());
+
+			// Still dirty after the failed flush, so the quit tries again and keeps the session when that fails too.
+			assertThrows(Exception.class, () -> sessions.flush().join());
+			sessions.onQuit(new PlayerQuitEvent(player, "Disconnected"));
+			assertNull(sessions.get(PlayerWallet.class, player.getUniqueId()));
+
+			sessions.flush().join();
+			verify(repository, times(3)).saveAll(List.of(wallet));
+			// Saved now, so nothing is left to retry.
+			sessions.flush().join();
+			verify(repository, times(3)).saveAll(any());
+		} finally {
+			sessions.close();
+		}
+	}
+}